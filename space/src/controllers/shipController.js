@@ -2,13 +2,17 @@ import express from "express";
 
 import { Ship } from "../core/ship.js";
 import { ShipCollective } from "../core/shipCollective.js";
+import { sendJson } from "../util.js";
 
 export var shipController = express.Router();
 
-shipController.use(express.json());
+// Batches of ships can be considerably larger than the default body size limit. Compressed
+// (gzip) request bodies are inflated by the JSON parser. Responses that list entities are
+// compressed if the client accepts it.
+shipController.use(express.json({ limit: "16mb" }));
 
 shipController.get("/", (request, response) => {
-    response.json(ShipCollective.getInstance().getShips());
+    sendJson(request, response, ShipCollective.getInstance().getShips());
 });
 
 shipController.get("/logs/", (request, response) => {
@@ -29,7 +33,7 @@ shipController.get("/logs/", (request, response) => {
             selectedLogs = logs.slice(page * quantity, (page + 1) * quantity);
         }
     }
-    response.json(selectedLogs);
+    sendJson(request, response, selectedLogs);
 });
 
 shipController.get("/missions/", (request, response) => {
@@ -50,7 +54,7 @@ shipController.get("/missions/", (request, response) => {
             selectedMissions = missions.slice(page * quantity, (page + 1) * quantity);
         }
     }
-    response.json(selectedMissions);
+    sendJson(request, response, selectedMissions);
 });
 
 shipController.get("/mission-events/", (request, response) => {
@@ -71,7 +75,7 @@ shipController.get("/mission-events/", (request, response) => {
             selectedEvents = events.slice(page * quantity, (page + 1) * quantity);
         }
     }
-    response.json(selectedEvents);
+    sendJson(request, response, selectedEvents);
 });
 
 shipController.get("/:id", (request, response) => {
@@ -81,4 +85,31 @@ shipController.get("/:id", (request, response) => {
 shipController.post("/", (request, response) => {
     ShipCollective.getInstance().addShip(new Ship(request.body));
     response.json(request.body);
-});
\ No newline at end of file
+});
+
+/**
+ * Receives a batch of ships at once. The request body is an array of ships, each in the
+ * same format as for a single ship. The response lists, in the same order, whether each
+ * ship is now in space: [{ "id": 1, "accepted": true }, ...]. A ship that is already in
+ * space counts as accepted, so that a batch can safely be sent again.
+ */
+shipController.post("/batch", (request, response) => {
+    if (!Array.isArray(request.body)) {
+        response.status(400).json({ error: "An array of ships is expected." });
+        return;
+    }
+
+    const collective = ShipCollective.getInstance();
+    const results = [];
+    for (const shipData of request.body) {
+        let accepted = false;
+        try {
+            collective.addShip(new Ship(shipData));
+            accepted = collective.getShip(shipData.id) !== undefined;
+        } catch (error) {
+            console.log(`shipController - ERROR: Ship with id ${shipData.id} could not be added: ${error.message}`);
+        }
+        results.push({ id: shipData.id, accepted: accepted });
+    }
+    response.json(results);
+});
@@ -1,6 +1,7 @@
 import config from "../config.js";
 import { checkConnection } from "./db/dbCommon.js";
 import { initializeSpace } from "./space.js";
+import { postJson } from "../util.js";
 import { setupShips, addShip as addDbShip, removeShip as removeDbShip, updateShips } from "./db/dbShip.js";
 
 /**
@@ -152,12 +153,8 @@ export class ShipCollective {
      * @param {*} ship Inbound ship. 
      */
     sendShipToSurface(ship) {
-        fetch(`http://${HOST}:${PORT}/ships/receive-ship`, {
-            method: "POST",
-            body: JSON.stringify(ship),
-            headers: {
-                "Content-Type": "application/json"
-            }
+        postJson(`http://${HOST}:${PORT}/ships/receive-ship`, ship).catch((error) => {
+            console.log(`shipCollective - ERROR: Ship with id ${ship.id} could not be sent to surface: ${error.message}`);
         });
     }
 }
\ No newline at end of file
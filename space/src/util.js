@@ -1,3 +1,17 @@
+import zlib from "zlib";
+
+/**
+ * Size from which JSON payloads are gzip-compressed (bytes). Compressing small payloads
+ * costs more time than it saves.
+ */
+export const COMPRESSION_THRESHOLD = 1024;
+
+/**
+ * Payloads are compressed at the fastest level: higher levels take a lot more time for
+ * little further gain on JSON.
+ */
+const COMPRESSION_OPTIONS = { level: zlib.constants.Z_BEST_SPEED };
+
 /**
  * Convenience function for delaying execution.
  * @param {number} ms Sleep duration in milliseconds.
@@ -49,3 +63,47 @@ export function randomInteger(min, max) {
     max = Math.floor(max);
     return Math.floor(Math.random() * (max - min)) + min;
 }
+
+/**
+ * Sends data as a JSON response. The response is gzip-compressed if it is large enough and
+ * the client accepts gzip. As with response.json, an ETag is set and conditional requests
+ * are answered with 304.
+ * @param {*} request Request.
+ * @param {*} response Response.
+ * @param {*} data Data to be sent.
+ */
+export function sendJson(request, response, data) {
+    const body = JSON.stringify(data);
+    response.vary("Accept-Encoding");
+    response.type("json");
+    const acceptsGzip = /\bgzip\b/.test(request.get("Accept-Encoding") || "");
+    if (!acceptsGzip || body === undefined || Buffer.byteLength(body) < COMPRESSION_THRESHOLD) {
+        response.send(body);
+        return;
+    }
+    response.set("Content-Encoding", "gzip");
+    response.send(zlib.gzipSync(body, COMPRESSION_OPTIONS));
+}
+
+/**
+ * Posts data as JSON. The request body is gzip-compressed if it is large enough. If the
+ * receiver does not accept compressed requests (415), the data is posted again uncompressed.
+ * @param {string} url Target URL.
+ * @param {*} data Data to be posted.
+ * @returns Promise of the response.
+ */
+export async function postJson(url, data) {
+    const body = JSON.stringify(data);
+    const headers = { "Content-Type": "application/json" };
+    if (Buffer.byteLength(body) >= COMPRESSION_THRESHOLD) {
+        const response = await fetch(url, {
+            method: "POST",
+            body: zlib.gzipSync(body, COMPRESSION_OPTIONS),
+            headers: { ...headers, "Content-Encoding": "gzip" }
+        });
+        if (response.status !== 415) {
+            return response;
+        }
+    }
+    return fetch(url, { method: "POST", body: body, headers: headers });
+}
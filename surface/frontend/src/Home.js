@@ -17,23 +17,27 @@ import HomeNav from "./components/HomeNav";
 function Home() {
 
     /**
-     * Collects every ship entity and updates the component with them.
+     * Collects the most recently added ship entities and updates the component with them.
      */
     async function fetchShips() {
-        const fetchedShips = await (await fetch("/ships")).json();
-        setShips(fetchedShips);
+        const response = await fetch("/ships?limit=" + FETCH_LIMIT);
+        if (response.ok) {
+            setShips(await response.json());
+        }
     }
 
     /**
-     * Collects every mission entity and updates the component with them.
+     * Collects the most recently added mission entities and updates the component with them.
      */
     async function fetchMissions() {
-        const fetchedMissions = await (await fetch("/missions")).json();
-        setMissions(fetchedMissions);
+        const response = await fetch("/missions?limit=" + FETCH_LIMIT);
+        if (response.ok) {
+            setMissions(await response.json());
+        }
     }
 
     /**
-     * Refreshes the component (by fetching all ships and missions).
+     * Refreshes the component (by fetching recent ships and missions).
      */
     async function refresh() {
         fetchShips();
@@ -60,6 +64,12 @@ function Home() {
      */
     const LOAD_INCREMENT = 12;
 
+    /**
+     * Represents how many of the most recently added ships and missions are shown on the home page.
+     * The back-end lists them a page at a time.
+     */
+    const FETCH_LIMIT = 50;
+
     const [ships, setShips] = useState([]);
     const [missions, setMissions] = useState([]);
 
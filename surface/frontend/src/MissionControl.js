@@ -29,12 +29,12 @@ import AppFooter from "./AppFooter";
 function MissionControl() {
 
     /**
-     * Updates the component with ship entities that are fetched from the application.
+     * Updates the component with ship summaries that are fetched from the application.
      */
     async function refresh() {
         const shipCount = await (await fetch(`/ships/count`)).json();
         dynamicFilter.current = shipCount <= shipLoadLimit.current;
-        let url = `/ships/recent?limit=${shipLoadLimit.current}`;
+        let url = `/ships/summaries/recent?limit=${shipLoadLimit.current}`;
         if (dynamicFilter.current) {
             previousConfirmedQuery.current = filterValue;
         } else {
@@ -56,6 +56,28 @@ function MissionControl() {
         });
     }
 
+    /**
+     * Fetches the mission of a ship, so that its details can be shown.
+     * @param {*} missionId ID of the mission.
+     */
+    async function fetchMission(missionId) {
+        setMissions((previous) => ({...previous, [missionId]: null}));
+        const response = await fetch("/missions/" + missionId);
+        if (response.ok) {
+            const mission = await response.json();
+            setMissions((previous) => ({...previous, [missionId]: mission}));
+        }
+    }
+
+    /**
+     * Fetches the ship entity behind a ship summary.
+     * @param {*} ship Ship summary.
+     * @returns Ship entity.
+     */
+    async function fetchShip(ship) {
+        return await (await fetch("/ships/" + ship.id)).json();
+    }
+
     /**
      * Launches specified ship to space.
      * @param {*} ship Ship that is to be launched to space. The ship in question must be assigned to a mission.
@@ -92,7 +114,7 @@ function MissionControl() {
      * @param {*} ship Ship that is to be unassigned. The ship in question must be assigned to a mission.
      */
     async function unassign(ship) {
-        const assignedShip = structuredClone(ship);
+        const assignedShip = await fetchShip(ship);
         assignedShip.mission = null;
         await fetch('/ships/' + assignedShip.id, {
             method: 'PUT',
@@ -109,9 +131,9 @@ function MissionControl() {
      * Removes currently assigned mission from every ship that is in ready state.
      */
     async function unassignAll() {
-        const targetShips = ships.filter((s) => s.status === "READY");
+        const targetShips = ships.filter((s) => s.status === "READY" && s.missionId !== null);
         for (const ship of targetShips) {
-            const assignedShip = structuredClone(ship);
+            const assignedShip = await fetchShip(ship);
             assignedShip.mission = null;
             await fetch('/ships/' + assignedShip.id, {
                 method: 'PUT',
@@ -248,6 +270,7 @@ function MissionControl() {
     const NO_CONNECTION_JSX = (<Alert color="danger">Error: no connection to server.</Alert>);
 
     const [ships, setShips] = useState([]);
+    const [missions, setMissions] = useState({});
     const [accordionOpen, setAccordionOpen] = useState("0");
     const shipLoadLimit = useRef(25);
     const dynamicFilter = useRef(true);
@@ -265,6 +288,10 @@ function MissionControl() {
             setAccordionOpen();
         } else {
             setAccordionOpen(id);
+            const ship = ships.find((s) => s.id.toString() === id);
+            if (ship !== undefined && ship.missionId !== null && !(ship.missionId in missions)) {
+                fetchMission(ship.missionId);
+            }
         }
     }
 
@@ -317,7 +344,7 @@ function MissionControl() {
         const repairButtonFunction = awaitingRepairs ? abortRepair : repair;
 
         const optsM = {"disabled": (ship.status === "READY" ? false : true)};
-        const optsL = {"disabled": (ship.status === "READY" && ship.mission !== null ? false : true)};
+        const optsL = {"disabled": (ship.status === "READY" && ship.missionId !== null ? false : true)};
         const optsR = {"disabled": ((ship.status === "READY" || ship.status === "BROKEN") && ship.condition < ship.peakCondition || awaitingRepairs ? false : true)};
         const optsA = {"disabled": (ship.status.startsWith("AWAITING_TAKEOFF") || ship.status === "OUTBOUND" || ship.status === "TAKING_OFF" ? false : true)};
         const optsD = {"disabled": (ship.status === "READY" || ship.status === "BROKEN" ? false : true)};
@@ -326,32 +353,36 @@ function MissionControl() {
         const conditionIndicatorWidth = ship.condition / indicatorFactor;
         const peakConditionIndicatorWidth = (ship.peakCondition - ship.condition) / indicatorFactor;
 
+        // Mission details are fetched when the ship is opened. Until then, only the title is known.
+        const mission = missions[ship.missionId];
         let missionDetails;
-        if (ship.mission !== null) {
+        if (ship.missionId !== null && mission) {
             missionDetails = (
                 <div>
-                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Title: {ship.mission.title}</p>
-                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Objective: {ship.mission.objective}</p>
-                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Coordinates (X / Y / Z): {ship.mission.centerX} / {ship.mission.centerY} / {ship.mission.centerZ}</p>
-                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Area Radius: {ship.mission.radius}</p>
-                    {ship.mission.description.length > 0 ? (
+                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Title: {mission.title}</p>
+                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Objective: {mission.objective}</p>
+                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Coordinates (X / Y / Z): {mission.centerX} / {mission.centerY} / {mission.centerZ}</p>
+                    <p style={{marginBottom: 0, textAlign: "left"}}>Mission Area Radius: {mission.radius}</p>
+                    {mission.description.length > 0 ? (
                         <>
                             <p style={{marginBottom: 0, textAlign: "left"}}>Mission Description:</p>
                             <br/>
-                            <p style={{marginBottom: 0, textAlign: "left"}}>{ship.mission.description}</p>
+                            <p style={{marginBottom: 0, textAlign: "left"}}>{mission.description}</p>
                         </>
                     ) : (<></>)}
                     
                 </div>
             );
+        } else if (ship.missionId !== null) {
+            missionDetails = (<p style={{textAlign: "left", margin: "0px"}}>Mission Title: {ship.missionTitle}</p>);
         } else {
             missionDetails = (<p style={{textAlign: "left", margin: "0px"}} className="text-muted">Unassigned</p>);
         }
 
         return <AccordionItem key={ship.id}>
-            <AccordionHeader className={ship.mission !== null && ship.status === "READY" ? "ship-header-assigned" : ""} targetId={ship.id.toString()}>
+            <AccordionHeader className={ship.missionId !== null && ship.status === "READY" ? "ship-header-assigned" : ""} targetId={ship.id.toString()}>
                 <p style={{margin: 0, width: 26 + "%"}}>{ship.name}</p>
-                <p style={{margin: 0, width: 15 + "%"}}>{ship.status}</p>
+                <p style={{margin: 0, width: 15 + "%"}}>{ship.status}{ship.queuePosition ? " (" + ship.queuePosition + ")" : ""}</p>
                 <p style={{margin: 0, width: 8 + "%", whiteSpace: "nowrap", overflow: "hidden"}}>{ship.condition} / {ship.peakCondition}</p>
                 <div style={{margin: 0, width: conditionIndicatorWidth + "%", height: 12 + "px", backgroundColor: "green"}}></div>
                 <div style={{margin: 0, width: peakConditionIndicatorWidth + "%", height: 12 + "px", backgroundColor: "red"}}></div>
@@ -364,13 +395,13 @@ function MissionControl() {
                             <div style={{minWidth: "275px"}}>
                                 <p style={{margin: 0, textAlign: "left"}}>{ship.name}</p>
                                 <p style={{margin: 0, textAlign: "left"}}>ID: {ship.id}</p>
-                                <p style={{margin: 0, textAlign: "left"}}>Current Status: {ship.status}</p>
+                                <p style={{margin: 0, textAlign: "left"}}>Current Status: {ship.status}{ship.queuePosition ? " (" + ship.queuePosition + ")" : ""}</p>
                                 <p style={{margin: 0, textAlign: "left"}}>Current Condition: {ship.condition} / {ship.peakCondition}</p>
                             </div>
                             <p style={{margin: 0, width: "100%", minWidth: "200px", textAlign: "left"}}>{ship.description}</p>
                             <ButtonGroup vertical style={{minWidth: "150px"}}>
                                 <Button size="sm" color="primary" tag={Link} to={"/mission-control/" + ship.id} {...optsM}>Assign Mission</Button>
-                                {ship.mission !== null ? (
+                                {ship.missionId !== null ? (
                                     <>
                                         <Button size="sm" color="warning" onClick={() => unassign(ship)} {...optsM}>Unassign Mission</Button>
                                     </>
@@ -21,9 +21,9 @@ function MissionLog() {
                 <h4>Active mission-specific Logs</h4>
                 <LogPagination urlPrefix={"/space/events"} />
                 <h4>Past ship-specific Logs</h4>
-                <LogPagination urlPrefix={"/logs"} />
+                <LogPagination urlPrefix={"/logs"} cursorPaging />
                 <h4>Past mission-specific Logs</h4>
-                <LogPagination urlPrefix={"/events"} />
+                <LogPagination urlPrefix={"/events"} cursorPaging />
             </Container>
             <AppFooter/>
         </div>
@@ -14,7 +14,7 @@ function ShipList() {
      * Updates the component with ship entities that are fetched from the application.
      */
     async function refresh() {
-        fetch('/ships')
+        fetch('/ships/summaries')
             .then(response => {
                 if (!response.ok) {
                     return Promise.reject(response);
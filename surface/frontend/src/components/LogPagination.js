@@ -7,19 +7,43 @@ import { Table, Pagination, PaginationItem, PaginationLink } from 'reactstrap';
  * They must have the properties "timestamp" and "description".
  * @param {*} limit Determines how many data entries are in a page. Defaults to 10,
  * which is used on the back-end.
+ * @param {*} countUrl Optional url that responds with the total number of data entries.
+ * If not provided, every data entry is fetched from urlPrefix in order to count them.
+ * Not used with cursor paging.
+ * @param {*} cursorPaging Determines whether pages are fetched with the cursor of the previous
+ * page (X-Next-Cursor header) instead of page numbers. Page numbers only reach so deep on the
+ * back-end, so its own listings use cursors. Pages are then discovered one at a time.
  * @returns LogPagination component.
  */
-function LogPagination({ urlPrefix, limit = 10 }) {
+function LogPagination({ urlPrefix, limit = 10, countUrl = null, cursorPaging = false }) {
 
     const INDEX_COUNT = 5;
 
     /**
-     * Fetches up to a fixed number of mission events from the application and updates the component with them.
-     * The fixed number is based on the value defined in the back-end.
+     * Fetches a page of data entries from the application and updates the component with them.
+     * With cursor paging, the cursor of the following page is recorded as well.
      */
     async function fetchData() {
-        const fetchedData = await (await fetch(urlPrefix + "?page=" + page.current)).json();
-        setData(fetchedData);
+        let url = urlPrefix + "?page=" + page.current;
+        if (cursorPaging) {
+            const cursor = cursors.current[page.current];
+            url = urlPrefix + "?limit=" + limit + (cursor ? "&cursor=" + encodeURIComponent(cursor) : "");
+        }
+        const response = await fetch(url);
+        if (!response.ok) {
+            return;
+        }
+        setData(await response.json());
+
+        if (cursorPaging) {
+            const nextCursor = response.headers.get("X-Next-Cursor");
+            if (nextCursor !== null) {
+                cursors.current[page.current + 1] = nextCursor;
+            } else {
+                cursors.current.splice(page.current + 1);
+            }
+            setPageCount(cursors.current.length);
+        }
     }
 
     /**
@@ -27,8 +51,16 @@ function LogPagination({ urlPrefix, limit = 10 }) {
      * for the mission event pagination component.
      */
     async function getDataCount() {
-        const fetchedData = await (await fetch(urlPrefix)).json();
-        const newPageCount = Math.ceil(fetchedData.length / limit);
+        if (cursorPaging) {
+            return;
+        }
+        let count;
+        if (countUrl !== null) {
+            count = await (await fetch(countUrl)).json();
+        } else {
+            count = (await (await fetch(urlPrefix)).json()).length;
+        }
+        const newPageCount = Math.ceil(count / limit);
         if (newPageCount !== pageCount) {
             setPageCount(newPageCount);
         }
@@ -77,6 +109,7 @@ function LogPagination({ urlPrefix, limit = 10 }) {
     const [pageCount, setPageCount] = useState(0);
     const initialized = useRef(false);
     const page = useRef(0);
+    const cursors = useRef([null]);
 
     useEffect(() => {
         if (!initialized.current) {
@@ -0,0 +1,205 @@
+package org.tt.field;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.tt.field.utils.Compression;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Decompresses gzip-compressed request bodies, such as inbound ships that the space module
+ * sends back. Requests in other encodings than gzip are refused with 415, so that the sender
+ * may send them again uncompressed. A body is decompressed in full before the request is
+ * passed on, up to MAX_BODY_SIZE bytes: larger bodies are refused with 413, so that a small
+ * compressed request cannot make the surface module inflate an arbitrary amount of data.
+ *
+ * @author terratenff
+ */
+@Component
+public class CompressedRequestFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressedRequestFilter.class);
+
+    /**
+     * Upper limit for the size of a decompressed request body (bytes).
+     */
+    private static final int MAX_BODY_SIZE = PropertyUtils.getInteger("org.tt.field.CompressedRequestFilter.MAX_BODY_SIZE", 16777216);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader("Content-Encoding");
+        if (encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!Compression.isGzip(encoding)) {
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported content encoding: " + encoding);
+            return;
+        }
+
+        byte[] body;
+        try {
+            body = Compression.gunzip(request.getInputStream(), MAX_BODY_SIZE);
+        } catch (IOException e) {
+            logger.error("Compressed request body could not be read: " + e.getMessage());
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        if (body == null) {
+            logger.warn("Compressed request body to " + request.getRequestURI() + " exceeds " + MAX_BODY_SIZE + " bytes.");
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        filterChain.doFilter(new DecompressedRequest(request, body), response);
+    }
+
+    /**
+     * Request whose body has been decompressed.
+     */
+    private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final byte[] decompressed;
+        private final ServletInputStream body;
+
+        private DecompressedRequest(HttpServletRequest request, byte[] decompressed) {
+            super(request);
+            this.decompressed = decompressed;
+            ByteArrayInputStream input = new ByteArrayInputStream(decompressed);
+            this.body = new ServletInputStream() {
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+
+                    // The compressed body has been read already. The listener is registered on
+                    // the original stream, so that the container still calls it on its own
+                    // threads, and it is told about the decompressed body once it is called.
+
+                    ServletInputStream original;
+                    try {
+                        original = request.getInputStream();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    ServletInputStream decompressedStream = this;
+                    original.setReadListener(new ReadListener() {
+
+                        private boolean allDataRead = false;
+
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            deliver();
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            deliver();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            readListener.onError(t);
+                        }
+
+                        private void deliver() throws IOException {
+                            if (allDataRead) {
+                                return;
+                            }
+                            if (!decompressedStream.isFinished()) {
+                                readListener.onDataAvailable();
+                            }
+                            if (decompressedStream.isFinished()) {
+                                allDataRead = true;
+                                readListener.onAllDataRead();
+                            }
+                        }
+                    });
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String characterEncoding = getCharacterEncoding();
+            Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(body, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return decompressed.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return decompressed.length;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (name.equalsIgnoreCase("Content-Encoding")) {
+                return null;
+            }
+            if (name.equalsIgnoreCase("Content-Length")) {
+                return String.valueOf(decompressed.length);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (name.equalsIgnoreCase("Content-Encoding")) {
+                return Collections.emptyEnumeration();
+            }
+            if (name.equalsIgnoreCase("Content-Length")) {
+                return Collections.enumeration(List.of(String.valueOf(decompressed.length)));
+            }
+            return super.getHeaders(name);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.tt.field.controllers.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.tt.field.utils.Configuration;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * API controller class for inspecting and reloading the configuration snapshot. Property
+ * values are not exposed, since they include credentials.
+ *
+ * @author terratenff
+ */
+@RestController
+@RequestMapping("/config")
+public class ConfigurationController {
+
+    /**
+     * @return Version, load time and sources of the current configuration snapshot.
+     */
+    @GetMapping
+    public Map<String, Object> getConfiguration() {
+        return describe(PropertyUtils.getConfiguration());
+    }
+
+    /**
+     * Reloads the configuration. Simulator timings and the space module URL take effect
+     * right away. Other properties require a restart.
+     * @return Version, load time and sources of the new configuration snapshot.
+     */
+    @PostMapping("/reload")
+    public Map<String, Object> reloadConfiguration() {
+        return describe(PropertyUtils.reload());
+    }
+
+    private static Map<String, Object> describe(Configuration configuration) {
+        Map<String, Object> description = new LinkedHashMap<String, Object>();
+        description.put("version", configuration.getVersion());
+        description.put("loadedAt", configuration.getLoadedAt());
+        description.put("properties", configuration.size());
+        description.put("sources", configuration.getSources());
+        return description;
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.tt.field.core.EntityValidation;
 import org.tt.field.domain.Event;
 import org.tt.field.repository.EventRepository;
+import org.tt.field.utils.Pagination;
 
 /**
  * API controller class for the handling of event entities.
@@ -37,25 +38,46 @@ public class EventController {
     }
 
     /**
-     * Getter for event entities.
-     * @param pageStr Optional page number. If provided, limited set of events are returned (examples:
-     * 0 = 1-10, 1 = 11-20, 2 = 21-30). If not provided, all events are returned.
-     * @return Either all events, or 10 events in a paginated manner. In the event of a parsing error,
-     * all events are returned.
+     * Getter for event entities, most recent first, a page at a time (see Pagination).
+     * @param cursorStr Optional cursor from the X-Next-Cursor header of the previous page. If
+     * not provided, the first page is returned.
+     * @param pageStr Optional page number, for offset pagination instead (examples: 0 = 1-10,
+     * 1 = 11-20, 2 = 21-30). Pages deeper than Pagination.MAX_OFFSET are refused.
+     * @param limitStr Optional page size. Defaults to 10.
+     * @return Up to <limit> events, and the cursor of the next page if there may be more.
+     * (badRequest if a parameter is invalid)
      */
     @GetMapping
-    public List<Event> getEvents(@RequestParam(name = "page", required = false) String pageStr) {
-        if (pageStr == null) {
-            return eventRepository.findAll();
-        } else {
+    public ResponseEntity<List<Event>> getEvents(
+        @RequestParam(name = "cursor", required = false) String cursorStr,
+        @RequestParam(name = "page", required = false) String pageStr,
+        @RequestParam(name = "limit", required = false) String limitStr) {
             try {
-                final int limit = 10;
-                final int page = Integer.parseInt(pageStr);
-                return eventRepository.findEvents(limit, limit * page);
-            } catch (NumberFormatException e) {
-                return List.of();
+                final int limit = Pagination.parseLimit(limitStr);
+                if (pageStr != null) {
+                    final int offset = Pagination.offset(Integer.parseInt(pageStr), limit);
+                    return ResponseEntity.ok(eventRepository.findEvents(limit, offset));
+                }
+                List<Event> events;
+                if (cursorStr == null) {
+                    events = eventRepository.findFirstEvents(limit);
+                } else {
+                    Pagination.Cursor cursor = Pagination.decode(cursorStr, true);
+                    events = eventRepository.findEventsBefore(cursor.getTimestamp(), cursor.getId(), limit);
+                }
+                return Pagination.page(events, limit, event -> Pagination.after(event.getTimestamp(), event.getId()));
+            } catch (IllegalArgumentException e) {
+                logger.error("Events could not be listed: " + e.getMessage());
+                return ResponseEntity.badRequest().build();
             }
-        }
+    }
+
+    /**
+     * @return Number of event entities in the database.
+     */
+    @GetMapping("/count")
+    public Long getEventCount() {
+        return eventRepository.count();
     }
 
     /**
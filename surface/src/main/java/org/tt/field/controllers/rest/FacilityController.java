@@ -0,0 +1,92 @@
+package org.tt.field.controllers.rest;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.tt.field.core.Drydock;
+import org.tt.field.core.LaunchPad;
+import org.tt.field.core.LaunchSite;
+import org.tt.field.core.RepairBay;
+
+/**
+ * API controller class for inspecting and configuring the simulated facilities
+ * (launch site and dry dock).
+ *
+ * @author terratenff
+ */
+@RestController
+@RequestMapping("/facilities")
+public class FacilityController {
+
+    private static Logger logger = LoggerFactory.getLogger(FacilityController.class);
+
+    public FacilityController() {}
+
+    /**
+     * @return Every launch pad of the launch site, along with what it is doing. Pads that
+     * are closing are included until the ship they hold has left.
+     */
+    @GetMapping("/launch-site/pads")
+    public List<LaunchPad> getLaunchPads() {
+        return LaunchSite.getInstance().getPads();
+    }
+
+    /**
+     * Changes the number of launch pads at the launch site.
+     * @param countStr New number of launch pads.
+     * @return Launch pads that are open after the change. (badRequest is returned if the
+     * count is invalid)
+     */
+    @PutMapping("/launch-site/pads")
+    public ResponseEntity<List<LaunchPad>> setLaunchPadCount(@RequestParam(name = "count") String countStr) {
+        try {
+            LaunchSite.getInstance().setPadCount(Integer.parseInt(countStr));
+        } catch (IllegalArgumentException e) {
+            logger.error("Launch pad count was not changed: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(LaunchSite.getInstance().getPads());
+    }
+
+    /**
+     * @return Every repair bay of the dry dock, along with what it is doing. Bays that are
+     * closing are included until the ship they hold has been repaired.
+     */
+    @GetMapping("/drydock/bays")
+    public List<RepairBay> getRepairBays() {
+        return Drydock.getInstance().getBays();
+    }
+
+    /**
+     * Changes the number of repair bays at the dry dock.
+     * @param countStr New number of repair bays.
+     * @return Repair bays that are open after the change. (badRequest is returned if the
+     * count is invalid)
+     */
+    @PutMapping("/drydock/bays")
+    public ResponseEntity<List<RepairBay>> setRepairBayCount(@RequestParam(name = "count") String countStr) {
+        try {
+            Drydock.getInstance().setBayCount(Integer.parseInt(countStr));
+        } catch (IllegalArgumentException e) {
+            logger.error("Repair bay count was not changed: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Drydock.getInstance().getBays());
+    }
+
+    /**
+     * @return Predicted completion time of repairs for every ship in a repair bay (position 0),
+     * followed by every ship in the repair queue in queue order.
+     */
+    @GetMapping("/drydock/estimates")
+    public List<Drydock.Estimate> getRepairEstimates() {
+        return Drydock.getInstance().getEstimates();
+    }
+}
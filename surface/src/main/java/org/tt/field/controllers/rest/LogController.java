@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.tt.field.core.EntityValidation;
 import org.tt.field.domain.Log;
 import org.tt.field.repository.LogRepository;
+import org.tt.field.utils.Pagination;
 
 /**
  * API controller class for the handling of log entities.
@@ -37,25 +38,46 @@ public class LogController {
     }
 
     /**
-     * Getter for log entities.
-     * @param pageStr Optional page number. If provided, limited set of logs are returned (examples:
-     * 0 = 1-10, 1 = 11-20, 2 = 21-30). If not provided, all logs are returned.
-     * @return Either all logs, or 10 logs in a paginated manner. In the event of a parsing error,
-     * all logs are returned.
+     * Getter for log entities, most recent first, a page at a time (see Pagination).
+     * @param cursorStr Optional cursor from the X-Next-Cursor header of the previous page. If
+     * not provided, the first page is returned.
+     * @param pageStr Optional page number, for offset pagination instead (examples: 0 = 1-10,
+     * 1 = 11-20, 2 = 21-30). Pages deeper than Pagination.MAX_OFFSET are refused.
+     * @param limitStr Optional page size. Defaults to 10.
+     * @return Up to <limit> logs, and the cursor of the next page if there may be more.
+     * (badRequest if a parameter is invalid)
      */
     @GetMapping
-    public List<Log> getLogs(@RequestParam(name = "page", required = false) String pageStr) {
-        if (pageStr == null) {
-            return logRepository.findAll();
-        } else {
+    public ResponseEntity<List<Log>> getLogs(
+        @RequestParam(name = "cursor", required = false) String cursorStr,
+        @RequestParam(name = "page", required = false) String pageStr,
+        @RequestParam(name = "limit", required = false) String limitStr) {
             try {
-                final int limit = 10;
-                final int page = Integer.parseInt(pageStr);
-                return logRepository.findLogs(limit, limit * page);
-            } catch (NumberFormatException e) {
-                return List.of();
+                final int limit = Pagination.parseLimit(limitStr);
+                if (pageStr != null) {
+                    final int offset = Pagination.offset(Integer.parseInt(pageStr), limit);
+                    return ResponseEntity.ok(logRepository.findLogs(limit, offset));
+                }
+                List<Log> logs;
+                if (cursorStr == null) {
+                    logs = logRepository.findFirstLogs(limit);
+                } else {
+                    Pagination.Cursor cursor = Pagination.decode(cursorStr, true);
+                    logs = logRepository.findLogsBefore(cursor.getTimestamp(), cursor.getId(), limit);
+                }
+                return Pagination.page(logs, limit, log -> Pagination.after(log.getTimestamp(), log.getId()));
+            } catch (IllegalArgumentException e) {
+                logger.error("Logs could not be listed: " + e.getMessage());
+                return ResponseEntity.badRequest().build();
             }
-        }
+    }
+
+    /**
+     * @return Number of log entities in the database.
+     */
+    @GetMapping("/count")
+    public Long getLogCount() {
+        return logRepository.count();
     }
 
     /**
@@ -9,6 +9,7 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,12 +18,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.tt.field.core.EntityValidation;
 import org.tt.field.domain.Event;
 import org.tt.field.domain.Mission;
 import org.tt.field.repository.EventRepository;
 import org.tt.field.repository.MissionRepository;
+import org.tt.field.utils.Pagination;
 
 /**
  * API controller class for the handling of mission entities.
@@ -43,11 +46,26 @@ public class MissionController {
     }
     
     /**
-     * @return Every mission entity.
+     * Getter for mission entities, most recently added first, a page at a time (see Pagination).
+     * @param cursorStr Optional cursor from the X-Next-Cursor header of the previous page. If
+     * not provided, the first page is returned.
+     * @param limitStr Optional page size. Defaults to 10.
+     * @return Up to <limit> missions, and the cursor of the next page if there may be more.
+     * (badRequest if a parameter is invalid)
      */
     @GetMapping
-    public List<Mission> getMissions() {
-        return missionRepository.findAll();
+    public ResponseEntity<List<Mission>> getMissions(
+        @RequestParam(name = "cursor", required = false) String cursorStr,
+        @RequestParam(name = "limit", required = false) String limitStr) {
+            try {
+                final int limit = Pagination.parseLimit(limitStr);
+                final long before = cursorStr != null ? Pagination.decode(cursorStr, false).getId() : Long.MAX_VALUE;
+                List<Mission> missions = missionRepository.findMissionsBefore(before, PageRequest.of(0, limit));
+                return Pagination.page(missions, limit, mission -> Pagination.after(mission.getId()));
+            } catch (IllegalArgumentException e) {
+                logger.error("Missions could not be listed: " + e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
     }
 
     /**
@@ -111,6 +129,7 @@ public class MissionController {
         currentMission.setCurrentDestination(mission.getCurrentDestination());
         currentMission.setDepartureTime(mission.getDepartureTime());
         currentMission.setArrivalTime(mission.getArrivalTime());
+        currentMission.setPriority(mission.getPriority());
         currentMission = missionRepository.save(mission);
 
         return ResponseEntity.ok(currentMission);
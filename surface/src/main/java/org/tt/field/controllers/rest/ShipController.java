@@ -1,5 +1,7 @@
 package org.tt.field.controllers.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.sql.Timestamp;
@@ -8,11 +10,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Sort;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,14 +31,21 @@ import org.springframework.web.bind.annotation.RestController;
 import org.tt.field.core.Drydock;
 import org.tt.field.core.EntityValidation;
 import org.tt.field.core.LaunchSite;
+import org.tt.field.core.TransitRegistry;
 import org.tt.field.core.TransitShip;
+import org.tt.field.core.WriteBehindBuffer;
+import org.tt.field.core.journal.JournalRecord;
+import org.tt.field.core.journal.SimulationJournal;
 import org.tt.field.domain.Event;
 import org.tt.field.domain.Log;
 import org.tt.field.domain.Mission;
 import org.tt.field.domain.Ship;
+import org.tt.field.domain.ShipSummary;
 import org.tt.field.repository.LogRepository;
 import org.tt.field.repository.MissionRepository;
 import org.tt.field.repository.ShipRepository;
+import org.tt.field.utils.Pagination;
+import org.tt.field.utils.SpaceJsonReader;
 
 /**
  * API controller class for the handling of ship entities.
@@ -69,8 +81,12 @@ public class ShipController {
         this.missionRepository = missionRepository;
         this.logRepository = logRepository;
 
+        WriteBehindBuffer.getInstance().initialize(ships -> {
+            return this.shipRepository.saveAll(ships);
+        });
+
         saveShipToRepository = ship -> {
-            return this.shipRepository.save(ship);
+            return WriteBehindBuffer.getInstance().save(ship);
         };
 
         saveMissionToRepository = mission -> {
@@ -83,11 +99,196 @@ public class ShipController {
     }
 
     /**
-     * @return Every ship entity.
+     * Restores the simulator state that was recorded in the simulation journal before the
+     * application was last shut down: queued ships are queued again, and ships in transit
+     * continue from where they were. Ships that are not found in the journal keep the status
+     * that the initialization script has given them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverSimulatorState() {
+        SimulationJournal journal = SimulationJournal.getInstance();
+        List<JournalRecord> records = journal.takeRecoveredRecords();
+        if (records.isEmpty()) {
+            return;
+        }
+
+        LaunchSite.getInstance().initialize(saveShipToRepository, saveMissionToRepository, saveLogToRepository);
+        Drydock.getInstance().initialize(saveShipToRepository, saveLogToRepository);
+
+        int recoveredShips = 0;
+        for (JournalRecord record : records) {
+            Ship ship = shipRepository.findWithLogsById(record.getShipId()).orElse(null);
+            if (ship == null || (record.getKind() != JournalRecord.Kind.REPAIR && ship.getMission() == null)) {
+                logger.warn("Ship with ID " + record.getShipId() + " could not be recovered.");
+                journal.append(JournalRecord.removed(record.getShipId()));
+                continue;
+            }
+
+            switch (record.getKind()) {
+                case LAUNCH:
+                    LaunchSite.getInstance().addToQueue(ship);
+                    break;
+                case REPAIR:
+                    Drydock.getInstance().addToQueue(ship);
+                    break;
+                case TRANSIT:
+                    TransitShip.Phase phase = TransitShip.Phase.values()[record.getPhase()];
+                    ship.setStatus(phase == TransitShip.Phase.ENTERING_SPACE ? "OUTBOUND" : phase.name());
+                    ship = shipRepository.save(ship);
+                    new TransitShip(ship, saveShipToRepository, saveMissionToRepository).resume(record);
+                    break;
+                default:
+                    continue;
+            }
+            recoveredShips++;
+        }
+        logger.info(recoveredShips + " ships were recovered from the simulation journal.");
+    }
+
+    /**
+     * Finds a ship entity. Changes that simulators have not yet written to the
+     * repository are written first, so that the ship entity is up to date.
+     * @param id Ship ID.
+     * @return Ship entity, if it exists.
+     */
+    private Optional<Ship> findShip(Long id) {
+        WriteBehindBuffer.getInstance().flush(id);
+        return shipRepository.findWithLogsById(id);
+    }
+
+    /**
+     * Fills in the queue positions of ships that are waiting at the launch site or the dry dock.
+     * @param ships Ship entities.
+     * @return The same ship entities.
+     */
+    private <T extends Collection<Ship>> T withQueuePositions(T ships) {
+        for (Ship ship : ships) {
+            withQueuePosition(ship);
+        }
+        return ships;
+    }
+
+    /**
+     * Fills in the queue position of a ship that is waiting at the launch site or the dry dock.
+     * @param ship Ship entity.
+     * @return The same ship entity.
+     */
+    private Ship withQueuePosition(Ship ship) {
+        ship.setQueuePosition(getQueuePosition(ship.getId(), ship.getStatus()));
+        return ship;
+    }
+
+    /**
+     * Fills in the queue positions of summarized ships that are waiting at the launch site or
+     * the dry dock.
+     * @param summaries Ship summaries.
+     * @return The same ship summaries.
+     */
+    private List<ShipSummary> withSummaryQueuePositions(List<ShipSummary> summaries) {
+        for (ShipSummary summary : summaries) {
+            summary.setQueuePosition(getQueuePosition(summary.getId(), summary.getStatus()));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param id Ship ID.
+     * @param status Ship status.
+     * @return Position of the ship in the queue of the launch site or the dry dock, or null
+     * if it is not queued.
+     */
+    private Integer getQueuePosition(Long id, String status) {
+        int position = -1;
+        if ("AWAITING_TAKEOFF".equals(status)) {
+            position = LaunchSite.getInstance().getShipNumber(id);
+        } else if ("AWAITING_REPAIRS".equals(status)) {
+            position = Drydock.getInstance().getShipNumber(id);
+        }
+        return position > 0 ? position : null;
+    }
+
+    /**
+     * Getter for ship entities, most recently added first, a page at a time (see Pagination).
+     * Use getShipSummaries for listings: this loads the logs and past missions of every ship.
+     * @param cursorStr Optional cursor from the X-Next-Cursor header of the previous page. If
+     * not provided, the first page is returned.
+     * @param limitStr Optional page size. Defaults to 10.
+     * @return Up to <limit> ships, and the cursor of the next page if there may be more.
+     * (badRequest if a parameter is invalid)
      */
     @GetMapping
-    public List<Ship> getShips() {
-        return shipRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
+    public ResponseEntity<List<Ship>> getShips(
+        @RequestParam(name = "cursor", required = false) String cursorStr,
+        @RequestParam(name = "limit", required = false) String limitStr) {
+            try {
+                final int limit = Pagination.parseLimit(limitStr);
+                final long before = cursorStr != null ? Pagination.decode(cursorStr, false).getId() : Long.MAX_VALUE;
+                List<Ship> ships = shipRepository.findShipsBefore(before, PageRequest.of(0, limit));
+                return Pagination.page(withQueuePositions(ships), limit, ship -> Pagination.after(ship.getId()));
+            } catch (IllegalArgumentException e) {
+                logger.error("Ships could not be listed: " + e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+    }
+
+    /**
+     * Getter for ship summaries. Collections of the ships are not loaded. Summaries are
+     * returned a page at a time, most recently added first (see Pagination), if either
+     * parameter is provided. Otherwise the summary of every ship is returned.
+     * @param cursorStr Optional cursor from the X-Next-Cursor header of the previous page.
+     * @param limitStr Optional page size. Defaults to 10.
+     * @return Ship summaries, and the cursor of the next page if there may be more.
+     * (badRequest if a parameter is invalid)
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<List<ShipSummary>> getShipSummaries(
+        @RequestParam(name = "cursor", required = false) String cursorStr,
+        @RequestParam(name = "limit", required = false) String limitStr) {
+            if (cursorStr == null && limitStr == null) {
+                return ResponseEntity.ok(withSummaryQueuePositions(shipRepository.findSummaries()));
+            }
+            try {
+                final int limit = Pagination.parseLimit(limitStr);
+                final long before = cursorStr != null ? Pagination.decode(cursorStr, false).getId() : Long.MAX_VALUE;
+                List<ShipSummary> summaries = shipRepository.findSummariesBefore(before, PageRequest.of(0, limit));
+                return Pagination.page(withSummaryQueuePositions(summaries), limit, summary -> Pagination.after(summary.getId()));
+            } catch (IllegalArgumentException e) {
+                logger.error("Ship summaries could not be listed: " + e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+    }
+
+    /**
+     * Get summaries of most recently added ships by name.
+     * @param limitStr How many ship summaries are returned at most.
+     * @param query What must ship name contain in order to be fetched.
+     * @return Up to <limit> ship summaries that contain <query> in their names.
+     */
+    @GetMapping("/summaries/recent")
+    public List<ShipSummary> getRecentShipSummaries(
+        @RequestParam(name = "limit", defaultValue = "25") String limitStr,
+        @RequestParam(name = "query", defaultValue = "") String query) {
+            try {
+                final int limit = Integer.parseInt(limitStr);
+                if (limit <= 0) {
+                    return List.of();
+                }
+                if (query.isEmpty()) {
+                    return withSummaryQueuePositions(shipRepository.findRecentSummaries(PageRequest.of(0, limit)));
+                } else {
+                    return withSummaryQueuePositions(shipRepository.findRecentSummariesByName(query, PageRequest.of(0, limit)));
+                }
+            } catch (NumberFormatException e) {
+                return List.of();
+            }
+    }
+
+    /**
+     * @return Summary of every ship that has an assigned mission.
+     */
+    @GetMapping("/summaries/assigned")
+    public List<ShipSummary> getAssignedShipSummaries() {
+        return withSummaryQueuePositions(shipRepository.findAssignedSummaries());
     }
 
     /**
@@ -99,7 +300,8 @@ public class ShipController {
     }
 
     /**
-     * Get most recently added ships by name.
+     * Get most recently added ships by name. Use getRecentShipSummaries for listings: this
+     * loads the logs and past missions of every ship.
      * @param limitStr How many ships are returned at most.
      * @param query What must ship name contain in order to be fetched.
      * @return Up to <limit> ships that contain <query> in their names.
@@ -111,9 +313,9 @@ public class ShipController {
             try {
                 final int limit = Integer.parseInt(limitStr);
                 if (query.isEmpty()) {
-                    return new ArrayList<Ship>(shipRepository.findRecentShips(limit));
+                    return withQueuePositions(new ArrayList<Ship>(shipRepository.findRecentShips(limit)));
                 } else {
-                    return new ArrayList<Ship>(shipRepository.findRecentShipsByName(limit, query));
+                    return withQueuePositions(new ArrayList<Ship>(shipRepository.findRecentShipsByName(limit, query)));
                 }
             } catch (NumberFormatException e) {
                 return List.of();
@@ -121,20 +323,49 @@ public class ShipController {
     }
 
     /**
+     * Use getAssignedShipSummaries for listings: this loads the logs and past missions of
+     * every assigned ship.
      * @return Every ship entity that has an assigned mission.
      */
     @GetMapping("/assigned")
     public List<Ship> getAssignedShips() {
-        return new ArrayList<Ship>(shipRepository.findAllAssignedShips());
+        return withQueuePositions(new ArrayList<Ship>(shipRepository.findAllAssignedShips()));
+    }
+
+    /**
+     * Lists the ships that are currently in transit.
+     * @param phase Optional transit phase (OUTBOUND, ENTERING_SPACE, INBOUND or LANDING).
+     * @return IDs of ships in transit, grouped by their transit phase.
+     */
+    @GetMapping("/in-transit")
+    public ResponseEntity<Map<TransitShip.Phase, List<Long>>> getShipsInTransit(
+        @RequestParam(name = "phase", required = false) String phase) {
+            Map<TransitShip.Phase, List<Long>> shipIds = TransitRegistry.getInstance().getShipIdsByPhase();
+            if (phase == null) {
+                return ResponseEntity.ok(shipIds);
+            }
+            try {
+                TransitShip.Phase targetPhase = TransitShip.Phase.valueOf(phase.toUpperCase());
+                return ResponseEntity.ok(Map.of(targetPhase, shipIds.getOrDefault(targetPhase, List.of())));
+            } catch (IllegalArgumentException e) {
+                logger.error("Unknown transit phase: " + phase);
+                return ResponseEntity.badRequest().build();
+            }
     }
 
     /**
      * @param id Ship ID.
-     * @return Ship with specified ID.
+     * @return Ship with specified ID. If the ship is in transit, its current condition is
+     * computed for the response. If it is queued, its queue position is included.
      */
     @GetMapping("/{id}")
     public Ship getShip(@PathVariable Long id) {
-        return shipRepository.findById(id).orElseThrow(RuntimeException::new);
+        Ship ship = findShip(id).orElseThrow(RuntimeException::new);
+        TransitShip transitShip = TransitRegistry.getInstance().get(id);
+        if (transitShip != null) {
+            ship.setCondition(transitShip.getCondition());
+        }
+        return withQueuePosition(ship);
     }
 
     /**
@@ -171,7 +402,7 @@ public class ShipController {
             return ResponseEntity.badRequest().build();
         }
 
-        Ship currentShip = shipRepository.findById(id).orElse(null);
+        Ship currentShip = findShip(id).orElse(null);
         if (currentShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -200,7 +431,7 @@ public class ShipController {
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteShip(@PathVariable Long id) {
 
-        Ship ship = shipRepository.findById(id).orElse(null);
+        Ship ship = findShip(id).orElse(null);
         if (ship == null) {
             logger.warn("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -221,7 +452,7 @@ public class ShipController {
     @PostMapping("/{id}/logs")
     public ResponseEntity<String> createLogForShip(@PathVariable Long id, @RequestBody Map<String, String> logData) {
         
-        Ship ship = shipRepository.findById(id).orElse(null);
+        Ship ship = findShip(id).orElse(null);
         if (ship == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -264,7 +495,7 @@ public class ShipController {
         }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -297,11 +528,11 @@ public class ShipController {
         }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
-        } else if (targetShip.getStatus().startsWith("AWAITING_REPAIRS")) {
+        } else if (targetShip.getStatus().equals("AWAITING_REPAIRS")) {
              Drydock.getInstance().removeFromQueue(targetShip);
             logger.info("Ship with ID " + id + " has been removed from the dry dock repair queue.");
         } else {
@@ -325,7 +556,7 @@ public class ShipController {
         }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -361,7 +592,7 @@ public class ShipController {
         }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -388,6 +619,7 @@ public class ShipController {
             LaunchSite.getInstance().initialize(saveShipToRepository, saveMissionToRepository, saveLogToRepository);
         }
 
+        WriteBehindBuffer.getInstance().flush();
         Collection<Ship> assignedShips = shipRepository.findAllAssignedShips();
         if (assignedShips == null || assignedShips.size() == 0) {
             logger.warn("No assigned ships could be found.");
@@ -403,15 +635,26 @@ public class ShipController {
     }
 
     /**
-     * Receives an inbound ship entity. It is instructed to land.
-     * @param ship Inbound ship. It must exist and be active on surface module.
-     * @return ok (notFound if ship is not found, and badRequest if ship is not active)
+     * Receives an inbound ship entity. It is instructed to land. The ship is decoded from the
+     * request body as it is read (see SpaceJsonReader), since it may carry a lot of logs.
+     * @param body Inbound ship in the format of the space module. It must exist and be active
+     * on surface module.
+     * @return ok (notFound if ship is not found, and badRequest if ship is not active or
+     * cannot be read)
      */
     @PostMapping("/receive-ship")
-    public ResponseEntity<String> receiveShip(@RequestBody Ship ship) {
+    public ResponseEntity<String> receiveShip(InputStream body) {
+
+        Ship ship;
+        try {
+            ship = SpaceJsonReader.readShip(body);
+        } catch (IOException e) {
+            logger.error("Inbound ship could not be read: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
@@ -480,14 +723,16 @@ public class ShipController {
         }
 
         Long id = ship.getId();
-        Ship targetShip = shipRepository.findById(id).orElse(null);
+        Ship targetShip = findShip(id).orElse(null);
         if (targetShip == null) {
             logger.error("Ship with ID " + id + " not found.");
             return ResponseEntity.notFound().build();
         } else if (targetShip.getMission() != null) {
-            TransitShip.abortMission(targetShip);
-            LaunchSite.getInstance().abortMission(targetShip);
-            logger.info("Ship with ID " + id + " has been instructed to abort its mission.");
+            if (LaunchSite.getInstance().abortMission(targetShip)) {
+                logger.info("Ship with ID " + id + " has been instructed to abort its mission.");
+            } else {
+                logger.warn("Ship with ID " + id + " is past the point where its mission can be aborted.");
+            }
         } else {
             logger.warn("Ship with ID " + id + " does not have a mission to abort.");
         }
@@ -506,16 +751,20 @@ public class ShipController {
             LaunchSite.getInstance().initialize(saveShipToRepository, saveMissionToRepository, saveLogToRepository);
         }
 
+        WriteBehindBuffer.getInstance().flush();
         Collection<Ship> assignedShips = shipRepository.findAllAssignedShips();
         if (assignedShips == null || assignedShips.size() == 0) {
             logger.warn("No assigned ships could be found.");
             return ResponseEntity.noContent().build();
         }
+
+        int abortedTransits = TransitRegistry.getInstance().abortAll();
+        logger.info(abortedTransits + " ships in transit have been instructed to abort their missions.");
+
         for (Ship ship : assignedShips) {
-            TransitShip.abortMission(ship);
             LaunchSite.getInstance().abortMission(ship);
-            logger.info("Ship with ID " + ship.getId() + " has been instructed to abort its mission.");
         }
+        logger.info(assignedShips.size() + " assigned ships have been instructed to abort their missions.");
 
         return ResponseEntity.ok().build();
     }
@@ -1,23 +1,41 @@
 package org.tt.field.controllers.rest;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.tt.field.domain.Event;
-import org.tt.field.domain.Log;
-import org.tt.field.domain.Mission;
-import org.tt.field.domain.Ship;
-import org.tt.field.utils.HttpUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.tt.field.core.TransitShip;
+import org.tt.field.utils.CircuitBreaker;
+import org.tt.field.utils.PropertyUtils;
+import org.tt.field.utils.SingleFlight;
+import org.tt.field.utils.SpaceCache;
+import org.tt.field.utils.SpaceClient;
+import org.tt.field.utils.SpaceJsonReader;
 
 /**
  * API controller class for fetching entities that are situated in
- * the "space" module.
+ * the "space" module. Entities are streamed: each entity is passed on to the caller as soon
+ * as it has been read from the space module, so memory use does not depend on the number
+ * of entities. Responses are cached for a short while by SpaceCache, and stale responses
+ * are revalidated in the background.
  * 
  * @author terratenff
  */
@@ -25,73 +43,249 @@ import org.tt.field.utils.HttpUtils;
 @RequestMapping("/space")
 public class SpaceController {
     
-    public SpaceController() {}
+    private static Logger logger = LoggerFactory.getLogger(SpaceController.class);
+
+    /**
+     * Reads entities from a space module response and writes each of them to the generator.
+     */
+    @FunctionalInterface
+    private interface EntityReader {
+        void read(InputStream stream, JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * How long concurrent misses of the same path wait for the response of the first one
+     * (milliseconds). After that, they request the space module themselves.
+     */
+    private static final int SHARE_TIMEOUT = PropertyUtils.getInteger("org.tt.field.controllers.rest.SpaceController.SHARE_TIMEOUT", 30000);
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Space module requests in flight, by path. Completes with the response, or with null if
+     * it could not be shared. Requests that are not completed within SHARE_TIMEOUT, such as
+     * those whose streamed response is never written, are no longer shared.
+     */
+    private final SingleFlight<String, byte[]> responses = new SingleFlight<String, byte[]>();
+
+    /**
+     * Writes single entities. The response is not flushed after every entity, so that
+     * small entities are sent in chunks of reasonable size.
+     */
+    private final ObjectWriter entityWriter;
+
+    public SpaceController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.entityWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @return State of the link to the space module: its circuit breaker, and how ships have
+     * retried entering space.
+     */
+    @GetMapping("/link")
+    public Map<String, Object> getLinkStatus() {
+        CircuitBreaker breaker = SpaceClient.getInstance().getCircuitBreaker();
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("state", breaker.getState());
+        status.put("consecutiveFailures", breaker.getConsecutiveFailures());
+        status.put("successes", breaker.getSuccessCount());
+        status.put("failures", breaker.getFailureCount());
+        status.put("refusals", breaker.getRefusalCount());
+        status.put("timesOpened", breaker.getOpenCount());
+        status.put("parkedShips", breaker.getParkedCount());
+        status.put("retries", TransitShip.getRetryCount());
+        status.put("parks", TransitShip.getParkCount());
+        status.put("returns", TransitShip.getReturnCount());
+        return status;
+    }
+
+    /**
+     * @return State of the cache of space module responses.
+     */
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStatus() {
+        SpaceCache cache = SpaceCache.getInstance();
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("entries", cache.getSize());
+        status.put("bytes", cache.getTotalBytes());
+        status.put("hits", cache.getHitCount());
+        status.put("staleHits", cache.getStaleHitCount());
+        status.put("misses", cache.getMissCount());
+        status.put("revalidations", cache.getRevalidationCount());
+        status.put("notModified", cache.getNotModifiedCount());
+        status.put("evictions", cache.getEvictionCount());
+        status.put("uncacheable", cache.getUncacheableCount());
+        status.put("upstreamRequests", responses.getCallCount());
+        status.put("sharedRequests", responses.getSharedCount());
+        return status;
+    }
 
     @GetMapping("/ships")
-    public List<Ship> getShips(@RequestParam(name = "page", defaultValue = "all") String page) {
-        return createShipsFromJson(HttpUtils.getShips("?page=" + page));
+    public ResponseEntity<StreamingResponseBody> getShips(@RequestParam(name = "page", defaultValue = "all") String page) {
+        return stream("/ships?page=" + page, (stream, generator) ->
+            SpaceJsonReader.readShips(stream, ship -> write(generator, ship)));
     }
 
     @GetMapping("/logs")
-    public List<Log> getLogs(@RequestParam(name = "page", defaultValue = "all") String page) {
-        return createLogsFromJson(HttpUtils.getLogs("?page=" + page));
+    public ResponseEntity<StreamingResponseBody> getLogs(@RequestParam(name = "page", defaultValue = "all") String page) {
+        return stream("/ships/logs?page=" + page, (stream, generator) ->
+            SpaceJsonReader.readLogs(stream, log -> write(generator, log)));
     }
 
     @GetMapping("/missions")
-    public List<Mission> getMissions(@RequestParam(name = "page", defaultValue = "all") String page) {
-        return createMissionsFromJson(HttpUtils.getMissions("?page=" + page));
+    public ResponseEntity<StreamingResponseBody> getMissions(@RequestParam(name = "page", defaultValue = "all") String page) {
+        return stream("/ships/missions?page=" + page, (stream, generator) ->
+            SpaceJsonReader.readMissions(stream, mission -> write(generator, mission)));
     }
 
     @GetMapping("/events")
-    public List<Event> getEvents(@RequestParam(name = "page", defaultValue = "all") String page) {
-        return createEventsFromJson(HttpUtils.getEvents("?page=" + page));
+    public ResponseEntity<StreamingResponseBody> getEvents(@RequestParam(name = "page", defaultValue = "all") String page) {
+        return stream("/ships/mission-events?page=" + page, (stream, generator) ->
+            SpaceJsonReader.readEvents(stream, event -> write(generator, event)));
     }
 
-    private List<Ship> createShipsFromJson(JSONObject shipsJson) {
-        List<Ship> ships = new ArrayList<>();
-        if (shipsJson != null) {
-            for (String shipId : shipsJson.keySet()) {
-                JSONObject shipJson = shipsJson.getJSONObject(shipId);
-                Ship ship = new Ship(shipJson);
-                ships.add(ship);
-            }
+    /**
+     * Fetches entities from the space module and streams them to the caller as a JSON array.
+     * If the space module cannot be reached, the array is empty. If the response of the
+     * space module breaks off, the array ends with the last entity that was read in full.
+     * Complete responses are cached, so that they can be served without the space module.
+     * @param path URL subpage and parameters of the space module.
+     * @param reader Reads the entities of the response.
+     * @return Streamed response.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(String path, EntityReader reader) {
+        SpaceCache cache = SpaceCache.getInstance();
+        byte[] cached = cache.lookup(path, () -> revalidate(path, reader));
+        if (cached != null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(output -> output.write(cached));
         }
-        return ships;
+
+        // Concurrent misses of the same path share one space module request: the first one
+        // streams the response, and the others are given a copy of it once it is complete.
+        // The response of the first one is only fetched once its body is written, which may
+        // never happen if its caller goes away, so the others only wait for SHARE_TIMEOUT.
+
+        boolean[] leading = {false};
+        CompletableFuture<byte[]> content = new CompletableFuture<byte[]>();
+        CompletableFuture<byte[]> shared = responses.execute(path, () -> {
+            leading[0] = true;
+            return content;
+        }, SHARE_TIMEOUT);
+
+        StreamingResponseBody body;
+        if (leading[0]) {
+            body = output -> {
+                byte[] copy = null;
+                try {
+                    copy = fetch(path, reader, output);
+                } finally {
+                    content.complete(copy);
+                }
+            };
+        } else {
+            body = output -> {
+                byte[] copy = shared.exceptionally(e -> null).join();
+                if (copy != null) {
+                    output.write(copy);
+                } else {
+                    fetch(path, reader, output);
+                }
+            };
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
-    private List<Log> createLogsFromJson(JSONArray logsJson) {
-        List<Log> logs = new ArrayList<>();
-        if (logsJson != null) {
-            for (int i = 0; i < logsJson.length(); i++) {
-                JSONObject logJson = logsJson.getJSONObject(i);
-                Log log = new Log(logJson);
-                logs.add(log);
-            }
+    /**
+     * Fetches entities from the space module, writes them as a JSON array and caches the
+     * array.
+     * @param path URL subpage and parameters of the space module.
+     * @param reader Reads the entities of the response.
+     * @param output Stream that the array is written to.
+     * @return The array, or null if it was not cached because the response of the space
+     * module was incomplete or too large.
+     * @throws IOException The array could not be written.
+     */
+    private byte[] fetch(String path, EntityReader reader, OutputStream output) throws IOException {
+        HttpResponse<InputStream> response = SpaceClient.getInstance().fetchStream(path, null).join();
+        if (response == null) {
+            write(output, null, reader);
+            return null;
         }
-        return logs;
+        SpaceCache.Capture capture = SpaceCache.getInstance().capture(path,
+            response.headers().firstValue("ETag").orElse(null), output);
+        return write(capture, response.body(), reader) ? capture.commit() : null;
     }
 
-    private List<Mission> createMissionsFromJson(JSONArray missionsJson) {
-        List<Mission> missions = new ArrayList<>();
-        if (missionsJson != null) {
-            for (int i = 0; i < missionsJson.length(); i++) {
-                JSONObject missionJson = missionsJson.getJSONObject(i);
-                Mission mission = new Mission(missionJson);
-                missions.add(mission);
+    /**
+     * Revalidates a cached response with the space module. Unchanged responses are not
+     * transferred again.
+     * @param path URL subpage and parameters of the space module.
+     * @param reader Reads the entities of the response.
+     */
+    private void revalidate(String path, EntityReader reader) {
+        SpaceCache cache = SpaceCache.getInstance();
+        HttpResponse<InputStream> response = SpaceClient.getInstance().fetchStream(path, cache.getEtag(path)).join();
+        if (response == null) {
+            cache.markRevalidationFailed(path);
+            return;
+        }
+        if (response.statusCode() == 304) {
+            try (InputStream input = response.body()) {
+                cache.markValidated(path);
+            } catch (IOException e) {
+                logger.debug("Response stream could not be closed: " + e.getMessage());
+            }
+            return;
+        }
+
+        SpaceCache.Capture capture = cache.capture(path, response.headers().firstValue("ETag").orElse(null),
+            OutputStream.nullOutputStream());
+        try {
+            if (!write(capture, response.body(), reader) || capture.commit() == null) {
+                cache.markRevalidationFailed(path);
             }
+        } catch (IOException e) {
+            cache.markRevalidationFailed(path);
         }
-        return missions;
     }
 
-    private List<Event> createEventsFromJson(JSONArray eventsJson) {
-        List<Event> events = new ArrayList<>();
-        if (eventsJson != null) {
-            for (int i = 0; i < eventsJson.length(); i++) {
-                JSONObject eventJson = eventsJson.getJSONObject(i);
-                Event event = new Event(eventJson);
-                events.add(event);
+    /**
+     * Writes the entities of a space module response as a JSON array.
+     * @param output Stream that the array is written to.
+     * @param stream Space module response, or null if there is none. It is closed.
+     * @param reader Reads the entities of the response.
+     * @return true, if the response was read in full.
+     * @throws IOException The array could not be written.
+     */
+    private boolean write(OutputStream output, InputStream stream, EntityReader reader) throws IOException {
+        boolean complete = false;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            if (stream != null) {
+                try (InputStream input = stream) {
+                    reader.read(input, generator);
+                    complete = true;
+                } catch (IOException | UncheckedIOException e) {
+                    logger.error("Entities could not be read from space module: " + e.getMessage());
+                }
             }
+            generator.writeEndArray();
+        }
+        return complete;
+    }
+
+    /**
+     * Writes an entity to the response.
+     * @param generator Generator of the response.
+     * @param entity Entity.
+     */
+    private void write(JsonGenerator generator, Object entity) {
+        try {
+            entityWriter.writeValue(generator, entity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return events;
     }
 }
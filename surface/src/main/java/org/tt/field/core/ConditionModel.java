@@ -0,0 +1,113 @@
+package org.tt.field.core;
+
+import org.tt.field.domain.Ship;
+
+/**
+ * Deterministic model of ship condition degradation. Instead of rolling a random number at
+ * fixed intervals, the outcome of every degradation check is derived from a seed and the
+ * index of the check. Condition at any point of time can therefore be computed on demand,
+ * and the same seed always produces the same degradation.
+ *
+ * @author terratenff
+ */
+public class ConditionModel {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Creates a seed for a ship entity from its ID and the ID of its current mission.
+     * @param ship Ship entity.
+     * @return Seed for the condition model.
+     */
+    public static long seedFor(Ship ship) {
+        long missionId = ship.getMission() != null && ship.getMission().getId() != null ? ship.getMission().getId() : 0;
+        return mix(ship.getId() * GOLDEN_GAMMA ^ mix(missionId));
+    }
+
+    private final long seed;
+    private final long startTime;
+    private final int startCondition;
+
+    /**
+     * The probability of condition degrading by one during a check.
+     */
+    private final double rate;
+
+    /**
+     * How much time passes between checks (milliseconds).
+     */
+    private final long frequency;
+
+    /**
+     * Number of checks that have been evaluated so far, and how many of them degraded the
+     * condition. Checks are evaluated incrementally, since time only moves forward.
+     */
+    private long evaluatedChecks = 0;
+    private int degradedChecks = 0;
+
+    /**
+     * Condition model constructor.
+     * @param seed Seed that determines the outcome of each check.
+     * @param startTime Point of time (epoch milliseconds) at which degradation starts.
+     * @param startCondition Condition at start time.
+     * @param rate Probability of condition degrading by one during a check.
+     * @param frequency How much time passes between checks (milliseconds).
+     */
+    public ConditionModel(long seed, long startTime, int startCondition, double rate, long frequency) {
+        this.seed = seed;
+        this.startTime = startTime;
+        this.startCondition = startCondition;
+        this.rate = rate;
+        this.frequency = Math.max(1, frequency);
+    }
+
+    /**
+     * Computes condition at specified point of time.
+     * @param time Point of time (epoch milliseconds).
+     * @return Condition. Never below zero.
+     */
+    public synchronized int conditionAt(long time) {
+        long checks = Math.max(0, time - startTime) / frequency;
+        if (checks < evaluatedChecks) {
+            evaluatedChecks = 0;
+            degradedChecks = 0;
+        }
+        while (evaluatedChecks < checks && degradedChecks < startCondition) {
+            if (roll(evaluatedChecks) < rate) {
+                degradedChecks++;
+            }
+            evaluatedChecks++;
+        }
+        return Math.max(0, startCondition - degradedChecks);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public int getStartCondition() {
+        return startCondition;
+    }
+
+    /**
+     * @param index Index of the check.
+     * @return Uniformly distributed value in [0, 1) for the check.
+     */
+    private double roll(long index) {
+        return (mix(seed + (index + 1) * GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Spreads the bits of a value (SplitMix64 finalizer).
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
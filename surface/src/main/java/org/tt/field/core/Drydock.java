@@ -1,20 +1,30 @@
 package org.tt.field.core;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Random;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.core.executor.SimulatorExecutors;
+import org.tt.field.core.journal.JournalRecord;
+import org.tt.field.core.journal.SimulationJournal;
 import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
 import org.tt.field.domain.Ship;
+import org.tt.field.utils.PropertyUtils;
 
 /**
- * Simulator class that acts as the dry dock for ship repairs. Only one ship can
- * be repaired at a time.
- * 
+ * Simulator class that acts as the dry dock for ship repairs. The dry dock has a number of
+ * repair bays that take ships from a shared queue, so several ships can be repaired at the
+ * same time. The order in which queued ships are repaired is determined by a scheduling policy.
+ *
  * @author terratenff
  */
 public class Drydock {
@@ -23,26 +33,133 @@ public class Drydock {
     private static Drydock instance;
 
     /**
-     * How long the dry dock stands by, waiting for a ship (milliseconds).
+     * Number of repair bays that are opened when the dry dock is initialized.
+     * Each bay occupies one simulator thread.
      */
-    private static final int IDLE_TIME = 10000;
+    private static final int BAY_COUNT = PropertyUtils.getInteger("org.tt.field.core.Drydock.BAY_COUNT", 1);
 
     /**
-     * How long it takes to slightly repair a ship (milliseconds).
+     * Name of the scheduling policy: "fifo", "shortest" or "weighted". See Policy.
      */
-    private static final int REPAIR_TIME = 5000;
+    private static final String POLICY = PropertyUtils.getString("org.tt.field.core.Drydock.POLICY", "fifo");
 
     /**
-     * The probability of a log entry being generated for a ship.
-     * This is checked once a second.
+     * Upper limit for the number of repair bays.
      */
-    private static final double LOG_RATE = 0.001;
-    
+    public static final int MAX_BAY_COUNT = 64;
+
+    /**
+     * Scheduling policies of the repair queue.
+     */
+    public enum Policy {
+
+        /**
+         * Ships are repaired in the order in which they arrived.
+         */
+        FIFO(ShipQueue.FIFO),
+
+        /**
+         * Ships that need the least repairs are repaired first.
+         */
+        SHORTEST(ship -> ship.getPeakCondition() - ship.getCondition()),
+
+        /**
+         * Ships are ordered by the amount of repairs they need, divided by their urgency.
+         * Ships have no mission while they are repaired, so the urgency is the priority of
+         * the mission they flew last. Ships that have never flown have the lowest urgency.
+         */
+        WEIGHTED(ship -> {
+            long repairs = ship.getPeakCondition() - ship.getCondition();
+            return repairs * 1000 / (getLastPriority(ship) + 1);
+        });
+
+        private final ToLongFunction<Ship> rankFunction;
+
+        private Policy(ToLongFunction<Ship> rankFunction) {
+            this.rankFunction = rankFunction;
+        }
+
+        /**
+         * @param ship Ship entity.
+         * @return Priority of the mission that the ship has, or else of the mission it flew
+         * last. 0 if there is neither, and never less than 0.
+         */
+        private static int getLastPriority(Ship ship) {
+            Mission mission = ship.getMission();
+            if (mission == null && ship.getPastMissions() != null) {
+                for (Mission pastMission : ship.getPastMissions()) {
+                    if (pastMission.getId() != null && (mission == null || pastMission.getId() > mission.getId())) {
+                        mission = pastMission;
+                    }
+                }
+            }
+            return mission != null ? Math.max(0, mission.getPriority()) : 0;
+        }
+
+        /**
+         * @return Function that ranks queued ships. Ships of lower rank are repaired first.
+         */
+        ToLongFunction<Ship> getRankFunction() {
+            return rankFunction;
+        }
+
+        /**
+         * Finds a policy by name. Unknown names fall back to FIFO.
+         * @param name Name of the policy.
+         * @return Policy.
+         */
+        public static Policy of(String name) {
+            for (Policy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            logger.warn("Unknown drydock policy '" + name + "'. Falling back to FIFO.");
+            return FIFO;
+        }
+    }
+
+    /**
+     * Predicted completion of repairs for a ship in the dry dock.
+     */
+    public static class Estimate {
+
+        private final long shipId;
+        private final int position;
+        private final long completionTime;
+
+        private Estimate(long shipId, int position, long completionTime) {
+            this.shipId = shipId;
+            this.position = position;
+            this.completionTime = completionTime;
+        }
+
+        public long getShipId() {
+            return shipId;
+        }
+
+        /**
+         * @return Position of the ship in the repair queue. Indexing starts at 1. 0 if the
+         * ship is already being repaired in a bay.
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return Predicted point of time (epoch milliseconds, simulation clock) at which
+         * the repairs of the ship are finished. -1 if no repair bay is open.
+         */
+        public long getCompletionTime() {
+            return completionTime;
+        }
+    }
+
     /**
      * Getter for singleton instance.
      * @return Drydock. Note that it must be initialized separately.
      */
-    public static Drydock getInstance() {
+    public static synchronized Drydock getInstance() {
         if (instance == null) {
             instance = new Drydock();
         }
@@ -53,41 +170,40 @@ public class Drydock {
      * A function that is expected to save a ship entity to its repository.
      */
     private Function<Ship, Ship> saveShipToRepository;
-    
+
     /**
      * A function that is expected to save a ship entity's log entry to its repository.
      */
     private Function<Log, Log> saveLogToRepository;
-    
-    /**
-     * This thread object manages the dry dock.
-     */
-    private Thread drydockThread;
 
-    private Random random = new Random();
-    
+    private final Policy policy = Policy.of(POLICY);
+
     /**
      * Ship entity queue. Ships are added here to wait for their turn to be repaired.
      */
-    private Queue<Ship> repairQueue = new LinkedList<Ship>();
+    private final ShipQueue repairQueue = new ShipQueue(policy.getRankFunction());
 
     /**
-     * Ship entity that is currently being repaired.
+     * Repair bays that are open, and bays that are closing but still hold a ship. A bay
+     * removes itself once it has closed.
      */
-    private Ship targetShip;
+    private final List<RepairBay> bays = new CopyOnWriteArrayList<RepairBay>();
 
     /**
-     * Determines whether the dry dock has been intialized.
+     * Number of repair bays that should be open.
      */
-    private boolean initialized = false;
+    private int bayCount = Math.max(1, Math.min(MAX_BAY_COUNT, BAY_COUNT));
 
     /**
-     * Determines whether the repairs of current ship must be aborted.
+     * Determines whether the dry dock has been intialized.
      */
-    private boolean interruptionRequested = false;
+    private volatile boolean initialized = false;
+
+    private Drydock() {}
 
     /**
-     * Adds a ship entity to the queue and returns its number in line.
+     * Adds a ship entity to the queue and returns its number in line. The status of the ship
+     * is set to "AWAITING_REPAIRS" once. See getShipNumber for its number in line.
      * @param ship Ship that is to be added.
      * @return Integer that represents ship's queue number. Indexing starts at 1.
      * @throws IllegalStateException The dry dock must be initialized first.
@@ -96,14 +212,16 @@ public class Drydock {
         if (!initialized) {
             throw new IllegalStateException("Drydock has not been initialized.");
         }
-        ship.setStatus("AWAITING_REPAIRS (" + (repairQueue.size() + 1) + ")");
-        repairQueue.add(saveShipToRepository.apply(ship));
+        ship.setStatus("AWAITING_REPAIRS");
+        int position = repairQueue.add(saveShipToRepository.apply(ship));
+        SimulationJournal.getInstance().append(JournalRecord.repair(ship.getId()));
         logger.info("A ship was added to queue. Queue size: " + repairQueue.size());
-        return repairQueue.size();
+        return position;
     }
 
     /**
-     * Removes a ship entity from the repair queue.
+     * Removes a ship entity from the repair queue. Ships whose repairs have already started
+     * are not affected.
      * @param ship Ship that is to be removed from the queue.
      * @throws IllegalStateException The dry dock must be initialized first.
      */
@@ -111,57 +229,75 @@ public class Drydock {
         if (!initialized) {
             throw new IllegalStateException("Drydock has not been initialized.");
         }
-        boolean shipRemoved = repairQueue.remove(ship);
-        if (!shipRemoved) {
-            if (targetShip != null && targetShip.equals(ship)) {
-                targetShip = null;
-                shipRemoved = true;
-            }
-        }
-        ship.setStatus("READY");
-        saveShipToRepository.apply(ship);
+        boolean shipRemoved = repairQueue.remove(ship.getId()) != null;
         if (shipRemoved) {
+            SimulationJournal.getInstance().append(JournalRecord.removed(ship.getId()));
+            ship.setStatus("READY");
+            saveShipToRepository.apply(ship);
             logger.info("A ship was removed from the queue. Queue size: " + repairQueue.size());
         } else {
             logger.info("Specified ship was not removed from the queue.");
         }
-        updateQueueShipStatus();
     }
 
     /**
      * Gets specified ship entity's queue number.
      * @param shipId ID of the ship entity.
-     * @return Queue number of the ship. Indexing starts at 1.
+     * @return Queue number of the ship. Indexing starts at 1. -1 if the ship is not in the queue.
      */
-    public int getShipNumber(int shipId) {
-        int i = 0;
+    public int getShipNumber(long shipId) {
+        return repairQueue.positionOf(shipId);
+    }
 
-        for (Ship ship : repairQueue) {
-            if (ship.getId() == shipId) return i + 1;
-            i++;
+    /**
+     * Predicts when the repairs of each ship in the dry dock are finished. Ships that are in
+     * a bay, including bays that are closing, come first. Queued ships are assigned, in queue
+     * order, to whichever open repair bay becomes free first.
+     * @return Estimates of ships in bays, followed by estimates of queued ships in queue order.
+     */
+    public List<Estimate> getEstimates() {
+        long now = SimulationClocks.getInstance().currentTimeMillis();
+        List<Estimate> estimates = new ArrayList<Estimate>();
+        PriorityQueue<Long> bayFreeTimes = new PriorityQueue<Long>();
+        for (RepairBay bay : bays) {
+            long freeTime = now + bay.getRemainingTime();
+            Long shipId = bay.getShipId();
+            if (shipId != null) {
+                estimates.add(new Estimate(shipId, 0, freeTime));
+            }
+            if (!bay.isClosing()) {
+                bayFreeTimes.add(freeTime);
+            }
         }
 
-        return -1;
+        List<Ship> ships = repairQueue.toList();
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            long completionTime = -1;
+            if (!bayFreeTimes.isEmpty()) {
+                completionTime = bayFreeTimes.poll() + getRepairDuration(ship);
+                bayFreeTimes.add(completionTime);
+            }
+            estimates.add(new Estimate(ship.getId(), i + 1, completionTime));
+        }
+        return estimates;
     }
 
     /**
-     * Initializes the dry dock.
+     * Initializes the dry dock and opens its repair bays.
      * @param callbackShip Function must save a ship entity to its repository.
      * @param callbackLog Function that must save a ship entity's log entry to its repository.
      */
-    public void initialize(Function<Ship, Ship> callbackShip, Function<Log, Log> callbackLog) {
+    public synchronized void initialize(Function<Ship, Ship> callbackShip, Function<Log, Log> callbackLog) {
         saveShipToRepository = callbackShip;
         saveLogToRepository = callbackLog;
-        logger.info("Launching drydock...");
-        drydockThread = new Thread(() -> {
-            try {
-                repairCore();
-            } catch (InterruptedException e) {
-                logger.error("Something went wrong with drydock thread: " + e.getMessage());
-            }
-        });
-        drydockThread.start();
+
+        if (initialized) {
+            return;
+        }
+        logger.info("Launching drydock with " + bayCount + " repair bays (" + policy + " scheduling)...");
         initialized = true;
+        updateBays();
     }
 
     /**
@@ -173,96 +309,150 @@ public class Drydock {
     }
 
     /**
-     * Interrupts repairs of the current ship.
+     * Interrupts every ongoing repair.
      */
     public void requestInterruption() {
-        interruptionRequested = true;
+        for (RepairBay bay : bays) {
+            bay.requestInterruption();
+        }
     }
 
     /**
-     * Core function of the dry dock.
-     * @throws InterruptedException
+     * @return Scheduling policy of the repair queue.
      */
-    private void repairCore() throws InterruptedException {
-        logger.info("Drydock is now open.");
-        while (true) {
-            Thread.sleep(IDLE_TIME);
-            if (targetShip == null) {
-
-                // No ship is being repaired.
-
-                targetShip = repairQueue.poll();
-                if (targetShip != null) {
-
-                    // First-in-line ship is selected to be repaired.
+    public Policy getPolicy() {
+        return policy;
+    }
 
-                    targetShip.setStatus("AWAITING_REPAIRS (Next)");
-                    targetShip = saveShipToRepository.apply(targetShip);
-                    updateQueueShipStatus();
-                }
-            } else if (targetShip.getStatus().startsWith("AWAITING_REPAIRS")) {
+    /**
+     * @return Repair bays that are currently open, and bays that are closing but still hold
+     * a ship.
+     */
+    public List<RepairBay> getBays() {
+        return new ArrayList<RepairBay>(bays);
+    }
 
-                // Target ship is waiting to be repaired.
+    /**
+     * @return Number of repair bays that should be open.
+     */
+    public synchronized int getBayCount() {
+        return bayCount;
+    }
 
-                targetShip.setStatus("REPAIR_IN_PROGRESS");
-                targetShip = saveShipToRepository.apply(targetShip);
-            } else {
+    /**
+     * Changes the number of repair bays. New bays are opened right away. Surplus bays
+     * finish repairing the ship they currently hold, if any, and close after that.
+     * @param count Number of repair bays. Must be between 1 and MAX_BAY_COUNT, and every new
+     * bay must get a simulator thread of its own.
+     * @throws IllegalArgumentException Bay count is out of bounds.
+     */
+    public synchronized void setBayCount(int count) throws IllegalArgumentException {
+        if (count < 1 || count > MAX_BAY_COUNT) {
+            throw new IllegalArgumentException("Bay count must be between 1 and " + MAX_BAY_COUNT + ".");
+        }
+        int availableThreads = SimulatorExecutors.getInstance().getAvailableThreads();
+        if (count - getOpenBays().size() > availableThreads) {
+            throw new IllegalArgumentException("Only " + availableThreads + " more repair bays can be opened, since every bay "
+                + "needs a simulator thread of its own (see org.tt.field.core.executor.POOL_SIZE).");
+        }
+        logger.info("Number of repair bays changed from " + bayCount + " to " + count + ".");
+        bayCount = count;
+        if (initialized) {
+            updateBays();
+        }
+    }
 
-                // The repairs of target ship begin.
+    /**
+     * Opens or closes repair bays until the number of open bays matches the bay count. A bay
+     * is only opened if a simulator thread is free for it. Otherwise the bay count is lowered
+     * to the number of open bays.
+     */
+    private void updateBays() {
+        List<RepairBay> openBays = getOpenBays();
+        while (openBays.size() > bayCount) {
+            openBays.remove(openBays.size() - 1).requestClose();
+        }
+        while (openBays.size() < bayCount) {
+            RepairBay bay = new RepairBay(getFreeBayNumber(), this);
+            bays.add(bay);
+            if (!SimulatorExecutors.getInstance().tryExecute(SimulationClocks.asWorker(bay::repairCore))) {
+                bays.remove(bay);
+                logger.warn("No simulator thread is free for another repair bay. " + openBays.size() + " repair bays are open.");
+                bayCount = openBays.size();
+                break;
+            }
+            openBays.add(bay);
+        }
+    }
 
-                logger.info("Drydock is now repairing ship with ID " + targetShip.getId() + ".");
-                while (!interruptionRequested && targetShip.getCondition() < targetShip.getPeakCondition()) {
-                    Thread.sleep(REPAIR_TIME);
+    /**
+     * @return Repair bays that have not been instructed to close, in order of opening.
+     */
+    private List<RepairBay> getOpenBays() {
+        List<RepairBay> openBays = new ArrayList<RepairBay>();
+        for (RepairBay bay : bays) {
+            if (!bay.isClosing()) {
+                openBays.add(bay);
+            }
+        }
+        return openBays;
+    }
 
-                    if (random.nextDouble() < LOG_RATE) {
-                        addLogToShip("dry_dock_flavor");
-                    }
+    /**
+     * @return Lowest bay number that no open or closing bay has.
+     */
+    private int getFreeBayNumber() {
+        Set<Integer> numbers = new HashSet<Integer>();
+        for (RepairBay bay : bays) {
+            numbers.add(bay.getNumber());
+        }
+        int number = 1;
+        while (numbers.contains(number)) {
+            number++;
+        }
+        return number;
+    }
 
-                    targetShip.setCondition(targetShip.getCondition() + 1);
-                    targetShip = saveShipToRepository.apply(targetShip);
-                }
+    /**
+     * @return Queue of ships that are waiting for a repair bay.
+     */
+    ShipQueue getQueue() {
+        return repairQueue;
+    }
 
-                // The repairs of target ship have been finished/interrupted.
+    /**
+     * @param ship Ship entity.
+     * @return How long it takes to fully repair the ship (milliseconds).
+     */
+    long getRepairDuration(Ship ship) {
+        return (long) Math.max(0, ship.getPeakCondition() - ship.getCondition()) * getRepairTime();
+    }
 
-                addLogToShip("dry_dock_finish_flavor");
+    /**
+     * @return How long it takes to slightly repair a ship (milliseconds). Read on every use,
+     * so that a configuration reload takes effect for the next repair step.
+     */
+    int getRepairTime() {
+        return PropertyUtils.getInteger("org.tt.field.core.Drydock.REPAIR_TIME", 5000);
+    }
 
-                logger.info("Drydock has finished repairing ship with ID " + targetShip.getId() + ".");
-                interruptionRequested = false;
-                targetShip.setStatus(targetShip.getCondition() > 0 ? "READY" : "BROKEN");
-                saveShipToRepository.apply(targetShip);
+    Ship saveShip(Ship ship) {
+        return saveShipToRepository.apply(ship);
+    }
 
-                // Target ship is no longer at the dry dock.
-                
-                targetShip = null;
-            }
-        }
+    Log saveLog(Log log) {
+        return saveLogToRepository.apply(log);
     }
 
     /**
-     * Updates the status values of every ship currently in the queue to "AWAITING_REPAIRS (i)",
-     * where i is a ship entity's queue number.
+     * Forgets a repair bay that has closed.
+     * @param bay Repair bay.
      */
-    private void updateQueueShipStatus() {
-        int i = 1;
-        for (Ship ship : repairQueue) {
-            ship.setStatus("AWAITING_REPAIRS (" + i + ")");
-            saveShipToRepository.apply(ship);
-            i++;
-        }
+    void bayClosed(RepairBay bay) {
+        bays.remove(bay);
     }
 
-    /**
-     * Adds a log entry for the ship that is currently being repaired.
-     * @param key A key for suitable log entries. See LogDistributor for the keys.
-     */
-    private void addLogToShip(String key) {
-        Log log = LogDistributor.getInstance().generateShipLog(targetShip, key);
-        log = saveLogToRepository.apply(log);
-        
-        List<Log> logs = targetShip.getLogs();
-        logs.add(log);
-        targetShip.setLogs(logs);
-
-        targetShip = saveShipToRepository.apply(targetShip);
+    void journalRemoval(Ship ship) {
+        SimulationJournal.getInstance().append(JournalRecord.removed(ship.getId()));
     }
 }
@@ -26,6 +26,8 @@ public class EntityValidation {
     private static final int MISSION_COORDINATE_MIN = -1000;
     private static final int MISSION_COORDINATE_MAX = 1000;
     private static final int MISSION_RADIUS_LIMIT = 1000;
+    private static final int MISSION_PRIORITY_MIN = 0;
+    private static final int MISSION_PRIORITY_MAX = 100;
 
     private static final int LOG_DESCRIPTION_LIMIT = 255;
     private static final int EVENT_DESCRIPTION_LIMIT = 255;
@@ -136,6 +138,9 @@ public class EntityValidation {
 
         boolean validDescription = mission.getDescription() == null || mission.getDescription().length() <= MISSION_DESCRIPTION_LIMIT;
 
+        boolean validPriority = mission.getPriority() >= MISSION_PRIORITY_MIN &&
+                                mission.getPriority() <= MISSION_PRIORITY_MAX;
+
         if (!validMissionObjective) {
             logger.error("Invalid mission objective: " + mission.getObjective());
             valid = false;
@@ -185,6 +190,13 @@ public class EntityValidation {
             valid = false;
         }
 
+        if (!validPriority) {
+            logger.error("Mission priority must be within range ["
+            + MISSION_PRIORITY_MIN + ", " + MISSION_PRIORITY_MAX
+            + "], but is " + mission.getPriority());
+            valid = false;
+        }
+
         return valid;
     }
 
@@ -0,0 +1,186 @@
+package org.tt.field.core;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.domain.Ship;
+import org.tt.field.utils.PropertyUtils;
+import org.tt.field.utils.SpaceClient;
+import org.tt.field.utils.SpaceJsonWriter;
+
+/**
+ * Collects ships that are about to enter space and hands them over to the space module in
+ * batches. The first ship of a batch opens a short window, and every ship that arrives
+ * within the window is sent in the same request. Each ship receives its own outcome, so
+ * transit ships handle accepted and rejected ships exactly as they would with single
+ * requests.
+ *
+ * If the space module does not accept batches, ships are sent one at a time instead.
+ *
+ * @author terratenff
+ */
+public class HandoffAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandoffAggregator.class);
+    private static HandoffAggregator instance;
+
+    /**
+     * Determines whether ships are sent in batches at all.
+     */
+    private static final boolean ENABLED = PropertyUtils.getBoolean("org.tt.field.core.HandoffAggregator.ENABLED", true);
+
+    /**
+     * How long a batch collects ships before it is sent (milliseconds).
+     */
+    private static final int WINDOW = PropertyUtils.getInteger("org.tt.field.core.HandoffAggregator.WINDOW", 50);
+
+    /**
+     * Maximum number of ships in a batch. A full batch is sent right away.
+     */
+    private static final int MAX_BATCH_SIZE = PropertyUtils.getInteger("org.tt.field.core.HandoffAggregator.MAX_BATCH_SIZE", 100);
+
+    /**
+     * Getter for singleton instance.
+     * @return HandoffAggregator.
+     */
+    public static synchronized HandoffAggregator getInstance() {
+        if (instance == null) {
+            instance = new HandoffAggregator();
+        }
+        return instance;
+    }
+
+    /**
+     * A ship that is waiting for its batch to be sent.
+     */
+    private static class Handoff {
+
+        private final long shipId;
+        private final byte[] json;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+        private Handoff(long shipId, byte[] json) {
+            this.shipId = shipId;
+            this.json = json;
+        }
+    }
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Batch that is currently collecting ships.
+     */
+    private List<Handoff> batch = new ArrayList<Handoff>();
+
+    /**
+     * Determines whether the space module accepts batches. Cleared once the space module
+     * has responded that it does not.
+     */
+    private volatile boolean batchesSupported = ENABLED;
+
+    private HandoffAggregator() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "space-handoff");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hands a ship over to the space module. The ship is serialized right away, so later
+     * changes to the ship entity are not included.
+     * @param ship Ship entity that is to enter space.
+     * @return Future that completes with true, if the space module accepted the ship.
+     * The future never completes exceptionally.
+     */
+    public CompletableFuture<Boolean> handOff(Ship ship) {
+        Handoff handoff = new Handoff(ship.getId(), SpaceJsonWriter.toBytes(ship));
+        if (!batchesSupported) {
+            sendSingle(handoff);
+            return handoff.result;
+        }
+
+        List<Handoff> fullBatch = null;
+        synchronized (this) {
+            batch.add(handoff);
+            if (batch.size() == 1) {
+                List<Handoff> openedBatch = batch;
+                scheduler.schedule(() -> sendIfCurrent(openedBatch), WINDOW, TimeUnit.MILLISECONDS);
+            }
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                fullBatch = batch;
+                batch = new ArrayList<Handoff>();
+            }
+        }
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return handoff.result;
+    }
+
+    /**
+     * Sends a batch once its window is over, unless it has already been sent for being full.
+     * @param openedBatch Batch whose window is over.
+     */
+    private void sendIfCurrent(List<Handoff> openedBatch) {
+        synchronized (this) {
+            if (batch != openedBatch) {
+                return;
+            }
+            batch = new ArrayList<Handoff>();
+        }
+        send(openedBatch);
+    }
+
+    /**
+     * Sends a batch of ships and delivers the outcome of each ship to its handoff.
+     * @param handoffs Batch of ships.
+     */
+    private void send(List<Handoff> handoffs) {
+        int length = handoffs.size() + 1;
+        for (Handoff handoff : handoffs) {
+            length += handoff.json.length;
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream(length);
+        json.write('[');
+        for (int i = 0; i < handoffs.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(handoffs.get(i).json);
+        }
+        json.write(']');
+
+        logger.debug("Sending a batch of " + handoffs.size() + " ships to space.");
+        SpaceClient.getInstance().sendShips(json.toByteArray()).whenComplete((results, e) -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof UnsupportedOperationException) {
+                logger.warn("Space module does not accept batches of ships. Ships are sent one at a time.");
+                batchesSupported = false;
+                for (Handoff handoff : handoffs) {
+                    sendSingle(handoff);
+                }
+                return;
+            }
+
+            // Ships that are missing from the results, for example because the space module
+            // could not be reached, were not accepted.
+
+            for (Handoff handoff : handoffs) {
+                handoff.result.complete(results != null && Boolean.TRUE.equals(results.get(handoff.shipId)));
+            }
+        });
+    }
+
+    private void sendSingle(Handoff handoff) {
+        SpaceClient.getInstance().sendShip(handoff.json).thenAccept(handoff.result::complete);
+    }
+}
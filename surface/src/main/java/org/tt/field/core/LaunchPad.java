@@ -0,0 +1,290 @@
+package org.tt.field.core;
+
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+/**
+ * A single launch pad of the launch site. Every pad takes ships from the shared launch
+ * queue and launches them one at a time, independently of the other pads.
+ *
+ * @author terratenff
+ */
+public class LaunchPad {
+
+    private static final Logger logger = LoggerFactory.getLogger(LaunchPad.class);
+
+    /**
+     * The probability of a log entry being generated for a ship.
+     * This is checked once a second.
+     */
+    private static final double LOG_RATE = 0.001;
+
+    /**
+     * What a launch pad is currently doing.
+     */
+    public enum State {
+        IDLE,
+        AWAITING_TAKEOFF,
+        TAKING_OFF,
+        ABORTING,
+        CLOSED
+    }
+
+    private final int number;
+    private final LaunchSite launchSite;
+    private final Random random = new Random();
+    private final Standby standby = new Standby();
+
+    /**
+     * Ship entity that is currently being launched.
+     */
+    private volatile Ship targetShip;
+
+    private volatile State state = State.IDLE;
+
+    /**
+     * Determines whether the launch of current ship must be aborted.
+     */
+    private volatile boolean interruptionRequested = false;
+
+    /**
+     * Determines whether the pad must close once it has no ship.
+     */
+    private volatile boolean closeRequested = false;
+
+    /**
+     * Launch pad constructor.
+     * @param number Number of the pad. Numbering starts at 1.
+     * @param launchSite Launch site that the pad belongs to.
+     */
+    LaunchPad(int number, LaunchSite launchSite) {
+        this.number = number;
+        this.launchSite = launchSite;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return true, if the pad has been instructed to close. It still launches the ship it
+     * holds, if any, but does not take new ones.
+     */
+    public boolean isClosing() {
+        return closeRequested;
+    }
+
+    /**
+     * @return ID of the ship that is currently on the pad, or null if the pad is empty.
+     */
+    public Long getShipId() {
+        Ship ship = targetShip;
+        return ship != null ? ship.getId() : null;
+    }
+
+    /**
+     * Interrupts the current ship launch. Nothing is done if the pad is empty or the launch
+     * has already been aborted.
+     */
+    public synchronized void requestInterruption() {
+        if (targetShip != null && state != State.ABORTING) {
+            interruptionRequested = true;
+            standby.wake();
+        }
+    }
+
+    /**
+     * Instructs the pad to close. A ship that is already on the pad is launched first.
+     */
+    void requestClose() {
+        closeRequested = true;
+        standby.wake();
+    }
+
+    /**
+     * Puts a ship on the pad. Called by the launch site, which takes the ship from the queue.
+     * @param ship Ship entity.
+     */
+    synchronized void assign(Ship ship) {
+        targetShip = ship;
+        state = State.AWAITING_TAKEOFF;
+    }
+
+    /**
+     * Core function of the launch pad. The pad waits for the next ship in the queue and
+     * launches it right away. Returns once the pad has been closed.
+     */
+    void launchCore() {
+        logger.info("Launch pad " + number + " is now open.");
+        try {
+            launchShips();
+        } finally {
+            state = State.CLOSED;
+            launchSite.padClosed(this);
+            logger.info("Launch pad " + number + " has been closed.");
+        }
+    }
+
+    private void launchShips() {
+        while (!closeRequested) {
+            if (!standby.awaitShip(launchSite.getQueue())) {
+                continue;
+            }
+
+            // First-in-line ship is selected to be launched. Another pad may have taken
+            // it already.
+
+            if (launchSite.assignNext(this) == null) {
+                continue;
+            }
+
+            if (interruptionRequested) {
+
+                // Target ship is waiting to be launched, but the launch is aborted.
+
+                logger.warn("Ship with ID " + targetShip.getId() + " has aborted its mission. It has returned to the shipyard.");
+
+                Mission mission = targetShip.getMission();
+                mission.setArrivalTime(SimulationClocks.getInstance().now());
+                launchSite.saveMission(mission);
+
+                targetShip.setStatus("READY");
+                targetShip.setMission(null);
+                launchSite.saveShip(targetShip);
+                launchSite.journalRemoval(targetShip);
+
+                // Target ship is no longer at the launch pad.
+
+                launchSite.release(this);
+                continue;
+            }
+
+            // The launch begins.
+
+            state = State.TAKING_OFF;
+            targetShip.setStatus("TAKING_OFF");
+            targetShip = launchSite.saveShip(targetShip);
+            logger.info("Ship with ID " + targetShip.getId() + " is taking off from launch pad " + number + ".");
+
+            for (int i = 0; i < launchSite.getLaunchTime() / 1000 && !interruptionRequested; i++) {
+                if (standby.sleep(1000) && random.nextDouble() < LOG_RATE) {
+                    addLogToShip("launch_site_flavor");
+                }
+            }
+
+            if (interruptionRequested) {
+
+                // Target ship is in the middle of taking off, but it is aborted.
+
+                state = State.ABORTING;
+                logger.warn("Ship with ID " + targetShip.getId() + " has aborted its mission. It is returning now.");
+                targetShip.setStatus("LANDING");
+                targetShip = launchSite.saveShip(targetShip);
+                landingDelay();
+
+                // Condition degradation may have taken place, so ship status must be
+                // updated accordingly.
+
+                String shipStatus;
+                if (targetShip.getCondition() == 0) {
+                    logger.info("Ship with ID " + targetShip.getId() + " has crashed.");
+                    shipStatus = "CRASHED";
+                } else if (targetShip.getCondition() < (targetShip.getPeakCondition() / 10)) {
+                    logger.info("Ship with ID " + targetShip.getId() + " has landed in a broken state.");
+                    shipStatus = "BROKEN";
+                } else {
+                    logger.info("Ship with ID " + targetShip.getId() + " has landed.");
+                    shipStatus = "READY";
+                }
+
+                Mission mission = targetShip.getMission();
+                mission.setArrivalTime(SimulationClocks.getInstance().now());
+                launchSite.saveMission(mission);
+
+                targetShip.setStatus(shipStatus);
+                targetShip.setMission(null);
+                launchSite.saveShip(targetShip);
+                launchSite.journalRemoval(targetShip);
+
+                // Target ship is no longer at the launch pad.
+
+                launchSite.release(this);
+                continue;
+            }
+
+            // Target ship has finished taking off.
+
+            Mission mission = targetShip.getMission();
+            mission.setDepartureTime(SimulationClocks.getInstance().now());
+            launchSite.saveMission(mission);
+
+            addLogToShip("launch_site_finish_flavor");
+
+            targetShip.setStatus("OUTBOUND");
+            targetShip = launchSite.saveShip(targetShip);
+
+            // Creating a transit ship for the target ship.
+
+            TransitShip transitShip = launchSite.createTransitShip(targetShip);
+            transitShip.toSpace();
+            transitShip.start();
+            logger.info("Ship with ID " + targetShip.getId() + " has finished taking off from launch pad " + number + ".");
+
+            // Target ship is no longer at the launch pad. An abort that arrived after the
+            // launch was finished is passed on to the transit ship.
+
+            if (launchSite.release(this)) {
+                transitShip.requestAbort();
+            }
+        }
+    }
+
+    /**
+     * Waits for an aborted ship to land. The wait is not cut short by wake-ups.
+     */
+    private void landingDelay() {
+        try {
+            SimulationClocks.getInstance().sleep(launchSite.getLaunchTime());
+        } catch (InterruptedException e) {
+            logger.warn("Launch pad " + number + " was interrupted while a ship was landing.");
+        }
+    }
+
+    /**
+     * Empties the launch pad. Called by the launch site.
+     * @return true, if an interruption was requested for the ship that was on the pad.
+     */
+    synchronized boolean release() {
+        boolean interrupted = interruptionRequested;
+        targetShip = null;
+        interruptionRequested = false;
+        state = State.IDLE;
+        return interrupted;
+    }
+
+    /**
+     * Adds a log entry for the ship that is currently being launched.
+     * @param key A key for suitable log entries. See LogDistributor for the keys.
+     */
+    private void addLogToShip(String key) {
+        Log log = LogDistributor.getInstance().generateShipLog(targetShip, key);
+        log = launchSite.saveLog(log);
+
+        List<Log> logs = targetShip.getLogs();
+        logs.add(log);
+        targetShip.setLogs(logs);
+
+        targetShip = launchSite.saveShip(targetShip);
+    }
+}
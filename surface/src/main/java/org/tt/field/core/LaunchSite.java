@@ -1,23 +1,27 @@
 package org.tt.field.core;
 
-import java.sql.Timestamp;
-import java.time.Instant;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.core.executor.SimulatorExecutors;
+import org.tt.field.core.journal.JournalRecord;
+import org.tt.field.core.journal.SimulationJournal;
 import org.tt.field.domain.Log;
 import org.tt.field.domain.Mission;
 import org.tt.field.domain.Ship;
 import org.tt.field.utils.PropertyUtils;
 
 /**
- * Simulator class that acts as the launch site for ship entities. Only one ship can
- * be launched at a time.
+ * Simulator class that acts as the launch site for ship entities. The launch site has a
+ * number of launch pads that take ships from a shared queue, so several ships can be
+ * launched at the same time. The number of pads can be changed while the site is running.
  * 
  * @author terratenff
  */
@@ -27,26 +31,21 @@ public class LaunchSite {
     private static LaunchSite instance;
     
     /**
-     * How long the launch site stands by, waiting for a ship (milliseconds).
+     * Number of launch pads that are opened when the launch site is initialized.
+     * Each pad occupies one simulator thread.
      */
-    private static final int IDLE_TIME = PropertyUtils.getInteger("org.tt.field.core.LaunchSite.IDLE_TIME", 10000);
+    private static final int PAD_COUNT = PropertyUtils.getInteger("org.tt.field.core.LaunchSite.PAD_COUNT", 1);
 
     /**
-     * How long it takes to launch a ship (milliseconds).
+     * Upper limit for the number of launch pads.
      */
-    private static final int LAUNCH_TIME = PropertyUtils.getInteger("org.tt.field.core.LaunchSite.LAUNCH_TIME", 15000);
-
-    /**
-     * The probability of a log entry being generated for a ship.
-     * This is checked once a second.
-     */
-    private static final double LOG_RATE = 0.001;
+    public static final int MAX_PAD_COUNT = 64;
     
     /**
      * Getter for singleton instance.
      * @return LaunchSite. Note that it must be initialized separately.
      */
-    public static LaunchSite getInstance() {
+    public static synchronized LaunchSite getInstance() {
         if (instance == null) {
             instance = new LaunchSite();
         }
@@ -69,58 +68,68 @@ public class LaunchSite {
     private Function<Log, Log> saveLogToRepository;
 
     /**
-     * This thread object manages the launch site.
+     * Ship entity queue. Ships are added here to wait for their turn to be launched.
+     * Ships of high priority missions are launched first.
      */
-    private Thread launchSiteThread;
-
-    private Random random = new Random();
+    private final ShipQueue launchQueue = new ShipQueue(ShipQueue.MISSION_PRIORITY);
 
     /**
-     * Ship entity queue. Ships are added here to wait for their turn to be launched.
+     * Launch pads that are open, and pads that are closing but still hold a ship. A pad
+     * removes itself once it has closed.
      */
-    private Queue<Ship> launchQueue = new LinkedList<Ship>();
+    private final List<LaunchPad> pads = new CopyOnWriteArrayList<LaunchPad>();
 
     /**
-     * Ship entity that is currently being launched.
+     * Lock under which ships move from the queue to a pad and leave a pad. Aborts look for
+     * a ship under the same lock, so that a ship is always found in the queue, on a pad or
+     * in transit.
      */
-    private Ship targetShip;
+    private final Object assignmentLock = new Object();
 
     /**
-     * Determines whether the launch site has been intialized.
+     * Number of launch pads that should be open.
      */
-    private boolean initialized = false;
+    private int padCount = Math.max(1, Math.min(MAX_PAD_COUNT, PAD_COUNT));
 
     /**
-     * Determines whether the launch of current ship must be aborted.
+     * Determines whether the launch site has been intialized.
      */
-    private boolean interruptionRequested = false;
+    private volatile boolean initialized = false;
+
+    private LaunchSite() {}
 
     /**
-     * Instructs specified ship to abort its mission. If it is being launched, it is
-     * requested to interrupt its launch. Otherwise the ship is removed from the queue
+     * Instructs specified ship to abort its mission. If it is queued, it is removed from the
+     * queue. If it is being launched, its launch pad is requested to interrupt the launch. If
+     * it has just left its pad, the transit ship is instructed to abort instead.
      * @param ship
+     * @return true, if the ship was found and instructed to abort. false, if the ship is
+     * neither waiting for a launch, being launched nor on its way to space.
      */
-    public void abortMission(Ship ship) {
-        if (targetShip != null && targetShip.getId() == ship.getId()) {
-            interruptionRequested = true;
-        } else {
-            for (Ship queueShip : launchQueue) {
-                if (queueShip.equals(ship)) {
-                    launchQueue.remove(queueShip);
-                    updateQueueShipStatus();
-
-                    ship.setStatus("READY");
-                    ship.setMission(null);
-                    saveShipToRepository.apply(ship);
-
-                    break;
+    public boolean abortMission(Ship ship) {
+        synchronized (assignmentLock) {
+            if (launchQueue.remove(ship.getId()) == null) {
+                for (LaunchPad pad : pads) {
+                    if (ship.getId().equals(pad.getShipId())) {
+                        pad.requestInterruption();
+                        return true;
+                    }
                 }
+                return TransitShip.abortMission(ship);
             }
         }
+
+        SimulationJournal.getInstance().append(JournalRecord.removed(ship.getId()));
+        ship.setStatus("READY");
+        ship.setMission(null);
+        saveShipToRepository.apply(ship);
+        return true;
     }
 
     /**
-     * Adds a ship entity to the queue and returns its number in line.
+     * Adds a ship entity to the queue and returns its number in line. The status of the ship
+     * is set to "AWAITING_TAKEOFF" once: its number in line is not stored, since it changes
+     * whenever the queue advances. See getShipNumber.
      * @param ship Ship that is to be added.
      * @return Integer that represents ship's queue number. Indexing starts at 1.
      * @throws IllegalStateException The launch site must be initialized first.
@@ -129,49 +138,39 @@ public class LaunchSite {
         if (!initialized) {
             throw new IllegalStateException("Launch site has not been initialized.");
         }
-        ship.setStatus("AWAITING_TAKEOFF (" + (launchQueue.size() + 1) + ")");
-        launchQueue.add(saveShipToRepository.apply(ship));
+        ship.setStatus("AWAITING_TAKEOFF");
+        int position = launchQueue.add(saveShipToRepository.apply(ship));
+        SimulationJournal.getInstance().append(JournalRecord.launch(ship.getId()));
         logger.info("A ship was added to queue. Queue size: " + launchQueue.size());
-        return launchQueue.size();
+        return position;
     }
 
     /**
      * Gets specified ship entity's queue number.
      * @param shipId ID of the ship entity.
-     * @return Queue number of the ship. Indexing starts at 1.
+     * @return Queue number of the ship. Indexing starts at 1. -1 if the ship is not in the queue.
      */
-    public int getShipNumber(int shipId) {
-        int i = 0;
-
-        for (Ship ship : launchQueue) {
-            if (ship.getId() == shipId) return i + 1;
-            i++;
-        }
-
-        return -1;
+    public int getShipNumber(long shipId) {
+        return launchQueue.positionOf(shipId);
     }
 
     /**
-     * Initializes the launch site.
+     * Initializes the launch site and opens its launch pads.
      * @param callbackShip Function must save a ship entity to its repository.
      * @param callbackMission Function that must save a ship entity's mission to its repository.
      * @param callbackLog Function that must save a ship entity's log entry to its repository.
      */
-    public void initialize(Function<Ship, Ship> callbackShip, Function<Mission, Mission> callbackMission, Function<Log, Log> callbackLog) {
+    public synchronized void initialize(Function<Ship, Ship> callbackShip, Function<Mission, Mission> callbackMission, Function<Log, Log> callbackLog) {
         saveShipToRepository = callbackShip;
         saveMissionToRepository = callbackMission;
         saveLogToRepository = callbackLog;
 
-        logger.info("Setting up launch site...");
-        launchSiteThread = new Thread(() -> {
-            try {
-                launchCore();
-            } catch (InterruptedException e) {
-                logger.error("Something went wrong with launch site thread: " + e.getMessage());
-            }
-        });
-        launchSiteThread.start();
+        if (initialized) {
+            return;
+        }
+        logger.info("Setting up launch site with " + padCount + " launch pads...");
         initialized = true;
+        updatePads();
     }
 
     /**
@@ -183,164 +182,169 @@ public class LaunchSite {
     }
 
     /**
-     * Interrupts the current ship launch.
+     * Interrupts every ongoing ship launch.
      */
     public void requestInterruption() {
-        interruptionRequested = true;
+        for (LaunchPad pad : pads) {
+            pad.requestInterruption();
+        }
     }
 
     /**
-     * Core function of the launch site.
-     * @throws InterruptedException
+     * @return Launch pads that are currently open, and pads that are closing but still hold
+     * a ship.
      */
-    private void launchCore() throws InterruptedException {
-        logger.info("Launch site is now open.");
-        while (true) {
-            Thread.sleep(IDLE_TIME);
-            if (targetShip == null) {
-
-                // No ship is being launched.
-
-                targetShip = launchQueue.poll();
-                if (targetShip != null) {
-
-                    // First-in-line ship is selected to be launched.
-
-                    targetShip.setStatus("AWAITING_TAKEOFF (Next)");
-                    targetShip = saveShipToRepository.apply(targetShip);
-                    updateQueueShipStatus();
-                }
-
-            } else if (targetShip.getStatus().startsWith("AWAITING_TAKEOFF") && interruptionRequested) {
-                
-                // Target ship is waiting to be launched, but the launch is aborted.
-                
-                interruptionRequested = false;
-                logger.warn("Ship with ID " + targetShip.getId() + " has aborted its mission. It has returned to the shipyard.");
-
-                Mission mission = targetShip.getMission();
-                mission.setArrivalTime(Timestamp.from(Instant.now()));
-                saveMissionToRepository.apply(mission);
-
-                targetShip.setStatus("READY");
-                targetShip.setMission(null);
-                saveShipToRepository.apply(targetShip);
-
-                // Target ship is no longer at the launch site.
-
-                targetShip = null;
-
-            } else if (targetShip.getStatus().startsWith("AWAITING_TAKEOFF")) {
-
-                // Target ship is waiting to be launched. The launch begins.
-
-                targetShip.setStatus("TAKING_OFF");
-                targetShip = saveShipToRepository.apply(targetShip);
-                logger.info("Ship with ID " + targetShip.getId() + " is taking off.");
-
-                for (int i = 0; i < LAUNCH_TIME / 1000; i++) {
-                    Thread.sleep(1000);
-
-                    if (interruptionRequested) {
-                        break;
-                    } else if (random.nextDouble() < LOG_RATE) {
-                        addLogToShip("launch_site_flavor");
-                    }
-                }
-
-                if (interruptionRequested) {
-
-                    // Target ship is in the middle of taking off, but it is aborted.
-
-                    interruptionRequested = false;
-                    logger.warn("Ship with ID " + targetShip.getId() + " has aborted its mission. It is returning now.");
-                    targetShip.setStatus("LANDING");
-                    targetShip = saveShipToRepository.apply(targetShip);
-                    Thread.sleep(LAUNCH_TIME);
-
-                    // Condition degradation may have taken place, so ship status must be
-                    // updated accordingly.
-
-                    String shipStatus;
-                    if (targetShip.getCondition() == 0) {
-                        logger.info("Ship with ID " + targetShip.getId() + " has crashed.");
-                        shipStatus = "CRASHED";
-                    } else if (targetShip.getCondition() < (targetShip.getPeakCondition() / 10)) {
-                        logger.info("Ship with ID " + targetShip.getId() + " has landed in a broken state.");
-                        shipStatus = "BROKEN";
-                    } else {
-                        logger.info("Ship with ID " + targetShip.getId() + " has landed.");
-                        shipStatus = "READY";
-                    }
-
-                    Mission mission = targetShip.getMission();
-                    mission.setArrivalTime(Timestamp.from(Instant.now()));
-                    saveMissionToRepository.apply(mission);
-
-                    targetShip.setStatus(shipStatus);
-                    targetShip.setMission(null);
-                    saveShipToRepository.apply(targetShip);
-
-                    // Target ship is no longer at the launch site.
-
-                    targetShip = null;
-
-                    continue;
-                }
-
-                // Target ship has finished taking off.
+    public List<LaunchPad> getPads() {
+        return new ArrayList<LaunchPad>(pads);
+    }
 
-                Mission mission = targetShip.getMission();
-                mission.setDepartureTime(Timestamp.from(Instant.now()));
-                saveMissionToRepository.apply(mission);
+    /**
+     * @return Number of launch pads that should be open.
+     */
+    public synchronized int getPadCount() {
+        return padCount;
+    }
 
-                addLogToShip("launch_site_finish_flavor");
+    /**
+     * Changes the number of launch pads. New pads are opened right away. Surplus pads
+     * launch the ship they currently hold, if any, and close after that.
+     * @param count Number of launch pads. Must be between 1 and MAX_PAD_COUNT, and every new
+     * pad must get a simulator thread of its own.
+     * @throws IllegalArgumentException Pad count is out of bounds.
+     */
+    public synchronized void setPadCount(int count) throws IllegalArgumentException {
+        if (count < 1 || count > MAX_PAD_COUNT) {
+            throw new IllegalArgumentException("Pad count must be between 1 and " + MAX_PAD_COUNT + ".");
+        }
+        int availableThreads = SimulatorExecutors.getInstance().getAvailableThreads();
+        if (count - getOpenPads().size() > availableThreads) {
+            throw new IllegalArgumentException("Only " + availableThreads + " more launch pads can be opened, since every pad "
+                + "needs a simulator thread of its own (see org.tt.field.core.executor.POOL_SIZE).");
+        }
+        logger.info("Number of launch pads changed from " + padCount + " to " + count + ".");
+        padCount = count;
+        if (initialized) {
+            updatePads();
+        }
+    }
 
-                targetShip.setStatus("OUTBOUND");
-                targetShip = saveShipToRepository.apply(targetShip);
+    /**
+     * Opens or closes launch pads until the number of open pads matches the pad count. A pad
+     * is only opened if a simulator thread is free for it. Otherwise the pad count is lowered
+     * to the number of open pads.
+     */
+    private void updatePads() {
+        List<LaunchPad> openPads = getOpenPads();
+        while (openPads.size() > padCount) {
+            openPads.remove(openPads.size() - 1).requestClose();
+        }
+        while (openPads.size() < padCount) {
+            LaunchPad pad = new LaunchPad(getFreePadNumber(), this);
+            pads.add(pad);
+            if (!SimulatorExecutors.getInstance().tryExecute(SimulationClocks.asWorker(pad::launchCore))) {
+                pads.remove(pad);
+                logger.warn("No simulator thread is free for another launch pad. " + openPads.size() + " launch pads are open.");
+                padCount = openPads.size();
+                break;
+            }
+            openPads.add(pad);
+        }
+    }
 
-                // Creating a transit ship for the target ship.
+    /**
+     * @return Launch pads that have not been instructed to close, in order of opening.
+     */
+    private List<LaunchPad> getOpenPads() {
+        List<LaunchPad> openPads = new ArrayList<LaunchPad>();
+        for (LaunchPad pad : pads) {
+            if (!pad.isClosing()) {
+                openPads.add(pad);
+            }
+        }
+        return openPads;
+    }
 
-                TransitShip transitShip = new TransitShip(targetShip, saveShipToRepository, saveMissionToRepository);
-                transitShip.toSpace();
-                transitShip.start();
-                logger.info("Ship with ID " + targetShip.getId() + " has finished taking off.");
-                
-                // Target ship is no longer at the launch site.
+    /**
+     * @return Lowest pad number that no open or closing pad has.
+     */
+    private int getFreePadNumber() {
+        Set<Integer> numbers = new HashSet<Integer>();
+        for (LaunchPad pad : pads) {
+            numbers.add(pad.getNumber());
+        }
+        int number = 1;
+        while (numbers.contains(number)) {
+            number++;
+        }
+        return number;
+    }
 
-                targetShip = null;
+    /**
+     * @return Queue of ships that are waiting for a launch pad.
+     */
+    ShipQueue getQueue() {
+        return launchQueue;
+    }
 
-            } else {
-                throw new IllegalStateException("A ship is in the launch site with an illegal status code: " + targetShip.getStatus());
+    /**
+     * Takes the first ship from the queue and puts it on specified pad.
+     * @param pad Launch pad.
+     * @return Ship entity, or null if the queue was empty.
+     */
+    Ship assignNext(LaunchPad pad) {
+        synchronized (assignmentLock) {
+            Ship ship = launchQueue.poll();
+            if (ship != null) {
+                pad.assign(ship);
             }
+            return ship;
         }
     }
 
     /**
-     * Updates the status values of every ship currently in the queue to "AWAITING_TAKEOFF (i)",
-     * where i is a ship entity's queue number.
+     * Empties specified pad.
+     * @param pad Launch pad.
+     * @return true, if an interruption was requested for the ship that was on the pad.
      */
-    private void updateQueueShipStatus() {
-        int i = 1;
-        for (Ship ship : launchQueue) {
-            ship.setStatus("AWAITING_TAKEOFF (" + i + ")");
-            saveShipToRepository.apply(ship);
-            i++;
+    boolean release(LaunchPad pad) {
+        synchronized (assignmentLock) {
+            return pad.release();
         }
     }
 
     /**
-     * Adds a log entry for the ship that is currently being launched.
-     * @param key A key for suitable log entries. See LogDistributor for the keys.
+     * Forgets a launch pad that has closed.
+     * @param pad Launch pad.
+     */
+    void padClosed(LaunchPad pad) {
+        pads.remove(pad);
+    }
+
+    /**
+     * @return How long it takes to launch a ship (milliseconds). Read on every launch, so
+     * that a configuration reload takes effect for the next launch.
      */
-    private void addLogToShip(String key) {
-        Log log = LogDistributor.getInstance().generateShipLog(targetShip, key);
-        log = saveLogToRepository.apply(log);
-        
-        List<Log> logs = targetShip.getLogs();
-        logs.add(log);
-        targetShip.setLogs(logs);
-
-        targetShip = saveShipToRepository.apply(targetShip);
+    int getLaunchTime() {
+        return PropertyUtils.getInteger("org.tt.field.core.LaunchSite.LAUNCH_TIME", 15000);
+    }
+
+    Ship saveShip(Ship ship) {
+        return saveShipToRepository.apply(ship);
+    }
+
+    Mission saveMission(Mission mission) {
+        return saveMissionToRepository.apply(mission);
+    }
+
+    Log saveLog(Log log) {
+        return saveLogToRepository.apply(log);
+    }
+
+    void journalRemoval(Ship ship) {
+        SimulationJournal.getInstance().append(JournalRecord.removed(ship.getId()));
+    }
+
+    TransitShip createTransitShip(Ship ship) {
+        return new TransitShip(ship, saveShipToRepository, saveMissionToRepository);
     }
 }
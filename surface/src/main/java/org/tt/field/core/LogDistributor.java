@@ -6,8 +6,6 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.sql.Timestamp;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -17,6 +15,7 @@ import java.util.Map.Entry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClocks;
 import org.tt.field.domain.Log;
 import org.tt.field.domain.Ship;
 
@@ -112,6 +111,6 @@ public class LogDistributor {
         String text = getFlavor(key).replace("%%SHIP%%", ship.getName());
         logger.info(ship.getName() + " - Log entry: " + text);
 
-        return new Log(Timestamp.from(Instant.now()), text);
+        return new Log(SimulationClocks.getInstance().now(), text);
     }
 }
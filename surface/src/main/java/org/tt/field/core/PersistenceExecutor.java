@@ -0,0 +1,67 @@
+package org.tt.field.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Executor for repository writes of simulators that must not block, such as the tasks of the
+ * timing wheel. Writes are split into lanes, each run by a single thread. Writes with the same
+ * key (ship ID) always land on the same lane, so they are run one at a time, in the order they
+ * were submitted.
+ *
+ * @author terratenff
+ */
+public class PersistenceExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceExecutor.class);
+    private static PersistenceExecutor instance;
+
+    /**
+     * Number of lanes (and threads).
+     */
+    private static final int THREAD_COUNT = PropertyUtils.getInteger("org.tt.field.core.PersistenceExecutor.THREAD_COUNT", 4);
+
+    /**
+     * Getter for singleton instance.
+     * @return PersistenceExecutor. It is started upon creation.
+     */
+    public static synchronized PersistenceExecutor getInstance() {
+        if (instance == null) {
+            instance = new PersistenceExecutor(THREAD_COUNT);
+        }
+        return instance;
+    }
+
+    private final ExecutorService[] lanes;
+
+    private PersistenceExecutor(int threadCount) {
+        lanes = new ExecutorService[Math.max(1, threadCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "persistence-" + (i + 1);
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs a repository write on the lane that the key maps to. Failures are logged.
+     * @param key Ordering key, for example a ship ID.
+     * @param task Repository write.
+     */
+    public void execute(long key, Runnable task) {
+        lanes[Math.floorMod(key, lanes.length)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Repository write failed: " + e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package org.tt.field.core;
+
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Ship;
+
+/**
+ * A single repair bay of the dry dock. Every bay takes ships from the shared repair queue
+ * and repairs them one at a time, independently of the other bays.
+ *
+ * @author terratenff
+ */
+public class RepairBay {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepairBay.class);
+
+    /**
+     * The probability of a log entry being generated for a ship.
+     * This is checked once a second.
+     */
+    private static final double LOG_RATE = 0.001;
+
+    /**
+     * What a repair bay is currently doing.
+     */
+    public enum State {
+        IDLE,
+        REPAIR_IN_PROGRESS,
+        CLOSED
+    }
+
+    private final int number;
+    private final Drydock drydock;
+    private final Random random = new Random();
+    private final Standby standby = new Standby();
+
+    /**
+     * Ship entity that is currently being repaired.
+     */
+    private volatile Ship targetShip;
+
+    private volatile State state = State.IDLE;
+
+    /**
+     * Determines whether the repairs of current ship must be aborted.
+     */
+    private volatile boolean interruptionRequested = false;
+
+    /**
+     * Determines whether the bay must close once it has no ship.
+     */
+    private volatile boolean closeRequested = false;
+
+    /**
+     * Repair bay constructor.
+     * @param number Number of the bay. Numbering starts at 1.
+     * @param drydock Dry dock that the bay belongs to.
+     */
+    RepairBay(int number, Drydock drydock) {
+        this.number = number;
+        this.drydock = drydock;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return true, if the bay has been instructed to close. It still repairs the ship it
+     * holds, if any, but does not take new ones.
+     */
+    public boolean isClosing() {
+        return closeRequested;
+    }
+
+    /**
+     * @return ID of the ship that is currently in the bay, or null if the bay is empty.
+     */
+    public Long getShipId() {
+        Ship ship = targetShip;
+        return ship != null ? ship.getId() : null;
+    }
+
+    /**
+     * Estimates how long it takes until the bay is free again.
+     * @return Remaining time (milliseconds). 0 if the bay is empty.
+     */
+    public long getRemainingTime() {
+        Ship ship = targetShip;
+        return ship != null ? drydock.getRepairDuration(ship) : 0;
+    }
+
+    /**
+     * Interrupts repairs of the current ship. Nothing is done if the bay is empty.
+     */
+    public synchronized void requestInterruption() {
+        if (targetShip != null) {
+            interruptionRequested = true;
+            standby.wake();
+        }
+    }
+
+    /**
+     * Instructs the bay to close. A ship that is already in the bay is repaired first.
+     */
+    void requestClose() {
+        closeRequested = true;
+        standby.wake();
+    }
+
+    /**
+     * Core function of the repair bay. The bay waits for the next ship in the queue and
+     * starts repairing it right away. Returns once the bay has been closed.
+     */
+    void repairCore() {
+        logger.info("Repair bay " + number + " is now open.");
+        try {
+            repairShips();
+        } finally {
+            state = State.CLOSED;
+            drydock.bayClosed(this);
+            logger.info("Repair bay " + number + " has been closed.");
+        }
+    }
+
+    private void repairShips() {
+        while (!closeRequested) {
+            Ship ship = standby.take(drydock.getQueue());
+            if (ship == null) {
+                continue;
+            }
+
+            // First-in-line ship is selected to be repaired.
+
+            synchronized (this) {
+                targetShip = ship;
+                state = State.REPAIR_IN_PROGRESS;
+            }
+            targetShip.setStatus("REPAIR_IN_PROGRESS");
+            targetShip = drydock.saveShip(targetShip);
+
+            // The repairs of target ship begin.
+
+            logger.info("Repair bay " + number + " is now repairing ship with ID " + targetShip.getId() + ".");
+            while (!interruptionRequested && targetShip.getCondition() < targetShip.getPeakCondition()) {
+                if (!standby.sleep(drydock.getRepairTime())) {
+                    continue;
+                }
+
+                if (random.nextDouble() < LOG_RATE) {
+                    addLogToShip("dry_dock_flavor");
+                }
+
+                targetShip.setCondition(targetShip.getCondition() + 1);
+                targetShip = drydock.saveShip(targetShip);
+            }
+
+            // The repairs of target ship have been finished/interrupted.
+
+            addLogToShip("dry_dock_finish_flavor");
+
+            logger.info("Repair bay " + number + " has finished repairing ship with ID " + targetShip.getId() + ".");
+            targetShip.setStatus(targetShip.getCondition() > 0 ? "READY" : "BROKEN");
+            drydock.saveShip(targetShip);
+            drydock.journalRemoval(targetShip);
+
+            // Target ship is no longer at the repair bay.
+
+            release();
+        }
+    }
+
+    /**
+     * Empties the repair bay.
+     */
+    private synchronized void release() {
+        targetShip = null;
+        interruptionRequested = false;
+        state = State.IDLE;
+    }
+
+    /**
+     * Adds a log entry for the ship that is currently being repaired.
+     * @param key A key for suitable log entries. See LogDistributor for the keys.
+     */
+    private void addLogToShip(String key) {
+        Log log = LogDistributor.getInstance().generateShipLog(targetShip, key);
+        log = drydock.saveLog(log);
+
+        List<Log> logs = targetShip.getLogs();
+        logs.add(log);
+        targetShip.setLogs(logs);
+
+        targetShip = drydock.saveShip(targetShip);
+    }
+}
@@ -0,0 +1,348 @@
+package org.tt.field.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+import org.tt.field.domain.Ship;
+
+/**
+ * Thread-safe priority queue of ship entities. Ships are ordered by a rank that is computed
+ * when they are added (lower rank comes first), and ships of equal rank are kept in the order
+ * in which they were added.
+ *
+ * The queue is an order-statistic treap: every node knows the size of its subtree, so adding,
+ * taking, removing a ship by ID and finding the position of a ship are all O(log n).
+ *
+ * @author terratenff
+ */
+public class ShipQueue {
+
+    /**
+     * Rank function that keeps ships in the order in which they were added.
+     */
+    public static final ToLongFunction<Ship> FIFO = ship -> 0;
+
+    /**
+     * Rank function that puts ships of high mission priority first.
+     */
+    public static final ToLongFunction<Ship> MISSION_PRIORITY = ship -> ship.getMission() != null ? -ship.getMission().getPriority() : 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Determines the rank of a ship as it is added.
+     */
+    private final ToLongFunction<Ship> rankFunction;
+
+    /**
+     * Queued nodes by ship ID.
+     */
+    private final Map<Long, Node> nodes = new HashMap<Long, Node>();
+
+    private Node root;
+
+    /**
+     * Sequence number of the next ship that is added.
+     */
+    private long nextSequence = 0;
+
+    /**
+     * Ship queue constructor.
+     * @param rankFunction Function that determines the rank of a ship. Lower rank comes first.
+     */
+    public ShipQueue(ToLongFunction<Ship> rankFunction) {
+        this.rankFunction = rankFunction;
+    }
+
+    /**
+     * Adds a ship entity to the queue. If the ship is already queued, it is moved to its new place.
+     * @param ship Ship entity.
+     * @return Position of the ship in the queue. Indexing starts at 1.
+     */
+    public int add(Ship ship) {
+        lock.lock();
+        try {
+            Node previous = nodes.remove(ship.getId());
+            if (previous != null) {
+                root = delete(root, previous);
+            }
+            Node node = new Node(ship, rankFunction.applyAsLong(ship), nextSequence++);
+            nodes.put(ship.getId(), node);
+            root = insert(root, node);
+            notEmpty.signal();
+            return position(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the first ship entity from the queue.
+     * @return Ship entity, or null if the queue is empty.
+     */
+    public Ship poll() {
+        lock.lock();
+        try {
+            return root != null ? removeFirst() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the first ship entity from the queue, waiting for one if the queue is empty.
+     * @return Ship entity.
+     * @throws InterruptedException The thread was interrupted while waiting.
+     */
+    public Ship take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (root == null) {
+                notEmpty.await();
+            }
+            return removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the queue has a ship entity. The ship is not taken, so another thread may
+     * take it first.
+     * @throws InterruptedException The thread was interrupted while waiting.
+     */
+    public void awaitShip() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (root == null) {
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a ship entity from the queue.
+     * @param shipId ID of the ship entity.
+     * @return Removed ship entity, or null if the ship was not queued.
+     */
+    public Ship remove(long shipId) {
+        lock.lock();
+        try {
+            Node node = nodes.remove(shipId);
+            if (node == null) {
+                return null;
+            }
+            root = delete(root, node);
+            return node.ship;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the position of a ship entity in the queue.
+     * @param shipId ID of the ship entity.
+     * @return Position of the ship. Indexing starts at 1. -1 if the ship is not queued.
+     */
+    public int positionOf(long shipId) {
+        lock.lock();
+        try {
+            Node node = nodes.get(shipId);
+            return node != null ? position(node) : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param shipId ID of the ship entity.
+     * @return true, if the ship is queued.
+     */
+    public boolean contains(long shipId) {
+        lock.lock();
+        try {
+            return nodes.containsKey(shipId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of ships in the queue.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size(root);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Snapshot of the queued ship entities, in queue order.
+     */
+    public List<Ship> toList() {
+        lock.lock();
+        try {
+            List<Ship> ships = new ArrayList<Ship>(size(root));
+            collect(root, ships);
+            return ships;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Ship removeFirst() {
+        Node first = root;
+        while (first.left != null) {
+            first = first.left;
+        }
+        nodes.remove(first.ship.getId());
+        root = delete(root, first);
+        return first.ship;
+    }
+
+    /**
+     * Counts the nodes that precede specified node by descending from the root.
+     */
+    private int position(Node node) {
+        int preceding = 0;
+        Node current = root;
+        while (current != node) {
+            if (compare(node, current) < 0) {
+                current = current.left;
+            } else {
+                preceding += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return preceding + size(node.left) + 1;
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.heapPriority > tree.heapPriority) {
+            Node[] parts = split(tree, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            node.update();
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        tree.update();
+        return tree;
+    }
+
+    private static Node delete(Node tree, Node node) {
+        if (tree == node) {
+            Node merged = merge(node.left, node.right);
+            node.left = null;
+            node.right = null;
+            return merged;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = delete(tree.left, node);
+        } else {
+            tree.right = delete(tree.right, node);
+        }
+        tree.update();
+        return tree;
+    }
+
+    /**
+     * Splits a tree into nodes that precede the pivot and nodes that follow it.
+     */
+    private static Node[] split(Node tree, Node pivot) {
+        if (tree == null) {
+            return new Node[] { null, null };
+        }
+        if (compare(tree, pivot) < 0) {
+            Node[] parts = split(tree.right, pivot);
+            tree.right = parts[0];
+            tree.update();
+            return new Node[] { tree, parts[1] };
+        }
+        Node[] parts = split(tree.left, pivot);
+        tree.left = parts[1];
+        tree.update();
+        return new Node[] { parts[0], tree };
+    }
+
+    /**
+     * Merges two trees, where every node of the first tree precedes every node of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.heapPriority > second.heapPriority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+
+    private static void collect(Node tree, List<Ship> target) {
+        if (tree != null) {
+            collect(tree.left, target);
+            target.add(tree.ship);
+            collect(tree.right, target);
+        }
+    }
+
+    private static int compare(Node a, Node b) {
+        int result = Long.compare(a.rank, b.rank);
+        return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * Treap node. Nodes are ordered by (rank, sequence) and heap-ordered by a random priority.
+     */
+    private static class Node {
+
+        private final Ship ship;
+        private final long rank;
+        private final long sequence;
+        private final int heapPriority = ThreadLocalRandom.current().nextInt();
+
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Ship ship, long rank, long sequence) {
+            this.ship = ship;
+            this.rank = rank;
+            this.sequence = sequence;
+        }
+
+        private void update() {
+            size = 1 + ShipQueue.size(left) + ShipQueue.size(right);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.tt.field.core;
+
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.domain.Ship;
+
+/**
+ * Interruptible waiting for a simulator thread. Launch pads and repair bays wait for ships
+ * and for simulated delays through a standby, so that other threads can wake them up right
+ * away, for example when an operation is aborted. The waiting thread is only ever interrupted
+ * while it is actually waiting, never while it is writing to a repository.
+ *
+ * @author terratenff
+ */
+class Standby {
+
+    /**
+     * Thread that is currently waiting, or null.
+     */
+    private Thread waitingThread;
+
+    /**
+     * Determines whether a wake-up was requested while nobody was waiting. The next wait
+     * then returns immediately.
+     */
+    private boolean wakeRequested = false;
+
+    /**
+     * Waits for specified amount of simulated time.
+     * @param millis Simulated time to wait (milliseconds).
+     * @return true, if the full time passed. false, if the wait was cut short by wake().
+     */
+    boolean sleep(long millis) {
+        if (!enter()) {
+            return false;
+        }
+        try {
+            SimulationClocks.getInstance().sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Takes the first ship entity from a queue, waiting for one if the queue is empty.
+     * @param queue Ship queue.
+     * @return Ship entity, or null if the wait was cut short by wake().
+     */
+    Ship take(ShipQueue queue) {
+        if (!enter()) {
+            return null;
+        }
+        boolean parked = SimulationClocks.getInstance().park();
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            return null;
+        } finally {
+            if (parked) {
+                SimulationClocks.getInstance().unpark();
+            }
+            exit();
+        }
+    }
+
+    /**
+     * Waits until a queue has a ship entity, without taking it.
+     * @param queue Ship queue.
+     * @return true, if the queue has a ship. false, if the wait was cut short by wake().
+     */
+    boolean awaitShip(ShipQueue queue) {
+        if (!enter()) {
+            return false;
+        }
+        boolean parked = SimulationClocks.getInstance().park();
+        try {
+            queue.awaitShip();
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            if (parked) {
+                SimulationClocks.getInstance().unpark();
+            }
+            exit();
+        }
+    }
+
+    /**
+     * Wakes up the waiting thread. If no thread is waiting, the next wait returns immediately.
+     */
+    synchronized void wake() {
+        if (waitingThread != null) {
+            waitingThread.interrupt();
+        } else {
+            wakeRequested = true;
+        }
+    }
+
+    private synchronized boolean enter() {
+        if (wakeRequested) {
+            wakeRequested = false;
+            return false;
+        }
+        waitingThread = Thread.currentThread();
+        return true;
+    }
+
+    private synchronized void exit() {
+        waitingThread = null;
+
+        // An interruption that arrives after the wait has already finished is not needed anymore.
+
+        Thread.interrupted();
+    }
+}
@@ -0,0 +1,397 @@
+package org.tt.field.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClock;
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.core.clock.VirtualClock;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Shared tick engine for simulated entities. Tasks are placed into a hashed timing wheel,
+ * which is split into shards. Each shard is driven by a single thread, and tasks with the
+ * same key (ship ID) always land on the same shard, so tasks of a single entity are never
+ * run concurrently. Deadlines are measured in simulated time.
+ *
+ * @author terratenff
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+    private static TimingWheel instance;
+
+    /**
+     * How much time one bucket of the wheel covers (milliseconds).
+     */
+    private static final int TICK_DURATION = PropertyUtils.getInteger("org.tt.field.core.TimingWheel.TICK_DURATION", 100);
+
+    /**
+     * Number of buckets in a single wheel. Must be a power of two.
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * Number of shards (and driving threads). 0 means one shard per available processor.
+     */
+    private static final int SHARD_COUNT = PropertyUtils.getInteger("org.tt.field.core.TimingWheel.SHARD_COUNT", 0);
+
+    /**
+     * Getter for singleton instance.
+     * @return TimingWheel. It is started upon creation.
+     */
+    public static synchronized TimingWheel getInstance() {
+        if (instance == null) {
+            int shardCount = SHARD_COUNT > 0 ? SHARD_COUNT : Runtime.getRuntime().availableProcessors();
+            instance = new TimingWheel(SimulationClocks.getInstance(), shardCount, TICK_DURATION, WHEEL_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * Shards of the wheel. A task is placed into shard (key mod shard count).
+     */
+    private final Shard[] shards;
+
+    /**
+     * Thread pool that drives the shards, one thread per shard.
+     */
+    private final ScheduledExecutorService driver;
+
+    private final long tickDuration;
+
+    private final SimulationClock clock;
+
+    /**
+     * Determines whether shards keep track of their next deadline. Only needed when
+     * a virtual clock wants to jump to the next scheduled event.
+     */
+    private final boolean trackDeadlines;
+
+    /**
+     * Number of tasks that have been scheduled but not yet run or cancelled.
+     */
+    private final AtomicLong pendingTasks = new AtomicLong();
+
+    /**
+     * Timing wheel constructor. The wheel starts ticking right away.
+     * @param clock Simulation clock that deadlines are measured with.
+     * @param shardCount Number of shards (and threads).
+     * @param tickDuration How much time one bucket covers (milliseconds).
+     * @param wheelSize Number of buckets per shard. Must be a power of two.
+     */
+    private TimingWheel(SimulationClock clock, int shardCount, long tickDuration, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.clock = clock;
+        this.trackDeadlines = clock instanceof VirtualClock;
+        this.tickDuration = Math.max(1, tickDuration);
+        this.shards = new Shard[Math.max(1, shardCount)];
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "timing-wheel-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        driver = Executors.newScheduledThreadPool(shards.length, threadFactory);
+
+        long startTime = clock.currentTimeMillis();
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(wheelSize, startTime);
+            driver.scheduleAtFixedRate(shards[i]::tick, this.tickDuration, this.tickDuration, TimeUnit.MILLISECONDS);
+        }
+        if (trackDeadlines) {
+            ((VirtualClock) clock).addEventSource(this::getNextDeadline);
+        }
+        logger.info("Timing wheel started with " + shards.length + " shards and a tick of " + this.tickDuration + " ms.");
+    }
+
+    /**
+     * Schedules a task to be run after specified delay. The task is run on the thread
+     * of the shard that the key maps to, so it must not block.
+     * @param key Sharding key, for example a ship ID.
+     * @param delay How long must be waited before the task is run (milliseconds).
+     * @param task Task to be run.
+     * @return Timeout handle that can be used to cancel the task.
+     */
+    public Timeout schedule(long key, long delay, Runnable task) {
+        Timeout timeout = new Timeout(task, clock.currentTimeMillis() + Math.max(0, delay));
+        pendingTasks.incrementAndGet();
+        shardOf(key).incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Runs a task on the shard that the key maps to, during the next tick.
+     * @param key Sharding key, for example a ship ID.
+     * @param task Task to be run.
+     * @return Timeout handle that can be used to cancel the task.
+     */
+    public Timeout execute(long key, Runnable task) {
+        return schedule(key, 0, task);
+    }
+
+    /**
+     * @return Number of tasks that are waiting to be run.
+     */
+    public long getPendingTaskCount() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * @return Deadline (simulated epoch milliseconds) of the earliest task that is waiting
+     * to be run, or Long.MAX_VALUE if there are none. Only tracked with a virtual clock.
+     */
+    public long getNextDeadline() {
+        long next = Long.MAX_VALUE;
+        for (Shard shard : shards) {
+            next = Math.min(next, shard.getNextDeadline());
+        }
+        return next;
+    }
+
+    private Shard shardOf(long key) {
+        return shards[(int) Math.floorMod(key, (long) shards.length)];
+    }
+
+    /**
+     * Handle for a scheduled task.
+     */
+    public class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+
+        /**
+         * How many full wheel rotations remain before the task expires.
+         */
+        private long remainingRounds;
+
+        /**
+         * Next timeout in the same bucket.
+         */
+        private Timeout next;
+
+        private volatile boolean cancelled = false;
+        private volatile boolean expired = false;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task. The task is removed from the wheel once its bucket is visited.
+         * @return true, if the task was cancelled. false, if it had already been run.
+         */
+        public boolean cancel() {
+            if (expired || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isExpired() {
+            return expired;
+        }
+
+        /**
+         * @return Point of time (epoch milliseconds) at which the task is due.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    /**
+     * A single wheel that is driven by a single thread.
+     */
+    private class Shard {
+
+        private final Timeout[] buckets;
+        private final int mask;
+        private final long startTime;
+
+        /**
+         * Timeouts that have been scheduled but not yet placed into a bucket.
+         */
+        private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<Timeout>();
+
+        /**
+         * Index of the next tick to be processed.
+         */
+        private long tick = 0;
+
+        /**
+         * Number of timeouts in the buckets.
+         */
+        private int size = 0;
+
+        /**
+         * Deadline of the earliest timeout in the buckets, as of the latest tick.
+         */
+        private volatile long nextDeadline = Long.MAX_VALUE;
+
+        private Shard(int wheelSize, long startTime) {
+            this.buckets = new Timeout[wheelSize];
+            this.mask = wheelSize - 1;
+            this.startTime = startTime;
+        }
+
+        /**
+         * Processes every tick that has passed since the previous call.
+         */
+        private void tick() {
+            try {
+                long now = clock.currentTimeMillis();
+                transferIncoming();
+                while (startTime + (tick + 1) * tickDuration <= now) {
+                    if (size == 0) {
+
+                        // Nothing to run: ticks can be skipped, which matters after clock jumps.
+
+                        tick = Math.max(tick, (now - startTime) / tickDuration);
+                        transferIncoming();
+                        if (size == 0) {
+                            break;
+                        }
+                    }
+                    processBucket((int) (tick & mask));
+                    tick++;
+                    transferIncoming();
+                }
+                if (trackDeadlines) {
+                    nextDeadline = findNextDeadline();
+                }
+            } catch (Throwable t) {
+                logger.error("Timing wheel shard failed to tick: " + t.getMessage(), t);
+            }
+        }
+
+        /**
+         * Places newly scheduled timeouts into their buckets.
+         */
+        private void transferIncoming() {
+            Timeout timeout;
+            while ((timeout = incoming.poll()) != null) {
+                if (timeout.cancelled) {
+                    pendingTasks.decrementAndGet();
+                    continue;
+                }
+                long expiryTick = Math.max(tick, (timeout.deadline - startTime) / tickDuration);
+                timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+                int index = (int) (expiryTick & mask);
+                timeout.next = buckets[index];
+                buckets[index] = timeout;
+                size++;
+            }
+        }
+
+        /**
+         * @return Deadline of the earliest timeout in the buckets, or Long.MAX_VALUE.
+         */
+        private long findNextDeadline() {
+            if (size == 0) {
+                return Long.MAX_VALUE;
+            }
+
+            // Buckets are visited in expiry order, so the first bucket with a timeout
+            // that expires during this rotation holds the earliest deadline.
+
+            for (int i = 0; i < buckets.length; i++) {
+                long next = Long.MAX_VALUE;
+                for (Timeout timeout = buckets[(int) ((tick + i) & mask)]; timeout != null; timeout = timeout.next) {
+                    if (!timeout.cancelled && timeout.remainingRounds <= 0) {
+                        next = Math.min(next, timeout.deadline);
+                    }
+                }
+                if (next != Long.MAX_VALUE) {
+                    return next;
+                }
+            }
+
+            long next = Long.MAX_VALUE;
+            for (Timeout bucket : buckets) {
+                for (Timeout timeout = bucket; timeout != null; timeout = timeout.next) {
+                    if (!timeout.cancelled) {
+                        next = Math.min(next, timeout.deadline);
+                    }
+                }
+            }
+            return next;
+        }
+
+        /**
+         * @return Deadline of the earliest timeout of the shard, including those that
+         * have not yet been placed into a bucket.
+         */
+        private long getNextDeadline() {
+            long next = nextDeadline;
+            for (Timeout timeout : incoming) {
+                if (!timeout.cancelled) {
+                    next = Math.min(next, timeout.deadline);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Runs expired timeouts of a bucket and drops cancelled ones.
+         * @param index Bucket index.
+         */
+        private void processBucket(int index) {
+            Timeout previous = null;
+            Timeout timeout = buckets[index];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                boolean remove = false;
+                if (timeout.cancelled) {
+                    remove = true;
+                } else if (timeout.remainingRounds <= 0) {
+                    remove = true;
+                    timeout.expired = true;
+                    run(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                if (remove) {
+                    pendingTasks.decrementAndGet();
+                    size--;
+                    timeout.next = null;
+                    if (previous == null) {
+                        buckets[index] = next;
+                    } else {
+                        previous.next = next;
+                    }
+                } else {
+                    previous = timeout;
+                }
+                timeout = next;
+            }
+        }
+
+        private void run(Timeout timeout) {
+            try {
+                timeout.task.run();
+            } catch (Throwable t) {
+                logger.error("A scheduled task failed: " + t.getMessage(), t);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.tt.field.core;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tt.field.utils.ConcurrentLongMap;
+
+/**
+ * Registry of transit ships that are currently in flight, keyed by ship ID. Transit ships
+ * register themselves when they are created and deregister once they conclude, so the
+ * registry only ever holds ships that are in the air.
+ *
+ * @author terratenff
+ */
+public class TransitRegistry {
+
+    private static TransitRegistry instance;
+
+    /**
+     * Getter for singleton instance.
+     * @return TransitRegistry.
+     */
+    public static synchronized TransitRegistry getInstance() {
+        if (instance == null) {
+            instance = new TransitRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Transit ships by ship ID.
+     */
+    private final ConcurrentLongMap<TransitShip> shipsOnTransit = new ConcurrentLongMap<TransitShip>();
+
+    private TransitRegistry() {}
+
+    /**
+     * Adds a transit ship to the registry. A previous transit ship of the same ship entity is replaced.
+     * @param transitShip Transit ship.
+     */
+    public void register(TransitShip transitShip) {
+        shipsOnTransit.put(transitShip.getShipId(), transitShip);
+    }
+
+    /**
+     * Removes a transit ship from the registry, unless it has already been replaced.
+     * @param transitShip Transit ship.
+     */
+    public void deregister(TransitShip transitShip) {
+        shipsOnTransit.remove(transitShip.getShipId(), transitShip);
+    }
+
+    /**
+     * @param shipId ID of the ship entity.
+     * @return Transit ship of the ship entity, or null if the ship is not in transit.
+     */
+    public TransitShip get(long shipId) {
+        return shipsOnTransit.get(shipId);
+    }
+
+    /**
+     * Instructs specified ship to abort its mission.
+     * @param shipId ID of the ship entity.
+     * @return true, if the ship was launched towards space and was instructed to abort.
+     * false, if the ship could not be found or it was received from space.
+     */
+    public boolean abort(long shipId) {
+        TransitShip transitShip = shipsOnTransit.get(shipId);
+        if (transitShip == null || !transitShip.isHeadingToSpace()) {
+            return false;
+        }
+        transitShip.requestAbort();
+        return true;
+    }
+
+    /**
+     * Instructs every ship that is still on its way to space to abort its mission.
+     * @return Number of ships that were instructed to abort.
+     */
+    public int abortAll() {
+        int count = 0;
+        for (TransitShip transitShip : shipsOnTransit.values()) {
+            if (transitShip.isHeadingToSpace() && transitShip.getPhase() == TransitShip.Phase.OUTBOUND) {
+                transitShip.requestAbort();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param phase Transit phase.
+     * @return Every transit ship that is currently in specified phase.
+     */
+    public List<TransitShip> getShipsByPhase(TransitShip.Phase phase) {
+        List<TransitShip> ships = new ArrayList<TransitShip>();
+        shipsOnTransit.forEach((shipId, transitShip) -> {
+            if (transitShip.getPhase() == phase) {
+                ships.add(transitShip);
+            }
+        });
+        return ships;
+    }
+
+    /**
+     * @return IDs of ships in transit, grouped by transit phase.
+     */
+    public Map<TransitShip.Phase, List<Long>> getShipIdsByPhase() {
+        Map<TransitShip.Phase, List<Long>> shipIds = new EnumMap<TransitShip.Phase, List<Long>>(TransitShip.Phase.class);
+        shipsOnTransit.forEach((shipId, transitShip) -> {
+            TransitShip.Phase phase = transitShip.getPhase();
+            if (phase != null) {
+                shipIds.computeIfAbsent(phase, key -> new ArrayList<Long>()).add(shipId);
+            }
+        });
+        return shipIds;
+    }
+
+    /**
+     * @return Number of ships in transit.
+     */
+    public int size() {
+        return shipsOnTransit.size();
+    }
+}
@@ -1,38 +1,54 @@
 package org.tt.field.core;
 
-import java.sql.Timestamp;
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tt.field.core.clock.SimulationClocks;
+import org.tt.field.core.journal.JournalRecord;
+import org.tt.field.core.journal.SimulationJournal;
 import org.tt.field.domain.Mission;
 import org.tt.field.domain.Ship;
-import org.tt.field.utils.HttpUtils;
+import org.tt.field.utils.CircuitBreaker;
 import org.tt.field.utils.PropertyUtils;
+import org.tt.field.utils.SpaceClient;
 
 /**
  * Simulator class for ship entities. Ships are simulated to move around the airspace,
- * either going to or returning from space.
+ * either going to or returning from space. A transit ship does not own a thread: it is a
+ * state object whose phases are advanced by the shared timing wheel. Ship entities are
+ * saved on the persistence executor, so that timing wheel tasks never wait for the repository.
  * 
  * @author terratenff
  */
-public class TransitShip extends Thread {
+public class TransitShip {
 
     private static final Logger logger = LoggerFactory.getLogger(TransitShip.class);
 
     /**
-     * How long the ships remain in airspace.
+     * How long the ships remain in airspace (milliseconds). Read on every use, so that a
+     * configuration reload takes effect for the next phase of every ship.
      */
-    private static final int TRANSIT_TIME = PropertyUtils.getInteger("org.tt.field.core.TransitShip.TRANSIT_TIME", 60000);
+    private static int getTransitTime() {
+        return PropertyUtils.getInteger("org.tt.field.core.TransitShip.TRANSIT_TIME", 60000);
+    }
+
+    /**
+     * How long the ships wait before trying to connect to space module for the first time,
+     * and the base delay of retries (milliseconds). Retries back off exponentially, with jitter.
+     */
+    private static int getRetryTime() {
+        return PropertyUtils.getInteger("org.tt.field.core.TransitShip.RETRY_DELAY", 10000);
+    }
 
     /**
-     * How long the ships wait before trying to connect to space module again.
+     * Upper limit for the delay between connection attempts (milliseconds).
      */
-    private static final int RETRY_TIME = PropertyUtils.getInteger("org.tt.field.core.TransitShip.RETRY_DELAY", 10000);
+    private static int getMaxRetryTime() {
+        return PropertyUtils.getInteger("org.tt.field.core.TransitShip.MAX_RETRY_DELAY", 60000);
+    }
 
     /**
      * How many times the ships attempt to connect to space before giving up and returning to surface.
@@ -50,50 +66,65 @@ public class TransitShip extends Thread {
     private static final int CONDITION_DEGRADATION_FREQUENCY = 1000;
 
     /**
-     * List of active simulated ships.
+     * Phases that a transit ship goes through.
      */
-    private static List<TransitShip> shipsOnTransit = new ArrayList<TransitShip>();
+    public enum Phase {
+        /** Ship is on its way to space. Its mission can still be aborted. */
+        OUTBOUND,
+        /** Ship is attempting to connect to space module. */
+        ENTERING_SPACE,
+        /** Ship is on its way back to surface. */
+        INBOUND,
+        /** Ship is landing. */
+        LANDING,
+        /** Transit ship has concluded its service. */
+        CONCLUDED
+    }
 
     /**
-     * Instructs specified ship entity to abort its current mission.
-     * @param ship Ship entity that is to abort its mission.
-     * @return true, if the ship's mission has been aborted (or already was aborted).
-     * false, if the ship in question could not be found.
+     * How many times ships have retried connecting to space module.
      */
-    public static boolean abortMission(Ship ship) {
+    private static final AtomicLong retryCount = new AtomicLong();
 
-        // Remove inactive transit ships to avoid errors.
-        cleanup();
+    /**
+     * How many times ships have been parked while the circuit breaker was open.
+     */
+    private static final AtomicLong parkCount = new AtomicLong();
 
-        TransitShip targetShip = null;
-        for (TransitShip transitShip : shipsOnTransit) {
-            if (transitShip.ship.equals(ship)) {
-                targetShip = transitShip;
-                break;
-            }
-        }
+    /**
+     * How many ships have given up on entering space.
+     */
+    private static final AtomicLong returnCount = new AtomicLong();
 
-        if (targetShip != null && !targetShip.direction) {
-            targetShip.abortMission = true;
-            return true;
-        } else {
-            return false;
-        }
+    /**
+     * @return How many times ships have retried connecting to space module.
+     */
+    public static long getRetryCount() {
+        return retryCount.get();
     }
 
     /**
-     * Removes all transit ships that are no longer being used (concluded = true).
+     * @return How many times ships have been parked while the space module was unavailable.
      */
-    public static void cleanup() {
-        int i = 0;
-        while (i < shipsOnTransit.size()) {
-            TransitShip transitShip = shipsOnTransit.get(i);
-            if (transitShip.concluded) {
-                shipsOnTransit.remove(i);
-            } else {
-                i++;
-            }
-        }
+    public static long getParkCount() {
+        return parkCount.get();
+    }
+
+    /**
+     * @return How many ships have given up on entering space and returned to surface.
+     */
+    public static long getReturnCount() {
+        return returnCount.get();
+    }
+
+    /**
+     * Instructs specified ship entity to abort its current mission.
+     * @param ship Ship entity that is to abort its mission.
+     * @return true, if the ship's mission has been aborted (or already was aborted).
+     * false, if the ship in question could not be found.
+     */
+    public static boolean abortMission(Ship ship) {
+        return TransitRegistry.getInstance().abort(ship.getId());
     }
 
     /**
@@ -111,18 +142,10 @@ public class TransitShip extends Thread {
      */
     private Function<Mission, Mission> saveMissionToRepository;
 
-    private Random random = new Random();
-    
     /**
      * Determines whether the ship entity has aborted its mission.
      */
-    private boolean abortMission = false;
-
-    /**
-     * Determines whether the transit ship has concluded its service to the ship entity.
-     * If this is true, the transit ship is removed during a cleanup.
-     */
-    private boolean concluded = false;
+    private volatile boolean abortMission = false;
 
     /**
      * Determines whether the ship entity has completed its mission.
@@ -134,6 +157,33 @@ public class TransitShip extends Thread {
      */
     private boolean direction = true;
 
+    /**
+     * Current phase of the transit ship. Only modified by the timing wheel.
+     */
+    private volatile Phase phase;
+
+    /**
+     * Pending timing wheel task of the transit ship.
+     */
+    private TimingWheel.Timeout pendingTimeout;
+
+    /**
+     * How many times the ship has attempted to connect to space module.
+     */
+    private int connectionAttempts = 0;
+
+    /**
+     * Callback that is parked in the circuit breaker of the space module, or null if the
+     * transit ship is not parked. Only modified by the timing wheel.
+     */
+    private Runnable parkedCallback;
+
+    /**
+     * Condition of the ship entity over the course of the transit. The condition is only
+     * materialized into the ship entity when it is needed.
+     */
+    private volatile ConditionModel conditionModel;
+
     /**
      * Transit ship constructor.
      * @param ship Ship entity that is to be represented.
@@ -145,7 +195,7 @@ public class TransitShip extends Thread {
         this.saveShipToRepository = saveShipToRepository;
         this.saveMissionToRepository = saveMissionToRepository;
 
-        shipsOnTransit.add(this);
+        TransitRegistry.getInstance().register(this);
     }
 
     /**
@@ -153,6 +203,7 @@ public class TransitShip extends Thread {
      */
     public void toSpace() {
         direction = true;
+        phase = Phase.OUTBOUND;
     }
 
     /**
@@ -160,215 +211,364 @@ public class TransitShip extends Thread {
      */
     public void toSurface() {
         direction = false;
+        phase = Phase.INBOUND;
     }
 
-    public void run() {
-        if (direction) {
-            moveToSpace();
-        } else {
-            moveToSurface();
-        }
+    /**
+     * Puts the transit ship on the timing wheel. No thread is created for it.
+     */
+    public void start() {
+        conditionModel = new ConditionModel(ConditionModel.seedFor(ship), SimulationClocks.getInstance().currentTimeMillis(),
+            ship.getCondition(), CONDITION_DEGRADATION_RATE, CONDITION_DEGRADATION_FREQUENCY);
+        logger.debug("Ship with ID " + ship.getId() + " is in transit. Condition seed: " + conditionModel.getSeed());
+
+        TimingWheel.getInstance().execute(ship.getId(), () -> {
+            if (direction) {
+                moveToSpace();
+            } else {
+                moveToSurface();
+            }
+        });
     }
 
-    private void moveToSpace() {
-        try {
-            while (true) {
-                wait(TRANSIT_TIME);
+    /**
+     * Puts a transit ship that was interrupted by a restart back on the timing wheel. The
+     * ship continues from the phase recorded in the simulation journal, and the remaining
+     * time of the phase is taken from the recorded deadline.
+     * @param record Journal record of the transit.
+     */
+    public void resume(JournalRecord record) {
+        direction = record.isHeadingToSpace();
+        missionCompleted = record.isMissionCompleted();
+        connectionAttempts = record.getConnectionAttempts();
+        phase = Phase.values()[record.getPhase()];
+        conditionModel = new ConditionModel(record.getConditionSeed(), record.getConditionStartTime(),
+            record.getStartCondition(), CONDITION_DEGRADATION_RATE, CONDITION_DEGRADATION_FREQUENCY);
+
+        long remainingTime = Math.max(0, record.getDeadline() - SimulationClocks.getInstance().currentTimeMillis());
+        logger.info("Ship with ID " + ship.getId() + " resumes its transit (" + phase + ", " + remainingTime + " ms remaining).");
+
+        TimingWheel.getInstance().execute(ship.getId(), () -> {
+            switch (phase) {
+                case OUTBOUND:
+                    waitFor(remainingTime, this::enterSpace);
+                    break;
+                case ENTERING_SPACE:
+                    waitFor(remainingTime, this::sendShipToSpace);
+                    break;
+                case INBOUND:
+                    waitFor(remainingTime, this::land);
+                    break;
+                case LANDING:
+                    waitFor(remainingTime, this::touchDown);
+                    break;
+                default:
+                    conclude();
+                    break;
+            }
+        });
+    }
 
-                if (ship.getStatus().equals("OUTBOUND")) {
+    /**
+     * @return Current phase of the transit ship.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
 
-                    // Transit ship is approaching space.
+    /**
+     * Computes the current condition of the ship entity without modifying it.
+     * @return Current condition of the ship entity.
+     */
+    public int getCondition() {
+        ConditionModel model = conditionModel;
+        return model != null ? model.conditionAt(SimulationClocks.getInstance().currentTimeMillis()) : ship.getCondition();
+    }
 
-                    boolean continueMission = wait(TRANSIT_TIME);
+    /**
+     * @return ID of the ship entity that the transit ship represents.
+     */
+    public long getShipId() {
+        return ship.getId();
+    }
 
-                    if (!continueMission) {
+    /**
+     * @return true, if the ship was launched towards space. false, if it was received from space.
+     */
+    public boolean isHeadingToSpace() {
+        return direction;
+    }
 
-                        // Mission was aborted.
+    /**
+     * Requests the ship to abort its mission. The request is handled on the timing wheel.
+     */
+    public void requestAbort() {
+        abortMission = true;
+        TimingWheel.getInstance().execute(ship.getId(), this::handleAbort);
+    }
 
-                        missionCompleted = false;
-                        logger.warn("Ship with ID " + ship.getId() + " has aborted its mission. It is returning now.");
-                        ship.setStatus("INBOUND");
-                        ship = saveShipToRepository.apply(ship);
+    private void moveToSpace() {
+        phase = Phase.OUTBOUND;
+        waitFor(2 * getTransitTime(), this::enterSpace);
+    }
 
-                        continue;
-                    }
+    private void moveToSurface() {
+        phase = Phase.INBOUND;
+        waitFor(2 * getTransitTime(), this::land);
+    }
 
-                    // Attempt to connect to space module.
+    /**
+     * Cuts the outbound trip short, if the mission was aborted before reaching space.
+     */
+    private void handleAbort() {
+        if (!abortMission || phase != Phase.OUTBOUND || pendingTimeout == null || !pendingTimeout.cancel()) {
+            return;
+        }
 
-                    boolean enteredSpace = sendShipToSpace();
+        missionCompleted = false;
+        logger.warn("Ship with ID " + ship.getId() + " has aborted its mission. It is returning now.");
+        ship.setStatus("INBOUND");
+        saveShip();
 
-                    if (enteredSpace) {
+        moveToSurface();
+    }
 
-                        // Transit ship successfully connected to space module.
+    /**
+     * Transit ship is approaching space. Connecting to space module is attempted.
+     */
+    private void enterSpace() {
+        phase = Phase.ENTERING_SPACE;
+        connectionAttempts = 0;
+        waitFor(getRetryTime(), this::sendShipToSpace);
+    }
 
-                        logger.info("Ship with ID " + ship.getId() + " has entered space.");
-                        ship.setStatus("ACTIVE");
-                        ship = saveShipToRepository.apply(ship);
+    /**
+     * Hands the ship over to the space module, together with other ships that are entering
+     * space at about the same time. The request does not block: its result is handled on the
+     * timing wheel once the space module has responded. If the circuit breaker of the space
+     * module does not let the request through, the ship is parked instead.
+     */
+    private void sendShipToSpace() {
+        if (!SpaceClient.getInstance().getCircuitBreaker().allowRequest()) {
+            park();
+            return;
+        }
 
-                        // Transit ship is no longer needed.
+        materializeCondition();
+        HandoffAggregator.getInstance().handOff(ship).thenAccept(enteredSpace ->
+            TimingWheel.getInstance().execute(ship.getId(), () -> handleConnectionResult(enteredSpace)));
+    }
 
-                        concluded = true;
+    /**
+     * Parks the transit ship until the circuit breaker of the space module closes. The ship
+     * holds no thread while it is parked. If the breaker does not close before the next
+     * connection attempt would have been made, the attempt counts as failed.
+     */
+    private void park() {
+        Runnable callback = () -> TimingWheel.getInstance().execute(ship.getId(), this::unpark);
+        parkedCallback = callback;
+        parkCount.incrementAndGet();
+        logger.debug("Ship with ID " + ship.getId() + " is waiting for space module to become available.");
+
+        waitFor(getRetryDelay(connectionAttempts + 1), this::handleParkTimeout);
+        SpaceClient.getInstance().getCircuitBreaker().park(callback);
+    }
 
-                        return;
+    /**
+     * Circuit breaker of the space module lets requests through again.
+     */
+    private void unpark() {
+        if (parkedCallback == null) {
+            return;
+        }
+        parkedCallback = null;
+        if (pendingTimeout != null) {
+            pendingTimeout.cancel();
+        }
+        sendShipToSpace();
+    }
 
-                    } else {
+    /**
+     * Circuit breaker of the space module did not close in time.
+     */
+    private void handleParkTimeout() {
+        if (parkedCallback == null) {
+            return;
+        }
+        SpaceClient.getInstance().getCircuitBreaker().unpark(parkedCallback);
+        parkedCallback = null;
+        handleConnectionResult(false);
+    }
 
-                        // Transit ship failed to connect to space module after multiple attempts.
+    /**
+     * Handles the outcome of a connection attempt to space module.
+     * @param enteredSpace true, if the ship was sent successfully.
+     */
+    private void handleConnectionResult(boolean enteredSpace) {
+        connectionAttempts++;
 
-                        logger.warn("Ship with ID " + ship.getId() + " is unable to enter space. It is making a return trip.");
-                        ship.setStatus("INBOUND");
-                        ship = saveShipToRepository.apply(ship);
-                    }
-                    
-                } else if (ship.getStatus().equals("INBOUND")) {
+        if (enteredSpace) {
 
-                    // Transit ship is approaching land.
+            // Transit ship successfully connected to space module.
 
-                    wait(TRANSIT_TIME);
-                    logger.info("Ship with ID " + ship.getId() + " is attempting to land.");
-                    ship.setStatus("LANDING");
-                    ship = saveShipToRepository.apply(ship);
+            logger.info("Ship with ID " + ship.getId() + " has entered space.");
+            ship.setStatus("ACTIVE");
+            materializeCondition();
 
-                    // Transit ship is landing.
+            // Transit ship is no longer needed, once the ship entity has been saved.
 
-                    wait(TRANSIT_TIME);
-                    String shipStatus;
-                    if (ship.getCondition() == 0) {
-                        logger.info("Ship with ID " + ship.getId() + " has crashed.");
-                        shipStatus = "CRASHED";
-                    } else if (ship.getCondition() < (ship.getPeakCondition() / 10)) {
-                        logger.info("Ship with ID " + ship.getId() + " has landed in a broken state.");
-                        shipStatus = "BROKEN";
-                    } else {
-                        logger.info("Ship with ID " + ship.getId() + " has landed.");
-                        shipStatus = "READY";
-                    }
+            persist(null, this::conclude);
 
-                    // Transit ship has landed. Ship entity's mission marked as
-                    // completed if it was not aborted.
+        } else if (connectionAttempts < RETRY_CONNECTION_COUNT) {
+            long delay = getRetryDelay(connectionAttempts);
+            logger.warn("Ship with ID " + ship.getId() + " failed to connect to space. "
+                + "Remaining attempts: " + (RETRY_CONNECTION_COUNT - connectionAttempts) + ". Retrying in " + delay + " ms.");
+            retryCount.incrementAndGet();
+            waitFor(delay, this::sendShipToSpace);
 
-                    // The mission is moved to past missions regardless of its outcome.
+        } else {
 
-                    Mission mission = ship.getMission();
-                    mission.setCompleted(missionCompleted);
-                    mission.setArrivalTime(Timestamp.from(Instant.now()));
-                    saveMissionToRepository.apply(mission);
-                    
-                    ship.getPastMissions().add(mission);
-                    ship.setStatus(shipStatus);
-                    ship.setMission(null);
-                    ship = saveShipToRepository.apply(ship);
+            // Transit ship failed to connect to space module after multiple attempts.
 
-                    // Transit ship is no longer needed.
+            logger.warn("Ship with ID " + ship.getId() + " is unable to enter space. It is making a return trip.");
+            returnCount.incrementAndGet();
+            ship.setStatus("INBOUND");
+            saveShip();
 
-                    concluded = true;
-                    
-                    return;
-                }
-            }
-            
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+            moveToSurface();
         }
     }
 
-    private void moveToSurface() {
-        try {
-            while (true) {
-                wait(TRANSIT_TIME);
-
-                if (ship.getStatus().equals("INBOUND")) {
-
-                    // Transit ship is approaching land.
-
-                    wait(TRANSIT_TIME);
-                    logger.info("Ship with ID " + ship.getId() + " is attempting to land.");
-                    ship.setStatus("LANDING");
-                    ship = saveShipToRepository.apply(ship);
-
-                    // Transit ship is landing.
-
-                    wait(TRANSIT_TIME);
-                    String shipStatus;
-                    if (ship.getCondition() == 0) {
-                        logger.info("Ship with ID " + ship.getId() + " has crashed.");
-                        shipStatus = "CRASHED";
-                    } else if (ship.getCondition() < (ship.getPeakCondition() / 10)) {
-                        logger.info("Ship with ID " + ship.getId() + " has landed in a broken state.");
-                        shipStatus = "BROKEN";
-                    } else {
-                        logger.info("Ship with ID " + ship.getId() + " has landed.");
-                        shipStatus = "READY";
-                    }
-
-                    // Transit ship has landed. Ship entity's mission marked as
-                    // completed.
-
-                    Mission mission = ship.getMission();
-                    mission.setCompleted(missionCompleted);
-                    mission.setArrivalTime(Timestamp.from(Instant.now()));
-                    saveMissionToRepository.apply(mission);
-                    
-                    ship.getPastMissions().add(mission);
-                    ship.setStatus(shipStatus);
-                    ship.setMission(null);
-                    ship = saveShipToRepository.apply(ship);
+    /**
+     * Transit ship is approaching land. Once the landing is over, the ship entity's
+     * mission is concluded.
+     */
+    private void land() {
+        phase = Phase.LANDING;
+        logger.info("Ship with ID " + ship.getId() + " is attempting to land.");
+        ship.setStatus("LANDING");
+        saveShip();
 
-                    // Transit ship is no longer needed.
+        waitFor(getTransitTime(), this::touchDown);
+    }
 
-                    concluded = true;
-                    
-                    return;
-                }
-            }
-            
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    /**
+     * Transit ship has landed. The ship entity's mission is concluded.
+     */
+    private void touchDown() {
+        materializeCondition();
+        String shipStatus;
+        if (ship.getCondition() == 0) {
+            logger.info("Ship with ID " + ship.getId() + " has crashed.");
+            shipStatus = "CRASHED";
+        } else if (ship.getCondition() < (ship.getPeakCondition() / 10)) {
+            logger.info("Ship with ID " + ship.getId() + " has landed in a broken state.");
+            shipStatus = "BROKEN";
+        } else {
+            logger.info("Ship with ID " + ship.getId() + " has landed.");
+            shipStatus = "READY";
         }
+
+        // Transit ship has landed. Ship entity's mission marked as
+        // completed if it was not aborted.
+
+        // The mission is moved to past missions regardless of its outcome.
+
+        Mission mission = ship.getMission();
+        mission.setCompleted(missionCompleted);
+        mission.setArrivalTime(SimulationClocks.getInstance().now());
+        
+        ship.getPastMissions().add(mission);
+        ship.setStatus(shipStatus);
+        ship.setMission(null);
+
+        // Transit ship is no longer needed, once the mission and the ship entity have been saved.
+
+        persist(mission, this::conclude);
     }
 
     /**
-     * Attempts to send Http requests that contains details of the ship,
-     * to the space module a set number of times.
-     * @return true, if the ship was sent successfully. false otherwise.
-     * @throws InterruptedException
+     * Transit ship is no longer needed. It is removed from the registry.
      */
-    private boolean sendShipToSpace() throws InterruptedException {
-        boolean enteredSpace = false;
-        for (int i = 0; i < RETRY_CONNECTION_COUNT; i++) {
-            wait(RETRY_TIME);
-            if (HttpUtils.sendShip(ship)) {
-                enteredSpace = true;
-                break;
-            } else if (i != RETRY_CONNECTION_COUNT - 1) {
-                logger.warn("Ship with ID " + ship.getId() + " failed to connect to space. "
-                    + "Remaining attempts: " + (RETRY_CONNECTION_COUNT - i - 1));
-            }
+    private void conclude() {
+        phase = Phase.CONCLUDED;
+        pendingTimeout = null;
+        TransitRegistry.getInstance().deregister(this);
+        SimulationJournal.getInstance().append(JournalRecord.removed(ship.getId()));
+    }
 
-        }
+    /**
+     * Utility function for waiting. Schedules the next step on the timing wheel. Nothing is
+     * done for the ship entity until the wait is over. The wait is recorded in the simulation
+     * journal, so that it can be resumed after a restart.
+     * @param time How long must be waited (milliseconds).
+     * @param next Step that is taken once the wait is over.
+     */
+    private void waitFor(long time, Runnable next) {
+        pendingTimeout = TimingWheel.getInstance().schedule(ship.getId(), time, next);
+        SimulationJournal.getInstance().append(JournalRecord.transit(ship.getId(), phase.ordinal(), direction,
+            missionCompleted, connectionAttempts, pendingTimeout.getDeadline(), conditionModel.getSeed(),
+            conditionModel.getStartTime(), conditionModel.getStartCondition()));
+    }
 
-        return enteredSpace;
+    /**
+     * Computes the delay before the next connection attempt: exponential backoff with jitter,
+     * so that ships that failed together do not retry together.
+     * @param failedAttempts Number of failed connection attempts so far. At least 1.
+     * @return Delay (milliseconds). Between half of and the full backoff delay.
+     */
+    private static long getRetryDelay(int failedAttempts) {
+        return getRetryDelay(failedAttempts, getRetryTime(), getMaxRetryTime());
     }
 
     /**
-     * Utility function for waiting. Includes condition degradation checks.
-     * @param time How long must be waited (milliseconds).
-     * @return true, if the mission was not aborted. false otherwise.
-     * @throws InterruptedException
-     */
-    private boolean wait(int time) throws InterruptedException {
-        for (int i = 0; i < time / CONDITION_DEGRADATION_FREQUENCY; i++) {
-            Thread.sleep(CONDITION_DEGRADATION_FREQUENCY);
-            double degradationRoll = random.nextDouble();
-            if (degradationRoll < CONDITION_DEGRADATION_RATE && ship.getCondition() > 0) {
-                ship.setCondition(ship.getCondition() - 1);
-                ship = saveShipToRepository.apply(ship);
-            }
+     * Computes the delay before the next connection attempt, see getRetryDelay(int).
+     * @param failedAttempts Number of failed connection attempts so far. At least 1.
+     * @param baseDelay Backoff delay after the first failed attempt (milliseconds).
+     * @param maxDelay Upper limit for the backoff delay (milliseconds).
+     * @return Delay (milliseconds). Between half of and the full backoff delay.
+     */
+    static long getRetryDelay(int failedAttempts, long baseDelay, long maxDelay) {
+        long delay = Math.min(maxDelay, baseDelay << Math.min(20, Math.max(0, failedAttempts - 1)));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
 
-            if (abortMission && ship.getStatus().equals("OUTBOUND")) {
-                return false;
+    /**
+     * Writes the current condition into the ship entity.
+     */
+    private void materializeCondition() {
+        ship.setCondition(getCondition());
+    }
+
+    /**
+     * Saves the ship entity, together with its current condition.
+     */
+    private void saveShip() {
+        materializeCondition();
+        persist(null, null);
+    }
+
+    /**
+     * Saves a snapshot of the ship entity on the persistence executor. The transit ship keeps
+     * using its own ship entity, which only the timing wheel modifies.
+     * @param mission Mission entity that is saved before the ship entity, or null.
+     * @param next Step that is taken on the timing wheel once the ship entity has been saved
+     * (or saving it has failed), or null.
+     */
+    private void persist(Mission mission, Runnable next) {
+        long shipId = ship.getId();
+        Ship snapshot = ship.copy();
+        PersistenceExecutor.getInstance().execute(shipId, () -> {
+            try {
+                if (mission != null) {
+                    saveMissionToRepository.apply(mission);
+                }
+                saveShipToRepository.apply(snapshot);
+            } finally {
+                if (next != null) {
+                    TimingWheel.getInstance().execute(shipId, next);
+                }
             }
-        }
-        return true;
+        });
     }
 }
@@ -0,0 +1,219 @@
+package org.tt.field.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.domain.Ship;
+import org.tt.field.utils.ConcurrentLongMap;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Write-behind buffer between the simulators and the ship repository. Saved ships are only
+ * marked as dirty: repeated saves of the same ship are coalesced, and dirty ships are written
+ * to the repository in batches, either periodically or once enough of them have piled up.
+ * Ships that reach a terminal state are written right away.
+ *
+ * The buffer keeps a snapshot of every dirty ship (see Ship.copy), taken when the ship is
+ * saved. Simulators keep modifying their own ship entities while a flush runs, and those
+ * changes are only written once the ship is saved again.
+ *
+ * @author terratenff
+ */
+public class WriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    private static WriteBehindBuffer instance;
+
+    /**
+     * How often dirty ships are written to the repository (milliseconds).
+     */
+    private static final int FLUSH_INTERVAL = PropertyUtils.getInteger("org.tt.field.core.WriteBehindBuffer.FLUSH_INTERVAL", 1000);
+
+    /**
+     * Number of dirty ships that triggers a flush before the interval is up.
+     */
+    private static final int FLUSH_THRESHOLD = PropertyUtils.getInteger("org.tt.field.core.WriteBehindBuffer.FLUSH_THRESHOLD", 500);
+
+    /**
+     * At most this many ships are written to the repository at once.
+     */
+    private static final int BATCH_SIZE = PropertyUtils.getInteger("org.tt.field.core.WriteBehindBuffer.BATCH_SIZE", 50);
+
+    /**
+     * Ship statuses that are written to the repository immediately.
+     */
+    private static final Set<String> TERMINAL_STATUSES = Set.of("READY", "BROKEN", "CRASHED", "ACTIVE", "DECOMMISSIONED");
+
+    /**
+     * Getter for singleton instance.
+     * @return WriteBehindBuffer. Note that it must be initialized separately.
+     */
+    public static synchronized WriteBehindBuffer getInstance() {
+        if (instance == null) {
+            instance = new WriteBehindBuffer();
+        }
+        return instance;
+    }
+
+    /**
+     * A function that is expected to save a batch of ship entities to their repository.
+     */
+    private Function<List<Ship>, List<Ship>> saveShipsToRepository;
+
+    /**
+     * Snapshots of dirty ships by ship ID. Only the latest state of a ship is kept.
+     */
+    private final ConcurrentLongMap<Ship> dirtyShips = new ConcurrentLongMap<Ship>();
+
+    /**
+     * Flushes are serialized, so that an older state of a ship cannot overwrite a newer one.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Determines whether a threshold-triggered flush has already been requested.
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private ScheduledExecutorService flusher;
+
+    private volatile boolean initialized = false;
+
+    private WriteBehindBuffer() {}
+
+    /**
+     * Initializes the buffer and starts periodic flushing.
+     * @param callbackShips Function that must save a batch of ship entities to their repository.
+     */
+    public synchronized void initialize(Function<List<Ship>, List<Ship>> callbackShips) {
+        saveShipsToRepository = callbackShips;
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Checks if the buffer has been initialized.
+     * @return true / false
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Saves a ship entity. Ships in a terminal state are written immediately, others are
+     * marked as dirty and written later. Changes that are made to the ship entity after this
+     * call are not written, unless the ship is saved again.
+     * @param ship Ship entity.
+     * @return Ship entity that the caller should keep using.
+     * @throws IllegalStateException The buffer must be initialized first.
+     */
+    public Ship save(Ship ship) throws IllegalStateException {
+        if (!initialized) {
+            throw new IllegalStateException("Write-behind buffer has not been initialized.");
+        }
+
+        if (TERMINAL_STATUSES.contains(ship.getStatus())) {
+            return flush(ship);
+        }
+
+        if (dirtyShips.put(ship.getId(), ship.copy()) == null
+            && dirtyShips.size() >= FLUSH_THRESHOLD
+            && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+        return ship;
+    }
+
+    /**
+     * Writes specified ship entity to the repository right away.
+     * @param ship Ship entity.
+     * @return Saved ship entity.
+     */
+    public Ship flush(Ship ship) {
+        flushLock.lock();
+        try {
+            dirtyShips.remove(ship.getId());
+            return saveShipsToRepository.apply(List.of(ship)).get(0);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes pending changes of specified ship entity to the repository, if there are any.
+     * Use this before reading a ship entity that a simulator may have modified.
+     * @param shipId ID of the ship entity.
+     */
+    public void flush(long shipId) {
+        if (!initialized || dirtyShips.get(shipId) == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Ship ship = dirtyShips.remove(shipId);
+            if (ship != null) {
+                saveShipsToRepository.apply(List.of(ship));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every dirty ship entity to the repository in batches.
+     */
+    public void flush() {
+        flushRequested.set(false);
+        if (!initialized || dirtyShips.size() == 0) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            List<Ship> ships = dirtyShips.values();
+            for (int i = 0; i < ships.size(); i += BATCH_SIZE) {
+                List<Ship> batch = new ArrayList<Ship>(ships.subList(i, Math.min(ships.size(), i + BATCH_SIZE)));
+                for (Ship ship : batch) {
+                    dirtyShips.remove(ship.getId(), ship);
+                }
+                try {
+                    saveShipsToRepository.apply(batch);
+                } catch (RuntimeException e) {
+
+                    // Failed ships are marked dirty again, unless a newer state has arrived meanwhile.
+
+                    logger.error("Failed to write " + batch.size() + " ships to the repository: " + e.getMessage());
+                    for (Ship ship : batch) {
+                        dirtyShips.putIfAbsent(ship.getId(), ship);
+                    }
+                }
+            }
+            logger.debug(ships.size() + " ships were written to the repository.");
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of ships that are waiting to be written to the repository.
+     */
+    public int getDirtyCount() {
+        return dirtyShips.size();
+    }
+}
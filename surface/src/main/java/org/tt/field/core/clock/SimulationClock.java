@@ -0,0 +1,57 @@
+package org.tt.field.core.clock;
+
+import java.sql.Timestamp;
+
+/**
+ * Source of time for the simulators. Every simulated delay and every timestamp that the
+ * simulators produce goes through a simulation clock, so that simulated time can be
+ * decoupled from wall-clock time.
+ * 
+ * @author terratenff
+ */
+public interface SimulationClock {
+
+    /**
+     * @return Current simulated time (epoch milliseconds).
+     */
+    long currentTimeMillis();
+
+    /**
+     * Blocks the calling thread until specified amount of simulated time has passed.
+     * @param millis Simulated time to wait (milliseconds).
+     * @throws InterruptedException
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Registers the calling thread as a worker of the simulation. Clocks that skip simulated
+     * time (see VirtualClock) only do so while every worker is parked.
+     */
+    default void registerWorker() {}
+
+    /**
+     * Deregisters the calling thread as a worker of the simulation.
+     */
+    default void deregisterWorker() {}
+
+    /**
+     * Marks the calling worker as parked while it waits for something other than the clock,
+     * such as a ship to arrive in a queue. Sleeping on the clock parks a worker by itself.
+     * @return true, if the worker was parked by this call, and must be unparked afterwards.
+     */
+    default boolean park() {
+        return false;
+    }
+
+    /**
+     * Marks the calling worker as busy again after park().
+     */
+    default void unpark() {}
+
+    /**
+     * @return Current simulated time as a timestamp.
+     */
+    default Timestamp now() {
+        return new Timestamp(currentTimeMillis());
+    }
+}
@@ -0,0 +1,79 @@
+package org.tt.field.core.clock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Provides the simulation clock that has been selected in application.properties.
+ * 
+ * @author terratenff
+ */
+public class SimulationClocks {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationClocks.class);
+
+    /**
+     * Clock type: "wall" or "virtual".
+     */
+    private static final String MODE = PropertyUtils.getString("org.tt.field.core.clock.MODE", WallClock.NAME);
+
+    /**
+     * How many times faster than wall-clock time a virtual clock runs.
+     */
+    private static final int SPEED = PropertyUtils.getInteger("org.tt.field.core.clock.SPEED", 1);
+
+    /**
+     * Determines whether a virtual clock jumps straight to the next scheduled event.
+     */
+    private static final boolean JUMP = PropertyUtils.getBoolean("org.tt.field.core.clock.JUMP", false);
+
+    private static SimulationClock instance;
+
+    private SimulationClocks() {}
+
+    /**
+     * Getter for the shared simulation clock.
+     * @return SimulationClock of the configured type.
+     */
+    public static synchronized SimulationClock getInstance() {
+        if (instance == null) {
+            if (VirtualClock.NAME.equalsIgnoreCase(MODE)) {
+                instance = new VirtualClock(SPEED, JUMP);
+                logger.info("Simulators use a virtual clock. Speed: " + SPEED + "x, jumps: " + JUMP + ".");
+            } else {
+                if (!WallClock.NAME.equalsIgnoreCase(MODE)) {
+                    logger.warn("Unknown clock mode '" + MODE + "'. Falling back to wall-clock time.");
+                }
+                instance = new WallClock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Wraps a simulator loop so that its thread is registered as a worker of the shared
+     * simulation clock for as long as the loop runs.
+     * @param loop Simulator loop, such as that of a launch pad.
+     * @return Task that runs the loop.
+     */
+    public static Runnable asWorker(Runnable loop) {
+        return () -> {
+            SimulationClock clock = getInstance();
+            clock.registerWorker();
+            try {
+                loop.run();
+            } finally {
+                clock.deregisterWorker();
+            }
+        };
+    }
+
+    /**
+     * Replaces the shared simulation clock. Must be done before the simulators are started.
+     * @param clock New simulation clock.
+     */
+    public static synchronized void setInstance(SimulationClock clock) {
+        instance = clock;
+    }
+}
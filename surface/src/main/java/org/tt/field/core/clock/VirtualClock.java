@@ -0,0 +1,223 @@
+package org.tt.field.core.clock;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Simulation clock whose time runs at a multiple of wall-clock speed, and which can be moved
+ * forward on demand. In jump mode, the clock moves straight to the next scheduled event
+ * whenever it can, so idle simulated time costs no wall-clock time at all.
+ *
+ * A jump is only made while every registered worker (see registerWorker) is parked: sleeping
+ * on the clock or waiting for work. A worker that is busy, for example writing to a
+ * repository between two sleeps, holds simulated time back to wall-clock speed until it
+ * parks again. Work that runs on threads that are not registered, such as requests to the
+ * space module, does not hold jumps back.
+ * 
+ * @author terratenff
+ */
+public class VirtualClock implements SimulationClock {
+
+    public static final String NAME = "virtual";
+
+    /**
+     * How often the clock jumps to the next event in jump mode (wall-clock milliseconds).
+     */
+    private static final long JUMP_INTERVAL = 10;
+
+    /**
+     * How many simulated milliseconds pass per wall-clock millisecond.
+     */
+    private final double speed;
+
+    private final long realBase = System.nanoTime();
+    private final long virtualBase;
+
+    /**
+     * Simulated time that has been skipped with advance() or jumps (milliseconds).
+     */
+    private volatile long offset = 0;
+
+    /**
+     * Deadlines of the threads that are currently sleeping on the clock.
+     */
+    private final PriorityQueue<Long> sleepers = new PriorityQueue<Long>();
+
+    /**
+     * Worker state of the calling thread, or null if it is not a registered worker.
+     */
+    private final ThreadLocal<Worker> worker = new ThreadLocal<Worker>();
+
+    /**
+     * Number of registered workers that are not parked. Guarded by the clock.
+     */
+    private int busyWorkers = 0;
+
+    /**
+     * Other sources of scheduled events, such as the timing wheel. Each returns the time of
+     * its next event, or Long.MAX_VALUE if it has none.
+     */
+    private final List<LongSupplier> eventSources = new CopyOnWriteArrayList<LongSupplier>();
+
+    /**
+     * Virtual clock constructor. Simulated time starts from current wall-clock time.
+     * @param speed How many times faster than wall-clock time the clock runs.
+     * @param jump Determines whether the clock jumps to the next scheduled event automatically.
+     */
+    public VirtualClock(double speed, boolean jump) {
+        this.speed = speed > 0 ? speed : 1;
+        this.virtualBase = System.currentTimeMillis();
+
+        if (jump) {
+            Thread jumper = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(JUMP_INTERVAL);
+                        jumpIfIdle();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "virtual-clock");
+            jumper.setDaemon(true);
+            jumper.start();
+        }
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return virtualBase + (long) ((System.nanoTime() - realBase) / 1_000_000.0 * speed) + offset;
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        long deadline = currentTimeMillis() + millis;
+        synchronized (this) {
+            sleepers.add(deadline);
+            boolean parked = park();
+            try {
+                long now;
+                while ((now = currentTimeMillis()) < deadline) {
+                    wait(Math.max(1, (long) Math.ceil((deadline - now) / speed)));
+                }
+            } finally {
+
+                // The worker becomes busy as its deadline leaves the queue, so no jump can
+                // be made in between.
+
+                sleepers.remove(deadline);
+                if (parked) {
+                    unpark();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void registerWorker() {
+        if (worker.get() == null) {
+            worker.set(new Worker());
+            busyWorkers++;
+        }
+    }
+
+    @Override
+    public synchronized void deregisterWorker() {
+        Worker current = worker.get();
+        if (current != null) {
+            worker.remove();
+            if (!current.parked) {
+                busyWorkers--;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean park() {
+        Worker current = worker.get();
+        if (current == null || current.parked) {
+            return false;
+        }
+        current.parked = true;
+        busyWorkers--;
+        return true;
+    }
+
+    @Override
+    public synchronized void unpark() {
+        Worker current = worker.get();
+        if (current != null && current.parked) {
+            current.parked = false;
+            busyWorkers++;
+        }
+    }
+
+    /**
+     * @return Number of registered workers that are currently busy.
+     */
+    public synchronized int getBusyWorkerCount() {
+        return busyWorkers;
+    }
+
+    /**
+     * Registers a source of scheduled events for jumps.
+     * @param nextEvent Returns the time (epoch milliseconds) of the next event of the source,
+     * or Long.MAX_VALUE if there are none.
+     */
+    public void addEventSource(LongSupplier nextEvent) {
+        eventSources.add(nextEvent);
+    }
+
+    /**
+     * Moves simulated time forward. Sleeping threads whose deadlines pass wake up.
+     * @param millis Simulated time to skip (milliseconds).
+     */
+    public synchronized void advance(long millis) {
+        if (millis > 0) {
+            offset += millis;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Moves simulated time forward to the next scheduled event, but only if every registered
+     * worker is parked.
+     * @return true, if the workers were parked (whether or not there was an event to jump to).
+     */
+    public synchronized boolean jumpIfIdle() {
+        if (busyWorkers > 0) {
+            return false;
+        }
+        advanceToNextEvent();
+        return true;
+    }
+
+    /**
+     * Moves simulated time forward to the next scheduled event, unless it is already due.
+     * Busy workers are not waited for.
+     * @return Time of the next event (epoch milliseconds), or Long.MAX_VALUE if there are none.
+     */
+    public synchronized long advanceToNextEvent() {
+        long next = sleepers.isEmpty() ? Long.MAX_VALUE : sleepers.peek();
+        for (LongSupplier source : eventSources) {
+            next = Math.min(next, source.getAsLong());
+        }
+        if (next != Long.MAX_VALUE) {
+            advance(next - currentTimeMillis());
+        }
+        return next;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * State of a registered worker thread.
+     */
+    private static class Worker {
+        private boolean parked = false;
+    }
+}
@@ -0,0 +1,23 @@
+package org.tt.field.core.clock;
+
+/**
+ * Simulation clock that follows wall-clock time.
+ * 
+ * @author terratenff
+ */
+public class WallClock implements SimulationClock {
+
+    public static final String NAME = "wall";
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.tt.field.core.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Simulator executor that runs tasks on the thread of whoever drives it. Meant for tests,
+ * where simulator steps are run synchronously: execute only queues a task, and runPending
+ * runs the queued tasks on the calling thread.
+ *
+ * Simulator loops (launch pads and repair bays) never return, so they are refused by
+ * tryExecute instead of hanging the caller. Launch site and dry dock then open no pads or
+ * bays, and their queues can be inspected without anything being taken from them.
+ *
+ * @author terratenff
+ */
+public class DirectExecutor implements SimulatorExecutor {
+
+    public static final String NAME = "direct";
+
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * Queues specified task. It is run by the next call to runPending.
+     * @param task Task to be run.
+     * @throws RejectedExecutionException The executor has been shut down.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Direct executor has been shut down.");
+        }
+        pending.add(task);
+    }
+
+    /**
+     * Refuses specified task: tasks started with tryExecute hold their thread for as long
+     * as they run, which would be the caller's thread for good.
+     * @param task Task to be run.
+     * @return false.
+     */
+    @Override
+    public boolean tryExecute(Runnable task) {
+        return false;
+    }
+
+    @Override
+    public int getAvailableThreads() {
+        return 0;
+    }
+
+    /**
+     * Runs queued tasks on the calling thread, until none are left. Tasks that are queued
+     * by the tasks themselves are run as well.
+     * @return Number of tasks that were run.
+     */
+    public int runPending() {
+        int count = 0;
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of tasks that wait for runPending.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks that have already been queued can still be run
+     * with runPending.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+}
@@ -0,0 +1,91 @@
+package org.tt.field.core.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulator executor backed by a bounded pool of platform threads. Tasks that do not fit
+ * into the pool wait in a queue, unless they are started with tryExecute.
+ * 
+ * @author terratenff
+ */
+public class PlatformPoolExecutor implements SimulatorExecutor {
+
+    public static final String NAME = "platform";
+
+    private final ExecutorService pool;
+
+    private final int poolSize;
+
+    /**
+     * Number of tasks that have been started (or queued) and have not yet returned.
+     */
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    /**
+     * Platform pool executor constructor.
+     * @param poolSize Number of threads in the pool.
+     */
+    public PlatformPoolExecutor(int poolSize) {
+        this.poolSize = Math.max(1, poolSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(this.poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "simulator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        activeTasks.incrementAndGet();
+        run(task);
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task) {
+        int active;
+        do {
+            active = activeTasks.get();
+            if (active >= poolSize) {
+                return false;
+            }
+        } while (!activeTasks.compareAndSet(active, active + 1));
+        run(task);
+        return true;
+    }
+
+    @Override
+    public int getAvailableThreads() {
+        return Math.max(0, poolSize - activeTasks.get());
+    }
+
+    /**
+     * Runs a task that has already been counted as active.
+     */
+    private void run(Runnable task) {
+        try {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            activeTasks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
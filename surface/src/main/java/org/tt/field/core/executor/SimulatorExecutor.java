@@ -0,0 +1,46 @@
+package org.tt.field.core.executor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Service provider interface for the threads of the simulators. Launch site, dry dock
+ * and transit ships get every thread they need from an implementation of this interface,
+ * so that the concurrency model can be chosen per deployment.
+ * 
+ * @author terratenff
+ */
+public interface SimulatorExecutor extends Executor {
+
+    /**
+     * Runs specified task. Depending on the backend, it may run on a pooled thread,
+     * on a thread of its own or later on a thread that drives the backend.
+     * @param task Task to be run.
+     */
+    @Override
+    void execute(Runnable task);
+
+    /**
+     * Runs specified task, but only if a thread is free for it right away. Simulator loops
+     * (launch pads and repair bays) hold their thread for as long as they are open, so a loop
+     * that would wait in a queue for a thread would never run at all.
+     * @param task Task to be run.
+     * @return true, if the task was started. false, if every thread is taken.
+     */
+    boolean tryExecute(Runnable task);
+
+    /**
+     * @return Number of tasks that tryExecute would start right now, or Integer.MAX_VALUE
+     * if the backend is not bounded.
+     */
+    int getAvailableThreads();
+
+    /**
+     * @return Name of the backend, as used in application.properties.
+     */
+    String getName();
+
+    /**
+     * Stops accepting new tasks. Tasks that are already running are not interrupted.
+     */
+    void shutdown();
+}
@@ -0,0 +1,74 @@
+package org.tt.field.core.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Provides the simulator executor that has been selected in application.properties.
+ * 
+ * @author terratenff
+ */
+public class SimulatorExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatorExecutors.class);
+
+    /**
+     * Name of the executor backend: "platform", "virtual" or "direct".
+     */
+    private static final String BACKEND = PropertyUtils.getString("org.tt.field.core.executor.BACKEND", PlatformPoolExecutor.NAME);
+
+    /**
+     * Number of threads in the platform thread pool.
+     */
+    private static final int POOL_SIZE = PropertyUtils.getInteger("org.tt.field.core.executor.POOL_SIZE", 16);
+
+    private static SimulatorExecutor instance;
+
+    private SimulatorExecutors() {}
+
+    /**
+     * Getter for the shared simulator executor.
+     * @return SimulatorExecutor of the configured backend.
+     */
+    public static synchronized SimulatorExecutor getInstance() {
+        if (instance == null) {
+            instance = create(BACKEND);
+            logger.info("Simulators use the '" + instance.getName() + "' executor backend.");
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the shared simulator executor. The previous executor is shut down.
+     * Simulators that have already been initialized keep the threads they were given.
+     * @param executor New simulator executor.
+     */
+    public static synchronized void setInstance(SimulatorExecutor executor) {
+        if (instance != null && instance != executor) {
+            instance.shutdown();
+        }
+        instance = executor;
+    }
+
+    /**
+     * Creates a simulator executor by backend name. Unknown names and unsupported
+     * backends fall back to the platform thread pool.
+     * @param backend Name of the backend.
+     * @return SimulatorExecutor.
+     */
+    public static SimulatorExecutor create(String backend) {
+        if (VirtualThreadExecutor.NAME.equalsIgnoreCase(backend)) {
+            try {
+                return new VirtualThreadExecutor();
+            } catch (IllegalStateException e) {
+                logger.warn(e.getMessage() + " Falling back to platform threads.");
+            }
+        } else if (DirectExecutor.NAME.equalsIgnoreCase(backend)) {
+            return new DirectExecutor();
+        } else if (!PlatformPoolExecutor.NAME.equalsIgnoreCase(backend)) {
+            logger.warn("Unknown executor backend '" + backend + "'. Falling back to platform threads.");
+        }
+        return new PlatformPoolExecutor(POOL_SIZE);
+    }
+}
@@ -0,0 +1,59 @@
+package org.tt.field.core.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulator executor that starts a virtual thread for every task. Virtual threads require
+ * Java 21 or newer, so the executor is looked up reflectively: the application itself is
+ * still compiled for Java 11.
+ * 
+ * @author terratenff
+ */
+public class VirtualThreadExecutor implements SimulatorExecutor {
+
+    public static final String NAME = "virtual";
+
+    private final ExecutorService executor;
+
+    /**
+     * Virtual thread executor constructor.
+     * @throws IllegalStateException The running JVM does not support virtual threads.
+     */
+    public VirtualThreadExecutor() throws IllegalStateException {
+        try {
+            executor = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM: "
+                + System.getProperty("java.version"));
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task) {
+        executor.execute(task);
+        return true;
+    }
+
+    @Override
+    public int getAvailableThreads() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,226 @@
+package org.tt.field.core.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * A single entry of the simulation journal. Describes where a ship is in the simulation:
+ * in the launch queue, in the repair queue, or in transit (together with everything that is
+ * needed to resume the transit). Records have a fixed binary size, so that the journal can
+ * be read back in one sequential pass.
+ *
+ * @author terratenff
+ */
+public class JournalRecord {
+
+    /**
+     * Size of an encoded record (bytes).
+     */
+    static final int SIZE = 64;
+
+    private static final int MAGIC = 0x4A524E4C;
+    private static final int CHECKSUM_OFFSET = SIZE - 4;
+
+    private static final int FLAG_HEADING_TO_SPACE = 1;
+    private static final int FLAG_MISSION_COMPLETED = 2;
+
+    /**
+     * Kinds of journal records.
+     */
+    public enum Kind {
+        /** Ship is waiting for a launch pad, or is being launched. */
+        LAUNCH,
+        /** Ship is waiting for a repair bay, or is being repaired. */
+        REPAIR,
+        /** Ship is in transit. */
+        TRANSIT,
+        /** Ship is no longer handled by the simulators. */
+        REMOVED
+    }
+
+    private final Kind kind;
+    private final long shipId;
+
+    /**
+     * Order of the record in the journal. Assigned by the journal.
+     */
+    private long sequence = 0;
+
+    private int phase = 0;
+    private boolean headingToSpace = false;
+    private boolean missionCompleted = false;
+    private int connectionAttempts = 0;
+    private long deadline = 0;
+    private long conditionSeed = 0;
+    private long conditionStartTime = 0;
+    private int startCondition = 0;
+
+    private JournalRecord(Kind kind, long shipId) {
+        this.kind = kind;
+        this.shipId = shipId;
+    }
+
+    /**
+     * Creates a record of a ship that entered the launch queue.
+     * @param shipId ID of the ship entity.
+     * @return JournalRecord.
+     */
+    public static JournalRecord launch(long shipId) {
+        return new JournalRecord(Kind.LAUNCH, shipId);
+    }
+
+    /**
+     * Creates a record of a ship that entered the repair queue.
+     * @param shipId ID of the ship entity.
+     * @return JournalRecord.
+     */
+    public static JournalRecord repair(long shipId) {
+        return new JournalRecord(Kind.REPAIR, shipId);
+    }
+
+    /**
+     * Creates a record of a ship in transit.
+     * @param shipId ID of the ship entity.
+     * @param phase Ordinal of the transit phase.
+     * @param headingToSpace true, if the ship was launched towards space.
+     * @param missionCompleted false, if the mission has been aborted.
+     * @param connectionAttempts How many times the ship has attempted to connect to space.
+     * @param deadline Point of time (epoch milliseconds) at which the current phase ends.
+     * @param conditionSeed Seed of the condition model.
+     * @param conditionStartTime Start time of the condition model (epoch milliseconds).
+     * @param startCondition Condition of the ship at the start of the transit.
+     * @return JournalRecord.
+     */
+    public static JournalRecord transit(long shipId, int phase, boolean headingToSpace,
+        boolean missionCompleted, int connectionAttempts, long deadline,
+        long conditionSeed, long conditionStartTime, int startCondition) {
+            JournalRecord record = new JournalRecord(Kind.TRANSIT, shipId);
+            record.phase = phase;
+            record.headingToSpace = headingToSpace;
+            record.missionCompleted = missionCompleted;
+            record.connectionAttempts = connectionAttempts;
+            record.deadline = deadline;
+            record.conditionSeed = conditionSeed;
+            record.conditionStartTime = conditionStartTime;
+            record.startCondition = startCondition;
+            return record;
+    }
+
+    /**
+     * Creates a record of a ship that is no longer handled by the simulators.
+     * @param shipId ID of the ship entity.
+     * @return JournalRecord.
+     */
+    public static JournalRecord removed(long shipId) {
+        return new JournalRecord(Kind.REMOVED, shipId);
+    }
+
+    /**
+     * Encodes the record.
+     * @param generation Journal generation that the record belongs to.
+     * @return Encoded record of SIZE bytes.
+     */
+    byte[] encode(int generation) {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) kind.ordinal());
+        buffer.put((byte) phase);
+        buffer.put((byte) ((headingToSpace ? FLAG_HEADING_TO_SPACE : 0) | (missionCompleted ? FLAG_MISSION_COMPLETED : 0)));
+        buffer.put((byte) 0);
+        buffer.putInt(connectionAttempts);
+        buffer.putInt(startCondition);
+        buffer.putLong(shipId);
+        buffer.putLong(sequence);
+        buffer.putLong(deadline);
+        buffer.putLong(conditionSeed);
+        buffer.putLong(conditionStartTime);
+        buffer.putInt(generation);
+        buffer.putInt(checksum(buffer.array()));
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a record.
+     * @param buffer Buffer positioned at the start of the record. The position is moved past it.
+     * @param generation Journal generation that the record must belong to.
+     * @return JournalRecord, or null if there is no valid record of the generation at the position.
+     */
+    static JournalRecord decode(ByteBuffer buffer, int generation) {
+        byte[] bytes = new byte[SIZE];
+        buffer.get(bytes);
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        if (data.getInt(0) != MAGIC || data.getInt(CHECKSUM_OFFSET) != checksum(bytes) || data.getInt(CHECKSUM_OFFSET - 4) != generation) {
+            return null;
+        }
+
+        int kind = data.get(4);
+        if (kind < 0 || kind >= Kind.values().length) {
+            return null;
+        }
+        JournalRecord record = new JournalRecord(Kind.values()[kind], data.getLong(16));
+        record.sequence = data.getLong(24);
+        record.phase = data.get(5);
+        record.headingToSpace = (data.get(6) & FLAG_HEADING_TO_SPACE) != 0;
+        record.missionCompleted = (data.get(6) & FLAG_MISSION_COMPLETED) != 0;
+        record.connectionAttempts = data.getInt(8);
+        record.startCondition = data.getInt(12);
+        record.deadline = data.getLong(32);
+        record.conditionSeed = data.getLong(40);
+        record.conditionStartTime = data.getLong(48);
+        return record;
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, CHECKSUM_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getShipId() {
+        return shipId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public boolean isHeadingToSpace() {
+        return headingToSpace;
+    }
+
+    public boolean isMissionCompleted() {
+        return missionCompleted;
+    }
+
+    public int getConnectionAttempts() {
+        return connectionAttempts;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public long getConditionSeed() {
+        return conditionSeed;
+    }
+
+    public long getConditionStartTime() {
+        return conditionStartTime;
+    }
+
+    public int getStartCondition() {
+        return startCondition;
+    }
+}
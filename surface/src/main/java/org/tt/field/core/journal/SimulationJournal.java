@@ -0,0 +1,563 @@
+package org.tt.field.core.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * Crash-safe journal of simulator state. Every time a ship enters or leaves a queue, or its
+ * transit moves to another phase, a fixed-size record is appended to a memory-mapped journal
+ * file. The latest state of every ship is also kept in memory, and it is periodically written
+ * into a compacted snapshot file, after which the journal starts over.
+ *
+ * On startup, the snapshot and the journal are read back in one sequential pass, so recovery
+ * time is bounded by the snapshot interval rather than by the size of the fleet. Records are
+ * written to the operating system's page cache as they are appended, so they survive a crash
+ * of the application, and the files are forced to disk whenever a snapshot is taken.
+ *
+ * The journal file is split into two regions, which generations of the journal use in turns.
+ * A snapshot switches appends over to the region of a new generation, copies the state, and
+ * writes the copy to disk without holding up appends. The region of the previous generation
+ * is kept until the snapshot is on disk, so a crash in the middle of a snapshot loses nothing:
+ * the previous snapshot and both regions are replayed instead. Records that a snapshot already
+ * includes are recognized by their sequence number and skipped.
+ *
+ * Every record is written to the journal file before append returns. If a region fills up
+ * while the snapshot of its generation is on disk, appends simply move on to the other region.
+ * Otherwise the append waits for a snapshot first, so that the region it needs is free.
+ *
+ * @author terratenff
+ */
+public class SimulationJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationJournal.class);
+    private static SimulationJournal instance;
+
+    /**
+     * Determines whether simulator state is journaled at all.
+     */
+    private static final boolean ENABLED = PropertyUtils.getBoolean("org.tt.field.core.journal.ENABLED", true);
+
+    /**
+     * Directory of the journal and snapshot files.
+     */
+    private static final String DIRECTORY = PropertyUtils.getString("org.tt.field.core.journal.DIRECTORY", "journal");
+
+    /**
+     * Size of the memory-mapped journal file (bytes), both regions included. A snapshot is
+     * taken early once the region in use is half full. Appends only wait for a snapshot if
+     * a region fills up before the snapshot of the previous region has been written.
+     */
+    private static final int CAPACITY = PropertyUtils.getInteger("org.tt.field.core.journal.CAPACITY", 4194304);
+
+    /**
+     * How often a snapshot is taken (milliseconds).
+     */
+    private static final int SNAPSHOT_INTERVAL = PropertyUtils.getInteger("org.tt.field.core.journal.SNAPSHOT_INTERVAL", 60000);
+
+    private static final String JOURNAL_FILE = "simulation.journal";
+    private static final String SNAPSHOT_FILE = "simulation.snapshot";
+
+    private static final int JOURNAL_MAGIC = 0x4A484452;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+
+    /**
+     * Journal records of a region start after a header that holds the magic number and the
+     * generation of the region.
+     */
+    private static final int HEADER_SIZE = JournalRecord.SIZE;
+
+    /**
+     * Getter for singleton instance. The journal is opened and read back on first use.
+     * @return SimulationJournal.
+     */
+    public static synchronized SimulationJournal getInstance() {
+        if (instance == null) {
+            if (ENABLED) {
+                instance = new SimulationJournal(Paths.get(DIRECTORY), CAPACITY, SNAPSHOT_INTERVAL);
+            } else {
+                logger.info("Simulation journal is disabled.");
+                instance = new SimulationJournal();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Latest record of every ship that the simulators are handling, by ship ID.
+     */
+    private final Map<Long, JournalRecord> state = new HashMap<Long, JournalRecord>();
+
+    /**
+     * Records that were read back on startup, in journal order.
+     */
+    private List<JournalRecord> recoveredRecords = new ArrayList<JournalRecord>();
+
+    private Path directory;
+    private FileChannel journalChannel;
+    private MappedByteBuffer journal;
+
+    /**
+     * Size of a region of the journal file (bytes).
+     */
+    private int regionSize;
+
+    /**
+     * Generation that records are appended to. Generation g uses region (g mod 2).
+     */
+    private int generation = 0;
+
+    /**
+     * Generation of the latest snapshot that is on disk. While it lags behind the generation
+     * of appends, the region of the previous generation must be kept.
+     */
+    private int snapshotGeneration = 0;
+
+    /**
+     * Highest generation that was found on disk on startup, readable or not.
+     */
+    private int highestGeneration = 0;
+
+    /**
+     * Write position of the next record in the region of the current generation.
+     */
+    private int position = HEADER_SIZE;
+
+    private long nextSequence = 0;
+
+    /**
+     * Sequence number of the first record that the snapshot read on startup does not include.
+     */
+    private long snapshotSequence = 0;
+
+    /**
+     * Determines whether records are only kept in memory, because the region in use is full
+     * and a snapshot could not be written to free the other one.
+     */
+    private boolean full = false;
+
+    private boolean enabled = false;
+
+    /**
+     * Snapshots are taken one at a time. Appends do not wait for this lock.
+     */
+    private final Object snapshotLock = new Object();
+
+    /**
+     * Determines whether an early snapshot has been requested but not yet started.
+     */
+    private final AtomicBoolean snapshotRequested = new AtomicBoolean(false);
+
+    private ScheduledExecutorService snapshotter;
+
+    /**
+     * Constructor of a disabled journal.
+     */
+    private SimulationJournal() {}
+
+    /**
+     * Opens the journal and reads it back.
+     * @param directory Directory of the journal and snapshot files.
+     * @param capacity Size of the journal file (bytes).
+     * @param snapshotInterval How often a snapshot is taken (milliseconds).
+     */
+    SimulationJournal(Path directory, int capacity, long snapshotInterval) {
+        try {
+            this.directory = directory;
+            Files.createDirectories(directory);
+            boolean snapshotRead = readSnapshot();
+            openJournal(capacity, snapshotRead);
+            enabled = true;
+        } catch (IOException e) {
+            logger.error("Simulation journal could not be opened. Simulator state will not survive a restart: " + e.getMessage());
+            return;
+        }
+
+        recoveredRecords = new ArrayList<JournalRecord>(state.values());
+        recoveredRecords.sort(Comparator.comparingLong(JournalRecord::getSequence));
+        logger.info("Simulation journal recovered " + recoveredRecords.size() + " ships.");
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // The recovered state is compacted right away, so that the journal starts over.
+
+        snapshot();
+
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfChanged, snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks if the journal is in use.
+     * @return true / false
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes the records that were read back on startup. Each record describes the latest known
+     * state of a ship. The records are only handed out once.
+     * @return Records in the order in which they were written.
+     */
+    public synchronized List<JournalRecord> takeRecoveredRecords() {
+        List<JournalRecord> records = recoveredRecords;
+        recoveredRecords = new ArrayList<JournalRecord>();
+        return records;
+    }
+
+    /**
+     * Appends a record to the journal. The record is in the journal file once this returns.
+     * Appends only wait for a snapshot if the region in use is full and the region of the
+     * previous generation is still needed.
+     * @param record Journal record.
+     */
+    public void append(JournalRecord record) {
+        while (true) {
+            synchronized (this) {
+                if (!enabled) {
+                    return;
+                }
+                if (position + JournalRecord.SIZE > regionSize && snapshotGeneration == generation) {
+
+                    // The snapshot of this generation is on disk, so the region of the
+                    // previous generation is free. Both regions are replayed until the next
+                    // snapshot.
+
+                    startGeneration(generation + 1);
+                    requestSnapshot();
+                }
+                if (position + JournalRecord.SIZE <= regionSize || full) {
+                    write(record);
+                    return;
+                }
+            }
+
+            // The region is full, and the previous region is needed until a snapshot of this
+            // generation is on disk. One is taken now, unless another thread is already taking it.
+
+            if (!snapshot()) {
+                synchronized (this) {
+                    if (!full && snapshotGeneration != generation) {
+                        full = true;
+                        logger.error("Simulation journal is full and a snapshot could not be taken. Records are kept "
+                            + "in memory only, until a snapshot succeeds.");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a record to the state and writes it to the region in use, if it has room.
+     */
+    private void write(JournalRecord record) {
+        record.setSequence(nextSequence++);
+        if (record.getKind() == JournalRecord.Kind.REMOVED) {
+            if (state.remove(record.getShipId()) == null) {
+                return;
+            }
+        } else {
+            state.put(record.getShipId(), record);
+        }
+
+        if (position + JournalRecord.SIZE > regionSize) {
+            requestSnapshot();
+            return;
+        }
+        ByteBuffer target = journal.duplicate();
+        target.position(regionStart(generation) + position);
+        target.put(record.encode(generation));
+        position += JournalRecord.SIZE;
+
+        if (position > regionSize / 2) {
+            requestSnapshot();
+        }
+    }
+
+    /**
+     * Writes the state of every ship into a new snapshot and starts the journal over. The
+     * state is copied while appends are held up, and written to disk while they are not.
+     * @return true, if the snapshot was written (or the journal is disabled). false, if it failed.
+     */
+    public boolean snapshot() {
+        synchronized (snapshotLock) {
+            snapshotRequested.set(false);
+
+            int targetGeneration;
+            long sequence;
+            List<JournalRecord> records;
+            synchronized (this) {
+                if (!enabled) {
+                    return true;
+                }
+                if (snapshotGeneration == generation) {
+
+                    // The previous snapshot is on disk, so the region before it is not needed anymore.
+
+                    startGeneration(generation + 1);
+                }
+                targetGeneration = generation;
+                sequence = nextSequence;
+                records = new ArrayList<JournalRecord>(state.values());
+            }
+
+            try {
+                writeSnapshot(targetGeneration, sequence, records);
+            } catch (IOException e) {
+                logger.error("Simulation journal snapshot failed: " + e.getMessage());
+                return false;
+            }
+            journal.force();
+
+            synchronized (this) {
+                snapshotGeneration = targetGeneration;
+            }
+            logger.debug("Simulation journal snapshot " + targetGeneration + " was taken with " + records.size() + " ships.");
+            return true;
+        }
+    }
+
+    /**
+     * Stops taking snapshots and closes the journal file. Appends are ignored after this.
+     */
+    void close() {
+        synchronized (snapshotLock) {
+            synchronized (this) {
+                enabled = false;
+            }
+            if (snapshotter != null) {
+                snapshotter.shutdownNow();
+            }
+            try {
+                if (journalChannel != null) {
+                    journalChannel.close();
+                }
+            } catch (IOException e) {
+                logger.warn("Simulation journal could not be closed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Generation that records are currently appended to.
+     */
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    private void snapshotIfChanged() {
+        boolean changed;
+        synchronized (this) {
+            changed = position > HEADER_SIZE || full || snapshotGeneration != generation;
+        }
+        if (changed) {
+            snapshot();
+        }
+    }
+
+    private void requestSnapshot() {
+        if (snapshotRequested.compareAndSet(false, true)) {
+            snapshotter.execute(this::snapshot);
+        }
+    }
+
+    /**
+     * Switches appends over to the region of a new generation. Records that were left in the
+     * region by older generations are not read back, since their generation does not match.
+     */
+    private void startGeneration(int newGeneration) {
+        generation = newGeneration;
+        int start = regionStart(generation);
+        journal.putInt(start, JOURNAL_MAGIC);
+        journal.putInt(start + 4, generation);
+        position = HEADER_SIZE;
+        full = false;
+    }
+
+    private int regionStart(int regionGeneration) {
+        return (regionGeneration & 1) * regionSize;
+    }
+
+    /**
+     * Writes a snapshot file. It replaces the previous snapshot atomically once it is on disk.
+     */
+    private void writeSnapshot(int targetGeneration, long sequence, List<JournalRecord> records) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream output = new DataOutputStream(checked);
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(targetGeneration);
+            output.writeLong(sequence);
+            output.writeInt(records.size());
+            for (JournalRecord record : records) {
+                output.write(record.encode(targetGeneration));
+            }
+            output.flush();
+            output.writeLong(checked.getChecksum().getValue());
+            output.flush();
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the latest snapshot into memory, if there is one.
+     * @return true, if the snapshot was read. false, if there is none or it could not be read.
+     */
+    private boolean readSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        try (InputStream stream = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(stream), new CRC32());
+            DataInputStream input = new DataInputStream(checked);
+            if (input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Snapshot file is not recognized.");
+            }
+            int fileGeneration = input.readInt();
+            highestGeneration = Math.max(highestGeneration, fileGeneration);
+            long fileSequence = input.readLong();
+            int count = input.readInt();
+            byte[] bytes = new byte[JournalRecord.SIZE];
+            List<JournalRecord> records = new ArrayList<JournalRecord>();
+            for (int i = 0; i < count; i++) {
+                input.readFully(bytes);
+                JournalRecord record = JournalRecord.decode(ByteBuffer.wrap(bytes), fileGeneration);
+                if (record == null) {
+                    throw new IOException("Snapshot file is corrupted.");
+                }
+                records.add(record);
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (input.readLong() != checksum) {
+                throw new IOException("Snapshot file is corrupted.");
+            }
+
+            generation = fileGeneration;
+            snapshotGeneration = fileGeneration;
+            nextSequence = fileSequence;
+            snapshotSequence = fileSequence;
+            for (JournalRecord record : records) {
+                state.put(record.getShipId(), record);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Simulation journal snapshot could not be read: " + e.getMessage());
+            state.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Maps the journal file and replays the records that follow the snapshot: those of the
+     * snapshot generation, and those of the next generation if its snapshot was never
+     * completed. Without a readable snapshot, nothing is replayed, and the journal
+     * continues past every generation on disk, so that no stale record can be mistaken for
+     * a new one.
+     */
+    private void openJournal(int capacity, boolean snapshotRead) throws IOException {
+        journalChannel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        regionSize = Math.max(HEADER_SIZE + JournalRecord.SIZE, capacity / 2 - (capacity / 2) % JournalRecord.SIZE);
+        journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * regionSize);
+
+        for (int region = 0; region < 2; region++) {
+            if (journal.getInt(region * regionSize) == JOURNAL_MAGIC) {
+                highestGeneration = Math.max(highestGeneration, journal.getInt(region * regionSize + 4));
+            }
+        }
+
+        if (!snapshotRead) {
+            generation = highestGeneration;
+            snapshotGeneration = highestGeneration;
+            return;
+        }
+
+        int replayed = replay(snapshotGeneration);
+        if (replayRegionOf(snapshotGeneration + 1)) {
+            generation = snapshotGeneration + 1;
+            replayed += replay(generation);
+        }
+        logger.debug("Simulation journal replayed " + replayed + " records.");
+    }
+
+    private boolean replayRegionOf(int regionGeneration) {
+        int start = regionStart(regionGeneration);
+        return journal.getInt(start) == JOURNAL_MAGIC && journal.getInt(start + 4) == regionGeneration;
+    }
+
+    /**
+     * Replays the records of a generation, if its region holds that generation. Records that
+     * the snapshot already includes are skipped: a region can hold records from both before
+     * and after its snapshot was taken.
+     * @return Number of replayed records.
+     */
+    private int replay(int regionGeneration) {
+        if (!replayRegionOf(regionGeneration)) {
+            return 0;
+        }
+        ByteBuffer reader = journal.duplicate();
+        reader.position(regionStart(regionGeneration) + HEADER_SIZE);
+        reader.limit(regionStart(regionGeneration) + regionSize);
+        int end = HEADER_SIZE;
+        int replayed = 0;
+        while (reader.remaining() >= JournalRecord.SIZE) {
+            JournalRecord record = JournalRecord.decode(reader, regionGeneration);
+            if (record == null) {
+                break;
+            }
+            end += JournalRecord.SIZE;
+            if (record.getSequence() < snapshotSequence) {
+                continue;
+            }
+            if (record.getKind() == JournalRecord.Kind.REMOVED) {
+                state.remove(record.getShipId());
+            } else {
+                state.put(record.getShipId(), record);
+            }
+            nextSequence = Math.max(nextSequence, record.getSequence() + 1);
+            replayed++;
+        }
+        if (regionGeneration == generation) {
+            position = end;
+        }
+        return replayed;
+    }
+}
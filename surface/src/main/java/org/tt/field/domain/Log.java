@@ -2,15 +2,15 @@ package org.tt.field.domain;
 
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 import org.json.JSONObject;
+import org.tt.field.utils.SpaceJsonWriter;
 import org.tt.field.utils.TimeUtils;
 
 /**
@@ -19,7 +19,7 @@ import org.tt.field.utils.TimeUtils;
  * @author terratenff
  */
 @Entity
-@Table(name = "log")
+@Table(name = "log", indexes = @Index(name = "log_timestamp_id", columnList = "timestamp DESC, id DESC"))
 public class Log {
     
     @Id
@@ -43,7 +43,7 @@ public class Log {
     }
 
     public String toJson() {
-        return toJsonObject().toString();
+        return SpaceJsonWriter.toJson(this);
     }
 
     public JSONObject toJsonObject() {
@@ -72,13 +72,11 @@ public class Log {
 
     /**
      * Sets timestamp from a string.
-     * @param timestamp ISO_OFFSET_DATE_TIME-formatted timestamp is expected.
+     * @param timestamp ISO-8601-formatted timestamp is expected. See TimeUtils.toTimestamp.
      * (Example: 2011-12-03T10:15:30+01:00)
      */
     public void setTimestamp(String timestamp) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-        LocalDateTime time = LocalDateTime.parse(timestamp, formatter);
-        this.timestamp = Timestamp.valueOf(time);
+        this.timestamp = TimeUtils.toTimestamp(timestamp);
     }
 
     public String getDescription() {
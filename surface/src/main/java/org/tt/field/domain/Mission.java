@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -17,6 +18,7 @@ import javax.persistence.Table;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.tt.field.utils.SpaceJsonWriter;
 
 /**
  * Mission entity.
@@ -43,6 +45,12 @@ public class Mission {
     private Timestamp arrivalTime = Timestamp.from(Instant.now());
     private String currentDestination;
 
+    /**
+     * Launch priority of the mission. Ships of high priority missions are launched first.
+     */
+    @Column(columnDefinition = "integer default 0")
+    private int priority = 0;
+
     @OneToMany(cascade = CascadeType.ALL)
     @MapsId("id")
     private List<Event> events = new ArrayList<Event>();
@@ -65,27 +73,11 @@ public class Mission {
         }
     }
 
+    /**
+     * @return Mission in JSON format, events included. See SpaceJsonWriter.
+     */
     public String toJson() {
-        JSONObject json = new JSONObject();
-        json.put("id", id);
-        json.put("title", title);
-        json.put("objective", objective);
-        json.put("description", description);
-        json.put("centerX", centerX);
-        json.put("centerY", centerY);
-        json.put("centerZ", centerZ);
-        json.put("radius", radius);
-        json.put("departureTime", departureTime != null ? departureTime.toString() : "null");
-        json.put("arrivalTime", arrivalTime != null ? arrivalTime.toString() : "null");
-        json.put("currentDestination", currentDestination);
-
-        JSONArray array = new JSONArray();
-        for (Event event : events) {
-           array.put(new JSONObject(event.toJson()));
-        }
-        json.put("events", array);
-        
-        return json.toString();
+        return SpaceJsonWriter.toJson(this);
     }
 
     public Long getId() {
@@ -194,6 +186,14 @@ public class Mission {
         this.currentDestination = currentDestination;
     }
 
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
     public List<Event> getEvents() {
         return events;
     }
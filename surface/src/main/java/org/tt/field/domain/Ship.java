@@ -13,11 +13,13 @@ import javax.persistence.MapsId;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.tt.field.utils.SpaceJsonWriter;
 
 /**
  * Ship entity, the core entity of the application.
@@ -51,6 +53,13 @@ public class Ship {
     private int peakCondition = -1;
     private String description;
 
+    /**
+     * Position of the ship in the launch or repair queue. Not stored: it is derived from the
+     * queue when the ship is read through the API.
+     */
+    @Transient
+    private Integer queuePosition;
+
     public Ship() {}
 
     public Ship(JSONObject ship) {
@@ -68,23 +77,32 @@ public class Ship {
         }
     }
 
+    /**
+     * @return Ship in JSON format, mission and logs included. See SpaceJsonWriter.
+     */
     public String toJson() {
-        JSONObject json = new JSONObject();
-        json.put("id", id);
-        json.put("name", name);
-        json.put("status", status);
-        json.put("condition", condition);
-        json.put("peakCondition", peakCondition);
-        json.put("description", description);
-        json.put("mission", new JSONObject(mission.toJson()));
-
-        JSONArray array = new JSONArray();
-        for (Log log : logs) {
-           array.put(new JSONObject(log.toJson()));
-        }
-        json.put("logs", array);
-        
-        return json.toString();
+        return SpaceJsonWriter.toJson(this);
+    }
+
+    /**
+     * Creates a snapshot of the ship entity, for saving it on another thread. Later changes
+     * to this ship entity, its logs and past missions included, do not show in the snapshot.
+     * The mission and the log entries themselves are shared.
+     * @return Copy of the ship entity.
+     */
+    public Ship copy() {
+        Ship copy = new Ship();
+        copy.id = id;
+        copy.mission = mission;
+        copy.pastMissions = pastMissions != null ? new ArrayList<Mission>(pastMissions) : null;
+        copy.logs = logs != null ? new ArrayList<Log>(logs) : null;
+        copy.name = name;
+        copy.status = status;
+        copy.condition = condition;
+        copy.peakCondition = peakCondition;
+        copy.description = description;
+        copy.queuePosition = queuePosition;
+        return copy;
     }
 
     @Override
@@ -168,4 +186,12 @@ public class Ship {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
 }
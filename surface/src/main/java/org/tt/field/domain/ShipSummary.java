@@ -0,0 +1,85 @@
+package org.tt.field.domain;
+
+/**
+ * Summary of a ship entity for listings. It is read with a single query of fixed columns (see
+ * ShipRepository), so none of the collections of the ship are loaded for it.
+ *
+ * @author terratenff
+ */
+public class ShipSummary {
+
+    private final Long id;
+    private final String name;
+    private final String status;
+    private final int condition;
+    private final int peakCondition;
+    private final String description;
+
+    /**
+     * ID of the mission that the ship is currently assigned to. null if there is none.
+     */
+    private final Long missionId;
+
+    /**
+     * Title of the mission that the ship is currently assigned to. null if there is none.
+     */
+    private final String missionTitle;
+
+    /**
+     * Position of the ship in the queue of the launch site or the dry dock. null if it is not
+     * queued. It is not stored in the database.
+     */
+    private Integer queuePosition;
+
+    public ShipSummary(Long id, String name, String status, int condition, int peakCondition, String description,
+        Long missionId, String missionTitle) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.condition = condition;
+        this.peakCondition = peakCondition;
+        this.description = description;
+        this.missionId = missionId;
+        this.missionTitle = missionTitle;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getCondition() {
+        return condition;
+    }
+
+    public int getPeakCondition() {
+        return peakCondition;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Long getMissionId() {
+        return missionId;
+    }
+
+    public String getMissionTitle() {
+        return missionTitle;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+}
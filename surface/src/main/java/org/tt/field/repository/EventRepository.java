@@ -1,5 +1,6 @@
 package org.tt.field.repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,6 +20,27 @@ public interface EventRepository extends JpaRepository<Event, Long> {
      * @param offset The first set of mission events are skipped. This determines how many are skipped.
      * @return List of up to <limit> mission events, where first <offset> events are skipped.
      */
-    @Query(value = "SELECT * FROM event ORDER BY timestamp DESC LIMIT ?1 OFFSET ?2", nativeQuery = true)
+    @Query(value = "SELECT * FROM event ORDER BY timestamp DESC, id DESC LIMIT ?1 OFFSET ?2", nativeQuery = true)
     List<Event> findEvents(Integer limit, Integer offset);
+
+    /**
+     * Queries the most recent mission events. Together with findEventsBefore, this pages through mission events
+     * by seeking to the last event of the previous page, which the (event_timestamp_id) index
+     * makes as cheap for deep pages as for the first one. Events without a timestamp are
+     * not included.
+     * @param limit At most this many mission events are returned.
+     * @return List of up to <limit> mission events, most recent first.
+     */
+    @Query(value = "SELECT * FROM event WHERE timestamp IS NOT NULL ORDER BY timestamp DESC, id DESC LIMIT ?1", nativeQuery = true)
+    List<Event> findFirstEvents(Integer limit);
+
+    /**
+     * Queries the mission events that follow a event in order of recency.
+     * @param timestamp Timestamp of the last event of the previous page.
+     * @param id ID of the last event of the previous page.
+     * @param limit At most this many mission events are returned.
+     * @return List of up to <limit> mission events that are older than specified event, most recent first.
+     */
+    @Query(value = "SELECT * FROM event WHERE (timestamp, id) < (?1, ?2) ORDER BY timestamp DESC, id DESC LIMIT ?3", nativeQuery = true)
+    List<Event> findEventsBefore(Timestamp timestamp, Long id, Integer limit);
 }
@@ -1,5 +1,6 @@
 package org.tt.field.repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -19,6 +20,27 @@ public interface LogRepository extends JpaRepository<Log, Long> {
      * @param offset The first set of ship logs are skipped. This determines how many are skipped.
      * @return List of up to <limit> ship logs, where first <offset> logs are skipped.
      */
-    @Query(value = "SELECT * FROM log ORDER BY timestamp DESC LIMIT ?1 OFFSET ?2", nativeQuery = true)
+    @Query(value = "SELECT * FROM log ORDER BY timestamp DESC, id DESC LIMIT ?1 OFFSET ?2", nativeQuery = true)
     List<Log> findLogs(Integer limit, Integer offset);
+
+    /**
+     * Queries the most recent ship logs. Together with findLogsBefore, this pages through ship logs
+     * by seeking to the last log of the previous page, which the (log_timestamp_id) index
+     * makes as cheap for deep pages as for the first one. Logs without a timestamp are
+     * not included.
+     * @param limit At most this many ship logs are returned.
+     * @return List of up to <limit> ship logs, most recent first.
+     */
+    @Query(value = "SELECT * FROM log WHERE timestamp IS NOT NULL ORDER BY timestamp DESC, id DESC LIMIT ?1", nativeQuery = true)
+    List<Log> findFirstLogs(Integer limit);
+
+    /**
+     * Queries the ship logs that follow a log in order of recency.
+     * @param timestamp Timestamp of the last log of the previous page.
+     * @param id ID of the last log of the previous page.
+     * @param limit At most this many ship logs are returned.
+     * @return List of up to <limit> ship logs that are older than specified log, most recent first.
+     */
+    @Query(value = "SELECT * FROM log WHERE (timestamp, id) < (?1, ?2) ORDER BY timestamp DESC, id DESC LIMIT ?3", nativeQuery = true)
+    List<Log> findLogsBefore(Timestamp timestamp, Long id, Integer limit);
 }
@@ -1,6 +1,10 @@
 package org.tt.field.repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.tt.field.domain.Mission;
 
 /**
@@ -9,5 +13,13 @@ import org.tt.field.domain.Mission;
  * @author terratenff
  */
 public interface MissionRepository extends JpaRepository<Mission, Long> {
-    
+
+    /**
+     * Queries the missions that were added before a mission.
+     * @param id ID of the last mission of the previous page. Long.MAX_VALUE for the first page.
+     * @param page Determines how many missions are returned at most.
+     * @return List of missions, most recently added first.
+     */
+    @Query("SELECT m FROM Mission m WHERE m.id < ?1 ORDER BY m.id DESC")
+    List<Mission> findMissionsBefore(Long id, Pageable page);
 }
@@ -1,10 +1,14 @@
 package org.tt.field.repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.tt.field.domain.Ship;
+import org.tt.field.domain.ShipSummary;
 
 /**
  * Repository for ship entities.
@@ -14,10 +18,35 @@ import org.tt.field.domain.Ship;
 public interface ShipRepository extends JpaRepository<Ship, Long> {
 
     /**
-     * Queries for those ship entities that have been assigned a mission.
+     * Constructor expression for ship summaries. The mission is joined for its ID and title only.
+     */
+    String SUMMARY = "SELECT new org.tt.field.domain.ShipSummary(s.id, s.name, s.status, s.condition, s.peakCondition,"
+        + " s.description, m.id, m.title) FROM Ship s LEFT JOIN s.mission m";
+
+    /**
+     * Queries the ships that were added before a ship. Missions are fetched in the same query.
+     * Logs and past missions are loaded in batches.
+     * @param id ID of the last ship of the previous page. Long.MAX_VALUE for the first page.
+     * @param page Determines how many ships are returned at most.
+     * @return List of ships, most recently added first.
+     */
+    @Query("SELECT s FROM Ship s LEFT JOIN FETCH s.mission WHERE s.id < ?1 ORDER BY s.id DESC")
+    List<Ship> findShipsBefore(Long id, Pageable page);
+
+    /**
+     * Queries a ship entity. Its mission and logs are fetched in the same query.
+     * @param id Ship ID.
+     * @return Ship, if it exists.
+     */
+    @Query("SELECT s FROM Ship s LEFT JOIN FETCH s.mission LEFT JOIN FETCH s.logs WHERE s.id = ?1")
+    Optional<Ship> findWithLogsById(Long id);
+
+    /**
+     * Queries for those ship entities that have been assigned a mission. Missions and logs
+     * are fetched in the same query.
      * @return List of assigned ships.
      */
-    @Query("SELECT s FROM Ship s WHERE s.mission != null")
+    @Query("SELECT DISTINCT s FROM Ship s JOIN FETCH s.mission LEFT JOIN FETCH s.logs")
     Collection<Ship> findAllAssignedShips();
 
     /**
@@ -35,4 +64,44 @@ public interface ShipRepository extends JpaRepository<Ship, Long> {
      */
     @Query(value = "SELECT * FROM ship WHERE name ILIKE %?2% ORDER BY id DESC LIMIT ?1", nativeQuery = true)
     Collection<Ship> findRecentShipsByName(Integer limit, String name);
+
+    /**
+     * Queries summaries of every ship.
+     * @return List of ship summaries, most recently added first.
+     */
+    @Query(SUMMARY + " ORDER BY s.id DESC")
+    List<ShipSummary> findSummaries();
+
+    /**
+     * Queries summaries of the ships that were added before a ship.
+     * @param id ID of the last ship of the previous page. Long.MAX_VALUE for the first page.
+     * @param page Determines how many summaries are returned at most.
+     * @return List of ship summaries, most recently added first.
+     */
+    @Query(SUMMARY + " WHERE s.id < ?1 ORDER BY s.id DESC")
+    List<ShipSummary> findSummariesBefore(Long id, Pageable page);
+
+    /**
+     * Queries summaries of the most recently added ships.
+     * @param page Determines how many summaries are returned at most.
+     * @return List of ship summaries, most recently added first.
+     */
+    @Query(SUMMARY + " ORDER BY s.id DESC")
+    List<ShipSummary> findRecentSummaries(Pageable page);
+
+    /**
+     * Queries summaries of the most recently added ships by name.
+     * @param name What the name of the ships should contain (case-insensitive).
+     * @param page Determines how many summaries are returned at most.
+     * @return List of ship summaries, most recently added first.
+     */
+    @Query(SUMMARY + " WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', ?1, '%')) ORDER BY s.id DESC")
+    List<ShipSummary> findRecentSummariesByName(String name, Pageable page);
+
+    /**
+     * Queries summaries of those ships that have been assigned a mission.
+     * @return List of ship summaries.
+     */
+    @Query(SUMMARY + " WHERE s.mission IS NOT NULL ORDER BY s.id DESC")
+    List<ShipSummary> findAssignedSummaries();
 }
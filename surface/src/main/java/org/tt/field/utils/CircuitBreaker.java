@@ -0,0 +1,227 @@
+package org.tt.field.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker for a remote service. Once enough consecutive requests have failed, the
+ * breaker opens and requests are refused for a while, so that callers do not keep hammering
+ * a service that is down. After the wait, a single probe request is let through (half-open).
+ * If the probe succeeds, the breaker closes. Otherwise it opens again, for twice as long.
+ *
+ * Callers that are refused may park a callback instead of waiting on a thread. Parked
+ * callbacks are run once the breaker closes, and one of them is run to make the probe.
+ *
+ * @author terratenff
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * States of the circuit breaker.
+     */
+    public enum State {
+        /** Requests are let through. */
+        CLOSED,
+        /** Requests are refused. */
+        OPEN,
+        /** A single probe request is in flight. Other requests are refused. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long initialOpenTime;
+    private final long maxOpenTime;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Callbacks of callers that are waiting for the breaker to close.
+     */
+    private final Queue<Runnable> parkedCallbacks = new ArrayDeque<Runnable>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+
+    /**
+     * How long the breaker stays open the next time it opens (milliseconds).
+     */
+    private long openTime;
+
+    /**
+     * Point of time (System.nanoTime) at which an open breaker lets a probe through.
+     */
+    private long probeTime = 0;
+
+    private long successCount = 0;
+    private long failureCount = 0;
+    private long refusalCount = 0;
+    private long openCount = 0;
+
+    /**
+     * Circuit breaker constructor.
+     * @param name Name of the service, for logging.
+     * @param failureThreshold Number of consecutive failures that opens the breaker.
+     * @param initialOpenTime How long the breaker stays open at first (milliseconds).
+     * @param maxOpenTime Upper limit for how long the breaker stays open (milliseconds).
+     */
+    public CircuitBreaker(String name, int failureThreshold, long initialOpenTime, long maxOpenTime) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialOpenTime = Math.max(1, initialOpenTime);
+        this.maxOpenTime = Math.max(this.initialOpenTime, maxOpenTime);
+        this.openTime = this.initialOpenTime;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks whether a request may be sent. If the breaker has been open long enough, the
+     * caller is allowed to make the probe request.
+     * @return true, if the request may be sent. The outcome must then be recorded.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - probeTime >= 0) {
+            state = State.HALF_OPEN;
+            logger.info("Circuit breaker of " + name + " is half-open. Probing...");
+            return true;
+        }
+        refusalCount++;
+        return false;
+    }
+
+    /**
+     * Records a successful request. Closes the breaker, and runs every parked callback.
+     */
+    public void recordSuccess() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            successCount++;
+            consecutiveFailures = 0;
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+            openTime = initialOpenTime;
+            callbacks = new ArrayList<Runnable>(parkedCallbacks);
+            parkedCallbacks.clear();
+            logger.info("Circuit breaker of " + name + " is closed. Resuming " + callbacks.size() + " parked callers.");
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Records a failed request. Opens the breaker if the failure threshold is reached, or if
+     * the failed request was the probe.
+     */
+    public synchronized void recordFailure() {
+        failureCount++;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * Parks a callback until the breaker lets requests through again. If the breaker is
+     * already closed, the callback is run right away.
+     * @param callback Callback. It must not block.
+     */
+    public void park(Runnable callback) {
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                parkedCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Removes a parked callback, for example once its caller has given up.
+     * @param callback Callback.
+     * @return true, if the callback was parked.
+     */
+    public synchronized boolean unpark(Runnable callback) {
+        return parkedCallbacks.remove(callback);
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openCount++;
+        long waitTime = openTime;
+        probeTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTime);
+        openTime = Math.min(maxOpenTime, openTime * 2);
+        logger.warn("Circuit breaker of " + name + " is open for " + waitTime + " ms after "
+            + consecutiveFailures + " consecutive failures.");
+        scheduler.schedule(this::wakeProbe, waitTime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one parked callback once the breaker has been open long enough, so that the
+     * probe request is made.
+     */
+    private void wakeProbe() {
+        Runnable callback;
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return;
+            }
+            callback = parkedCallbacks.poll();
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized int getParkedCount() {
+        return parkedCallbacks.size();
+    }
+
+    public synchronized long getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return How many requests have been refused while the breaker was not closed.
+     */
+    public synchronized long getRefusalCount() {
+        return refusalCount;
+    }
+
+    /**
+     * @return How many times the breaker has opened.
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+}
@@ -0,0 +1,158 @@
+package org.tt.field.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Utility class for gzip content encoding between the surface and space modules. Payloads
+ * stay in JSON, but they are compressed on the wire: ships with long log histories consist
+ * mostly of repeated field names and similar descriptions, which compress well.
+ *
+ * @author terratenff
+ */
+public class Compression {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Compresses data with gzip, at the fastest level. On ship payloads, the default level
+     * takes about two and a half times as long, for output that is only about a sixth smaller.
+     * @param data Data.
+     * @return Compressed data.
+     */
+    public static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            // Not possible when writing into memory.
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decompresses gzip-compressed data.
+     * @param data Compressed data.
+     * @return Data.
+     * @throws IOException The data is not valid gzip.
+     */
+    public static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(data), BUFFER_SIZE)) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * Decompresses a gzip-compressed stream, up to a limit. The stream is not closed.
+     * @param compressed Compressed stream.
+     * @param maxSize Upper limit for the size of the data (bytes).
+     * @return Data, or null if it would exceed the limit. Only up to one byte more than the
+     * limit is decompressed.
+     * @throws IOException The stream could not be read, or it is not valid gzip.
+     */
+    public static byte[] gunzip(InputStream compressed, int maxSize) throws IOException {
+        InputStream input = new GZIPInputStream(compressed, BUFFER_SIZE);
+        byte[] data = input.readNBytes(maxSize < Integer.MAX_VALUE ? maxSize + 1 : maxSize);
+        return data.length > maxSize ? null : data;
+    }
+
+    /**
+     * @param encoding Value of a Content-Encoding header, or null.
+     * @return true, if the encoding is gzip.
+     */
+    public static boolean isGzip(String encoding) {
+        return encoding != null && encoding.trim().equalsIgnoreCase(GZIP);
+    }
+
+    /**
+     * @param headers Headers of a response.
+     * @return true, if the response body is gzip-compressed.
+     */
+    public static boolean isGzip(HttpHeaders headers) {
+        return isGzip(headers.firstValue("Content-Encoding").orElse(null));
+    }
+
+    /**
+     * @return Body handler that reads the response body as a string, decompressing it if
+     * necessary.
+     */
+    public static HttpResponse.BodyHandler<String> stringBodyHandler() {
+        return info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+            try {
+                return new String(isGzip(info.headers()) ? gunzip(body) : body, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * @return Body handler that provides the response body as a stream, decompressing it as
+     * it is read if necessary.
+     */
+    public static HttpResponse.BodyHandler<InputStream> streamBodyHandler() {
+        return info -> {
+            HttpResponse.BodySubscriber<InputStream> subscriber = HttpResponse.BodySubscribers.ofInputStream();
+            if (!isGzip(info.headers())) {
+                return subscriber;
+            }
+            return HttpResponse.BodySubscribers.mapping(subscriber, GunzipInputStream::new);
+        };
+    }
+
+    /**
+     * Stream that decompresses another stream. The gzip header is only read once the stream
+     * is first read: the stream is created on an HTTP client thread, which must not block.
+     */
+    private static class GunzipInputStream extends InputStream {
+
+        private final InputStream compressed;
+        private InputStream decompressed;
+
+        private GunzipInputStream(InputStream compressed) {
+            this.compressed = compressed;
+        }
+
+        private InputStream decompressed() throws IOException {
+            if (decompressed == null) {
+                decompressed = new GZIPInputStream(compressed, BUFFER_SIZE);
+            }
+            return decompressed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decompressed().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return decompressed().read(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressed != null) {
+                decompressed.close();
+            } else {
+                compressed.close();
+            }
+        }
+    }
+}
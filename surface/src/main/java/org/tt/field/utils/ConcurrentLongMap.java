@@ -0,0 +1,266 @@
+package org.tt.field.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Concurrent hash map with primitive long keys. Keys are not boxed: entries are stored in
+ * open-addressed arrays, which are split into segments that are locked independently.
+ * Lookups, insertions and removals are O(1) on average.
+ *
+ * @param <V> Value type. Null values are not supported.
+ * @author terratenff
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final int SEGMENT_COUNT = 32;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+
+    /**
+     * Concurrent long map constructor.
+     */
+    public ConcurrentLongMap() {
+        segments = newSegmentArray(SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<V>(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    /**
+     * @param key Key.
+     * @return Value associated with the key, or null if there is none.
+     */
+    public V get(long key) {
+        long hash = mix(key);
+        return segmentOf(hash).get(key, hash);
+    }
+
+    /**
+     * Associates a value with a key.
+     * @param key Key.
+     * @param value Value. Must not be null.
+     * @return Value that was previously associated with the key, or null.
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported.");
+        }
+        long hash = mix(key);
+        return segmentOf(hash).put(key, hash, value);
+    }
+
+    /**
+     * Associates a value with a key, unless the key already has a value.
+     * @param key Key.
+     * @param value Value. Must not be null.
+     * @return Value that is already associated with the key, or null if the value was added.
+     */
+    public V putIfAbsent(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported.");
+        }
+        long hash = mix(key);
+        return segmentOf(hash).putIfAbsent(key, hash, value);
+    }
+
+    /**
+     * Removes the value associated with a key.
+     * @param key Key.
+     * @return Value that was removed, or null.
+     */
+    public V remove(long key) {
+        long hash = mix(key);
+        return segmentOf(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the value associated with a key, but only if it is specified value.
+     * @param key Key.
+     * @param value Value that is expected to be associated with the key.
+     * @return true, if the value was removed.
+     */
+    public boolean remove(long key, V value) {
+        long hash = mix(key);
+        return segmentOf(hash).remove(key, hash, value) != null;
+    }
+
+    /**
+     * @return Number of entries in the map.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Performs an action for every entry. Each segment is visited under its lock, so the
+     * action must be short and must not access the map.
+     * @param action Action that receives the key and the value.
+     */
+    public void forEach(BiConsumer<Long, V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    /**
+     * @return Snapshot of every value in the map.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<V>(size());
+        for (Segment<V> segment : segments) {
+            segment.collectValues(values);
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Segment<V>[] newSegmentArray(int length) {
+        return (Segment<V>[]) new Segment<?>[length];
+    }
+
+    private Segment<V> segmentOf(long hash) {
+        return segments[(int) (hash >>> 59) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Spreads the bits of a key (MurmurHash3 finalizer). The highest bits select the segment,
+     * and the lowest bits the slot within the segment.
+     */
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Linear probing hash table. Empty slots have a null value.
+     */
+    private static class Segment<V> {
+
+        private long[] keys;
+        private Object[] values;
+        private volatile int size = 0;
+
+        private Segment(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V get(long key, long hash) {
+            int mask = keys.length - 1;
+            for (int i = (int) hash & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V put(long key, long hash, V value) {
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    V previous = (V) values[i];
+                    values[i] = value;
+                    return previous;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            if (size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return null;
+        }
+
+        private synchronized V putIfAbsent(long key, long hash, V value) {
+            V current = get(key, hash);
+            return current != null ? current : put(key, hash, value);
+        }
+
+        /**
+         * Removes an entry and shifts the following entries of the probe sequence back,
+         * so that no tombstones are needed.
+         */
+        @SuppressWarnings("unchecked")
+        private synchronized V remove(long key, long hash, V expected) {
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    break;
+                }
+            }
+            V removed = (V) values[i];
+            if (removed == null || (expected != null && removed != expected)) {
+                return null;
+            }
+
+            int gap = i;
+            int j = (i + 1) & mask;
+            while (values[j] != null) {
+                int home = (int) mix(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+                j = (j + 1) & mask;
+            }
+            values[gap] = null;
+            size--;
+            return removed;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void forEach(BiConsumer<Long, V> action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    action.accept(keys[i], (V) values[i]);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void collectValues(List<V> target) {
+            for (Object value : values) {
+                if (value != null) {
+                    target.add((V) value);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = (int) mix(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
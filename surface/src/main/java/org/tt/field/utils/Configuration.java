@@ -0,0 +1,208 @@
+package org.tt.field.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable snapshot of the application configuration. Values are read once, when the
+ * snapshot is loaded, so reading them is a plain map lookup. A missing or malformed value
+ * yields the default that the caller provides.
+ *
+ * A snapshot consists of the following sources, each overriding the previous ones:
+ * 1. application.properties on the classpath.
+ * 2. An external properties file: the file named by the system property
+ * "org.tt.field.config", or config/application.properties in the working directory. The
+ * file is optional. Since it can be edited while the application runs, it is the source
+ * that hot reloads pick changes from.
+ * 3. System properties of the application ("space.url" and "org.tt.field.*").
+ *
+ * @author terratenff
+ */
+public class Configuration {
+
+    private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
+
+    /**
+     * System property that names the external properties file.
+     */
+    public static final String EXTERNAL_FILE_PROPERTY = "org.tt.field.config";
+
+    private static final String DEFAULT_EXTERNAL_FILE = "config/application.properties";
+
+    private final Map<String, String> values;
+    private final List<String> sources;
+    private final long version;
+    private final long loadedAt;
+
+    private Configuration(Map<String, String> values, List<String> sources, long version) {
+        this.values = Collections.unmodifiableMap(values);
+        this.sources = Collections.unmodifiableList(sources);
+        this.version = version;
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Loads a snapshot from the configuration sources.
+     * @param version Version number of the snapshot.
+     * @return Snapshot. Sources that cannot be read are left out.
+     */
+    static Configuration load(long version) {
+        Map<String, String> values = new HashMap<String, String>();
+        List<String> sources = new ArrayList<String>();
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try (InputStream stream = loader.getResourceAsStream("application.properties")) {
+            if (stream != null) {
+                read(stream, values);
+                sources.add("classpath:application.properties");
+            }
+        } catch (IOException e) {
+            logger.error("application.properties could not be read: " + e.getMessage());
+        }
+
+        Path externalFile = Paths.get(System.getProperty(EXTERNAL_FILE_PROPERTY, DEFAULT_EXTERNAL_FILE));
+        if (Files.isReadable(externalFile)) {
+            try (InputStream stream = Files.newInputStream(externalFile)) {
+                read(stream, values);
+                sources.add(externalFile.toAbsolutePath().toString());
+            } catch (IOException e) {
+                logger.error(externalFile + " could not be read: " + e.getMessage());
+            }
+        }
+
+        boolean systemProperties = false;
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.equals("space.url") || (name.startsWith("org.tt.field.") && !name.equals(EXTERNAL_FILE_PROPERTY))) {
+                values.put(name, System.getProperty(name).trim());
+                systemProperties = true;
+            }
+        }
+        if (systemProperties) {
+            sources.add("system properties");
+        }
+
+        return new Configuration(values, sources, version);
+    }
+
+    private static void read(InputStream stream, Map<String, String> values) throws IOException {
+        Properties properties = new Properties();
+        properties.load(stream);
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name).trim());
+        }
+    }
+
+    /**
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set.
+     * @return Property value, or the default value.
+     */
+    public String getString(String key, String defaultValue) {
+        String value = values.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set or not an integer.
+     * @return Property value, or the default value.
+     */
+    public int getInteger(String key, int defaultValue) {
+        return get(key, defaultValue, "an integer", Integer::valueOf);
+    }
+
+    /**
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set or not an integer.
+     * @return Property value, or the default value.
+     */
+    public long getLong(String key, long defaultValue) {
+        return get(key, defaultValue, "an integer", Long::valueOf);
+    }
+
+    /**
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set or not a number.
+     * @return Property value, or the default value.
+     */
+    public double getDouble(String key, double defaultValue) {
+        return get(key, defaultValue, "a number", Double::valueOf);
+    }
+
+    /**
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set or not "true" or "false".
+     * @return Property value, or the default value.
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return get(key, defaultValue, "a boolean", value -> {
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.valueOf(value);
+            }
+            throw new IllegalArgumentException(value);
+        });
+    }
+
+    /**
+     * Looks up a property and converts its value.
+     * @param key Property name.
+     * @param defaultValue Value to use, if the property is not set or cannot be converted.
+     * @param kind Kind of value that is expected, for the warning about a malformed value.
+     * @param parser Function that converts the value. It throws IllegalArgumentException
+     * (such as NumberFormatException) if the value is malformed.
+     * @return Property value, or the default value.
+     */
+    private <T> T get(String key, T defaultValue, String kind, Function<String, T> parser) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Property " + key + " is not " + kind + ": \"" + value + "\". Using " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return Number of properties in the snapshot.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return Sources that the snapshot was loaded from, in order of precedence (lowest first).
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return Version number of the snapshot. Every reload increments it.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Point of time at which the snapshot was loaded (epoch milliseconds).
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -0,0 +1,184 @@
+package org.tt.field.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Utility functions for paginated listings.
+ *
+ * Listings are paginated by seeking: a page continues from the sort key of the last entity of
+ * the previous page, which is given as an opaque cursor. Since the database can seek to the
+ * key with an index, every page costs the same no matter how deep it is. The cursor of the next
+ * page is returned in the X-Next-Cursor header. A response without one is the last page.
+ *
+ * Page numbers (offsets) are still accepted for compatibility, but only up to MAX_OFFSET
+ * entities deep, since the database has to read through every skipped entity.
+ *
+ * @author terratenff
+ */
+public class Pagination {
+
+    /**
+     * Response header that holds the cursor of the next page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Number of entities in a page, if not specified otherwise.
+     */
+    public static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * Maximum number of entities in a page.
+     */
+    public static final int MAX_LIMIT = PropertyUtils.getInteger("org.tt.field.utils.Pagination.MAX_LIMIT", 500);
+
+    /**
+     * Maximum number of entities that a page number may skip.
+     */
+    public static final int MAX_OFFSET = PropertyUtils.getInteger("org.tt.field.utils.Pagination.MAX_OFFSET", 10000);
+
+    /**
+     * Sort key of an entity: its ID, and optionally its timestamp before that.
+     */
+    public static class Cursor {
+
+        private final Timestamp timestamp;
+        private final long id;
+
+        private Cursor(Timestamp timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        /**
+         * @return Timestamp of the sort key, or null if entities are sorted by ID only.
+         */
+        public Timestamp getTimestamp() {
+            return timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    /**
+     * @param id ID of the last entity of a page.
+     * @return Cursor of the next page.
+     */
+    public static Cursor after(long id) {
+        return new Cursor(null, id);
+    }
+
+    /**
+     * @param timestamp Timestamp of the last entity of a page.
+     * @param id ID of the last entity of a page.
+     * @return Cursor of the next page.
+     */
+    public static Cursor after(Timestamp timestamp, long id) {
+        return new Cursor(timestamp, id);
+    }
+
+    /**
+     * Encodes a cursor into a token that clients pass back as it is.
+     * @param cursor Cursor.
+     * @return URL-safe token.
+     */
+    public static String encode(Cursor cursor) {
+        String key = cursor.timestamp != null
+            ? cursor.timestamp.getTime() + "." + cursor.timestamp.getNanos() + ":" + cursor.id
+            : Long.toString(cursor.id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a token into a cursor.
+     * @param token Token, as returned by encode.
+     * @param timestamped Determines whether the cursor is expected to have a timestamp.
+     * @return Cursor.
+     * @throws IllegalArgumentException Token is not a valid cursor of the expected kind.
+     */
+    public static Cursor decode(String token, boolean timestamped) {
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+
+        int separator = key.indexOf(':');
+        if (timestamped != (separator >= 0)) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        try {
+            if (!timestamped) {
+                return new Cursor(null, Long.parseLong(key));
+            }
+            int point = key.indexOf('.');
+            if (point < 0 || point > separator) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            Timestamp timestamp = new Timestamp(Long.parseLong(key.substring(0, point)));
+            timestamp.setNanos(Integer.parseInt(key.substring(point + 1, separator)));
+            return new Cursor(timestamp, Long.parseLong(key.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Parses a page size.
+     * @param limitStr Page size, or null for the default.
+     * @return Page size, at most MAX_LIMIT.
+     * @throws IllegalArgumentException Page size is not a positive integer.
+     */
+    public static int parseLimit(String limitStr) {
+        if (limitStr == null) {
+            return DEFAULT_LIMIT;
+        }
+        int limit = Integer.parseInt(limitStr);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Computes the offset of a page number.
+     * @param page Page number, starting from 0.
+     * @param limit Page size.
+     * @return Number of entities to skip.
+     * @throws IllegalArgumentException Page number is negative, or the page is deeper than
+     * MAX_OFFSET.
+     */
+    public static int offset(int page, int limit) {
+        long offset = (long) page * limit;
+        if (page < 0 || offset > MAX_OFFSET) {
+            throw new IllegalArgumentException("Page " + page + " is out of range. Use a cursor for pages deeper than "
+                + MAX_OFFSET + " entities.");
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Builds the response of a page. If the page is full, the cursor of the next page is
+     * included.
+     * @param entities Entities of the page.
+     * @param limit Page size.
+     * @param key Function that gives the sort key of an entity.
+     * @return Response with the entities.
+     */
+    public static <T> ResponseEntity<List<T>> page(List<T> entities, int limit, Function<T, Cursor> key) {
+        if (entities.size() < limit) {
+            return ResponseEntity.ok(entities);
+        }
+        Cursor next = key.apply(entities.get(entities.size() - 1));
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, encode(next)).body(entities);
+    }
+}
@@ -1,69 +1,105 @@
 package org.tt.field.utils;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Utility class that is used to read properties from application.properties file.
- * 
+ * Utility class that is used to read properties of the application. Properties are read from
+ * a configuration snapshot (see Configuration) that is loaded once, so reading a property
+ * does not touch the file system. The snapshot can be reloaded while the application runs:
+ * the new snapshot replaces the old one atomically, so a reader always sees either one or the
+ * other as a whole.
+ *
+ * Values that are read into constants only take effect at startup. Values that are read on
+ * every use, such as simulator timings and the space module URL, take effect on reload.
+ *
  * @author terratenff
  */
 public class PropertyUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(PropertyUtils.class);
 
+    private static final AtomicReference<Configuration> configuration = new AtomicReference<Configuration>(Configuration.load(1));
+
+    /**
+     * Functions that are called with the new snapshot after every reload.
+     */
+    private static final List<Consumer<Configuration>> reloadListeners = new CopyOnWriteArrayList<Consumer<Configuration>>();
+
+    /**
+     * @return Current configuration snapshot.
+     */
+    public static Configuration getConfiguration() {
+        return configuration.get();
+    }
+
+    /**
+     * Loads a new configuration snapshot, and notifies the reload listeners of it.
+     * @return New snapshot.
+     */
+    public static synchronized Configuration reload() {
+        Configuration snapshot = Configuration.load(configuration.get().getVersion() + 1);
+        configuration.set(snapshot);
+        logger.info("Configuration was reloaded (version " + snapshot.getVersion() + ", " + snapshot.size()
+            + " properties from " + snapshot.getSources() + ").");
+        for (Consumer<Configuration> listener : reloadListeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                logger.error("Configuration reload listener failed: " + e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
     /**
-     * Creates base URL for the space module from application.properties file.
-     * @return Base URL to space module.
-     * @throws IOException
+     * Adds a function that is called with the new snapshot after every reload.
+     * @param listener Function. It is called on the thread that reloads.
      */
-    public static String getSpaceUrl() throws IOException {
-        Properties props = new Properties();
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        InputStream stream = loader.getResourceAsStream("application.properties");
-        props.load(stream);
-        return props.getProperty("space.url");
+    public static void addReloadListener(Consumer<Configuration> listener) {
+        reloadListeners.add(listener);
     }
 
     /**
-     * Get an integer value from application.properties file.
+     * Creates base URL for the space module.
+     * @return Base URL to space module. For example, "space:3333".
+     */
+    public static String getSpaceUrl() {
+        return getConfiguration().getString("space.url", "localhost:3333");
+    }
+
+    /**
+     * Get an integer value.
      * @param uri Variable name.
      * @param defaultValue Variable value to use, if variable cannot be found/used.
-     * @return Variable value from application.properties or provided default value.
+     * @return Variable value or provided default value.
      */
     public static int getInteger(String uri, int defaultValue) {
-        Properties props = new Properties();
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        InputStream stream = loader.getResourceAsStream("application.properties");
-        try {
-            props.load(stream);
-            return Integer.parseInt(props.getProperty(uri));
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            return defaultValue;
-        }
+        return getConfiguration().getInteger(uri, defaultValue);
     }
 
     /**
-     * Get a boolean value from application.properties file.
+     * Get a boolean value.
      * @param uri Variable name.
      * @param defaultValue Variable value to use, if variable cannot be found/used.
-     * @return Variable value from application.properties or provided default value.
+     * @return Variable value or provided default value.
      */
     public static boolean getBoolean(String uri, boolean defaultValue) {
-        Properties props = new Properties();
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        InputStream stream = loader.getResourceAsStream("application.properties");
-        try {
-            props.load(stream);
-            return Boolean.parseBoolean(props.getProperty(uri));
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            return defaultValue;
-        }
+        return getConfiguration().getBoolean(uri, defaultValue);
+    }
+
+    /**
+     * Get a string value.
+     * @param uri Variable name.
+     * @param defaultValue Variable value to use, if variable cannot be found/used.
+     * @return Variable value or provided default value.
+     */
+    public static String getString(String uri, String defaultValue) {
+        return getConfiguration().getString(uri, defaultValue);
     }
 }
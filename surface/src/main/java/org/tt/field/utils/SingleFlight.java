@@ -0,0 +1,88 @@
+package org.tt.field.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent calls. While a call for a key is in flight, further calls
+ * for the same key do not start a call of their own, but share the result of the one in
+ * flight. Once the call completes, the next call for the key starts a new one, so results
+ * are never reused after the fact. A call may be given a timeout, after which it is no
+ * longer shared, whether or not it ever completes.
+ *
+ * @author terratenff
+ * @param <K> Key that identifies identical calls.
+ * @param <V> Result of a call.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Makes a call, or joins the call for the same key that is already in flight.
+     * @param key Key of the call.
+     * @param call Starts the call. It is only invoked if no call for the key is in flight.
+     * @return Future that completes with the result of the call.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        return execute(key, call, 0);
+    }
+
+    /**
+     * Makes a call, or joins the call for the same key that is already in flight.
+     * @param key Key of the call.
+     * @param call Starts the call. It is only invoked if no call for the key is in flight.
+     * @param timeout How long the call is shared (milliseconds). 0 means no limit.
+     * @return Future that completes with the result of the call, or exceptionally with
+     * TimeoutException if the call does not complete within the timeout. The call itself
+     * is not cancelled, and the next call for the key starts a new one.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call, long timeout) {
+        CompletableFuture<V> flight = new CompletableFuture<V>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            sharedCount.incrementAndGet();
+            return existing;
+        }
+
+        callCount.incrementAndGet();
+        CompletableFuture<V> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        if (timeout > 0) {
+            result = result.copy().orTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        result.whenComplete((value, e) -> {
+            inFlight.remove(key, flight);
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight;
+    }
+
+    /**
+     * @return How many calls have been made.
+     */
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * @return How many times a call in flight has been shared instead of making a new one.
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+}
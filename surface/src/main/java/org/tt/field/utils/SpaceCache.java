@@ -0,0 +1,349 @@
+package org.tt.field.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-through cache for responses that are relayed from the space module. Entries are
+ * kept for TTL milliseconds, after which they are stale: a stale entry is still served, but
+ * it is revalidated in the background. Revalidation uses the ETag of the space module
+ * response, so that unchanged content is not transferred again. Entries that have been
+ * stale for too long are not served at all.
+ *
+ * The cache is bounded both by the number of entries and by their total size, and the
+ * least recently used entries are evicted first. Responses that are larger than
+ * MAX_ENTRY_BYTES are passed on, but not cached.
+ *
+ * @author terratenff
+ */
+public class SpaceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceCache.class);
+    private static SpaceCache instance;
+
+    /**
+     * Determines whether responses are cached at all.
+     */
+    private static final boolean ENABLED = PropertyUtils.getBoolean("org.tt.field.utils.SpaceCache.ENABLED", true);
+
+    /**
+     * How long an entry is fresh (milliseconds).
+     */
+    private static final int TTL = PropertyUtils.getInteger("org.tt.field.utils.SpaceCache.TTL", 5000);
+
+    /**
+     * How long an entry may be served after it has become stale (milliseconds).
+     */
+    private static final int MAX_STALENESS = PropertyUtils.getInteger("org.tt.field.utils.SpaceCache.MAX_STALENESS", 60000);
+
+    /**
+     * Maximum number of entries.
+     */
+    private static final int MAX_ENTRIES = PropertyUtils.getInteger("org.tt.field.utils.SpaceCache.MAX_ENTRIES", 256);
+
+    /**
+     * Maximum total size of the entries (bytes).
+     */
+    private static final int MAX_BYTES = PropertyUtils.getInteger("org.tt.field.utils.SpaceCache.MAX_BYTES", 33554432);
+
+    /**
+     * Maximum size of a single entry (bytes).
+     */
+    private static final int MAX_ENTRY_BYTES = PropertyUtils.getInteger("org.tt.field.utils.SpaceCache.MAX_ENTRY_BYTES", 4194304);
+
+    /**
+     * Getter for singleton instance.
+     * @return SpaceCache.
+     */
+    public static synchronized SpaceCache getInstance() {
+        if (instance == null) {
+            instance = new SpaceCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Cached response.
+     */
+    private static class Entry {
+
+        private final byte[] content;
+        private final String etag;
+        private volatile long validatedAt;
+        private boolean revalidating = false;
+
+        private Entry(byte[] content, String etag, long validatedAt) {
+            this.content = content;
+            this.etag = etag;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    /**
+     * Entries by key, from least to most recently used.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private final ExecutorService revalidator;
+
+    private long totalBytes = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong uncacheableCount = new AtomicLong();
+
+    private SpaceCache() {
+        revalidator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "space-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looks up a cached response. If the entry is stale, it is returned anyway, and the
+     * revalidation task is started unless it is already running. The task is expected to
+     * call either store, markValidated or markRevalidationFailed.
+     * @param key Cache key.
+     * @param revalidation Task that revalidates the entry. It is run on a background thread.
+     * @return Cached content, or null if there is no entry that may be served.
+     */
+    public byte[] lookup(String key, Runnable revalidation) {
+        if (!ENABLED) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry;
+        boolean revalidate = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || now - entry.validatedAt > TTL + MAX_STALENESS) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            if (now - entry.validatedAt > TTL && !entry.revalidating) {
+                entry.revalidating = true;
+                revalidate = true;
+            }
+        }
+
+        if (now - entry.validatedAt > TTL) {
+            staleHitCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        if (revalidate) {
+            revalidationCount.incrementAndGet();
+            revalidator.execute(revalidation);
+        }
+        return entry.content;
+    }
+
+    /**
+     * @param key Cache key.
+     * @return ETag of the cached response, or null if there is none.
+     */
+    public synchronized String getEtag(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.etag : null;
+    }
+
+    /**
+     * Marks an entry fresh again, since the space module reported it unchanged.
+     * @param key Cache key.
+     */
+    public synchronized void markValidated(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.validatedAt = System.currentTimeMillis();
+            entry.revalidating = false;
+            notModifiedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Allows an entry to be revalidated again later, since the revalidation failed.
+     * @param key Cache key.
+     */
+    public synchronized void markRevalidationFailed(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.revalidating = false;
+        }
+    }
+
+    /**
+     * Starts capturing a response for the cache. Everything that is written to the capture
+     * is written to the target as well. Once the response is complete, it is cached by
+     * calling commit.
+     * @param key Cache key.
+     * @param etag ETag of the space module response, or null.
+     * @param target Stream that the response is written to.
+     * @return Capture.
+     */
+    public Capture capture(String key, String etag, OutputStream target) {
+        return new Capture(key, etag, target);
+    }
+
+    /**
+     * Stores a response.
+     * @param key Cache key.
+     * @param etag ETag of the space module response, or null.
+     * @param content Response.
+     */
+    public synchronized void store(String key, String etag, byte[] content) {
+        if (!ENABLED) {
+            return;
+        }
+
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.content.length;
+        }
+        entries.put(key, new Entry(content, etag, System.currentTimeMillis()));
+        totalBytes += content.length;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > MAX_ENTRIES || totalBytes > MAX_BYTES) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            totalBytes -= eldest.content.length;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return How many times a stale entry was served while it was being revalidated.
+     */
+    public long getStaleHitCount() {
+        return staleHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * @return How many revalidations found the entry unchanged.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return How many responses were too large to be cached.
+     */
+    public long getUncacheableCount() {
+        return uncacheableCount.get();
+    }
+
+    /**
+     * Stream that passes a response on to its target and keeps a copy of it for the cache.
+     * If the response grows larger than an entry may be, the copy is dropped, but the
+     * response is still passed on.
+     */
+    public class Capture extends OutputStream {
+
+        private final String key;
+        private final String etag;
+        private final OutputStream target;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private Capture(String key, String etag, OutputStream target) {
+            this.key = key;
+            this.etag = etag;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            if (reserve(1)) {
+                copy.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            if (reserve(len)) {
+                copy.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        /**
+         * Caches the captured response. Must only be called once the response is complete.
+         * @return Captured response, or null if it was too large to be cached.
+         */
+        public byte[] commit() {
+            if (copy == null) {
+                return null;
+            }
+            byte[] content = copy.toByteArray();
+            store(key, etag, content);
+            copy = null;
+            return content;
+        }
+
+        private boolean reserve(int length) {
+            if (copy == null) {
+                return false;
+            }
+            if (copy.size() + length > MAX_ENTRY_BYTES) {
+                logger.debug("Response for " + key + " is too large to be cached.");
+                uncacheableCount.incrementAndGet();
+                copy = null;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package org.tt.field.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared HTTP client for the space module. Connections to the space module are pooled and
+ * kept alive between requests, so that neither transit ships nor the space controller pay
+ * for a new connection on every call. Every request is sent asynchronously: blocking
+ * callers simply wait for the returned future. The number of requests in flight is limited,
+ * which also limits the number of connections: surplus requests wait for their turn
+ * instead of opening connections of their own. A streamed response holds on to its turn
+ * until its body is closed. If too many requests are already waiting, new ones are
+ * rejected.
+ *
+ * Payloads are JSON, compressed with gzip on the wire: ships that are sent are compressed
+ * once they exceed COMPRESSION_THRESHOLD bytes, and compressed responses are accepted. If
+ * the space module does not accept compressed requests, they are sent uncompressed instead.
+ *
+ * Every request is guarded by a circuit breaker. Requests that fail to reach the space
+ * module, or that it fails to handle (5xx), count as failures.
+ *
+ * @author terratenff
+ */
+public class SpaceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceClient.class);
+    private static SpaceClient instance;
+
+    /**
+     * How long it may take to open a connection to the space module (milliseconds).
+     */
+    private static final int CONNECT_TIMEOUT = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.CONNECT_TIMEOUT", 5000);
+
+    /**
+     * How long it may take for the space module to accept a ship (milliseconds).
+     */
+    private static final int SEND_TIMEOUT = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.SEND_TIMEOUT", 5000);
+
+    /**
+     * How long it may take for the space module to return requested entities (milliseconds).
+     */
+    private static final int FETCH_TIMEOUT = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.FETCH_TIMEOUT", 5000);
+
+    /**
+     * Determines whether HTTP/2 is offered to the space module. HTTP/1.1 is used if the
+     * space module does not accept it.
+     */
+    private static final boolean HTTP2 = PropertyUtils.getBoolean("org.tt.field.utils.SpaceClient.HTTP2", false);
+
+    /**
+     * Maximum number of requests in flight, and thus of open connections to the space module.
+     */
+    private static final int MAX_CONNECTIONS = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.MAX_CONNECTIONS", 16);
+
+    /**
+     * Maximum number of requests that wait for a request in flight to finish. Requests
+     * beyond it fail right away.
+     */
+    private static final int MAX_PENDING_REQUESTS = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.MAX_PENDING_REQUESTS", 1024);
+
+    /**
+     * Number of consecutive failed requests that opens the circuit breaker.
+     */
+    private static final int FAILURE_THRESHOLD = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.FAILURE_THRESHOLD", 5);
+
+    /**
+     * How long the circuit breaker stays open at first (milliseconds). The time doubles
+     * every time a probe fails, up to MAX_OPEN_TIME.
+     */
+    private static final int OPEN_TIME = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.OPEN_TIME", 2000);
+
+    private static final int MAX_OPEN_TIME = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.MAX_OPEN_TIME", 60000);
+
+    /**
+     * Determines whether payloads are compressed.
+     */
+    private static final boolean COMPRESSION = PropertyUtils.getBoolean("org.tt.field.utils.SpaceClient.COMPRESSION", true);
+
+    /**
+     * Size from which a ship payload is compressed (bytes). Compressing small payloads costs
+     * more time than it saves.
+     */
+    private static final int COMPRESSION_THRESHOLD = PropertyUtils.getInteger("org.tt.field.utils.SpaceClient.COMPRESSION_THRESHOLD", 1024);
+
+    /**
+     * Getter for singleton instance.
+     * @return SpaceClient.
+     */
+    public static synchronized SpaceClient getInstance() {
+        if (instance == null) {
+            instance = new SpaceClient();
+        }
+        return instance;
+    }
+
+    private final HttpClient client;
+
+    /**
+     * Base URL of the space module. For example, "http://space:3333". It follows space.url
+     * when the configuration is reloaded.
+     */
+    private volatile String baseUrl;
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("space module", FAILURE_THRESHOLD, OPEN_TIME, MAX_OPEN_TIME);
+
+    /**
+     * Concurrent fetches of the same path share one request.
+     */
+    private final SingleFlight<String, String> fetches = new SingleFlight<String, String>();
+
+    /**
+     * Requests that are waiting for a request in flight to finish.
+     */
+    private final Queue<Runnable> pendingRequests = new ArrayDeque<Runnable>();
+
+    private int requestsInFlight = 0;
+
+    /**
+     * Determines whether a thread is starting waiting requests. Requests that finish in the
+     * meantime leave their slots for that thread to hand over.
+     */
+    private boolean dispatching = false;
+
+    /**
+     * Determines whether request bodies are compressed. Cleared once the space module has
+     * responded that it does not accept them.
+     */
+    private volatile boolean compressRequests = COMPRESSION;
+
+    private SpaceClient() {
+        baseUrl = "http://" + PropertyUtils.getSpaceUrl();
+
+        client = HttpClient.newBuilder()
+            .version(HTTP2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+        logger.info("Space client is using " + baseUrl + " (" + client.version() + ").");
+
+        PropertyUtils.addReloadListener(configuration -> {
+            String reloadedUrl = "http://" + PropertyUtils.getSpaceUrl();
+            if (!reloadedUrl.equals(baseUrl)) {
+                baseUrl = reloadedUrl;
+                SpaceCache.getInstance().clear();
+                logger.info("Space client is now using " + baseUrl + ".");
+            }
+        });
+    }
+
+    /**
+     * Sends a ship to space module. The circuit breaker is not consulted: callers that send
+     * ships are expected to check it themselves, see getCircuitBreaker.
+     * @param json Ship entity in JSON format, encoded in UTF-8. See SpaceJsonWriter.
+     * @return Future that completes with true, if the space module accepted the ship.
+     * The future never completes exceptionally.
+     */
+    public CompletableFuture<Boolean> sendShip(byte[] json) {
+        return post("/ships", json, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> isSuccessful(response.statusCode()))
+            .exceptionally(e -> {
+                logger.debug("Ship could not be sent to space: " + e.getMessage());
+                return false;
+            });
+    }
+
+    /**
+     * Sends a batch of ships to space module at once. The circuit breaker is not consulted,
+     * like with sendShip.
+     * @param json Array of ship entities in JSON format, encoded in UTF-8.
+     * @return Future that completes with the outcome of every ship, by ship ID: true, if
+     * the space module accepted the ship. Ships that are missing from the result were not
+     * accepted. If the space module does not support batches, the future completes
+     * exceptionally with UnsupportedOperationException.
+     */
+    public CompletableFuture<Map<Long, Boolean>> sendShips(byte[] json) {
+        return post("/ships/batch", json, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+            .handle((response, e) -> {
+                Map<Long, Boolean> results = new HashMap<Long, Boolean>();
+                if (e != null) {
+                    logger.debug("Ships could not be sent to space: " + e.getMessage());
+                    return results;
+                }
+                if (response.statusCode() == 404 || response.statusCode() == 405) {
+                    throw new CompletionException(new UnsupportedOperationException("Space module does not accept batches of ships."));
+                }
+                if (!isSuccessful(response.statusCode())) {
+                    return results;
+                }
+
+                try {
+                    JSONArray outcomes = new JSONArray(response.body());
+                    for (int i = 0; i < outcomes.length(); i++) {
+                        JSONObject outcome = outcomes.getJSONObject(i);
+                        results.put(outcome.getLong("id"), outcome.optBoolean("accepted", false));
+                    }
+                } catch (JSONException jsonException) {
+                    logger.warn("Space module responded to a batch of ships with an unexpected body: " + jsonException.getMessage());
+                }
+                return results;
+            });
+    }
+
+    /**
+     * Fetches data objects from the space module. If the same path is already being fetched,
+     * the response of that request is shared.
+     * @param path URL subpage and parameters. For example, "/ships?page=1".
+     * @return Future that completes with the response body, or with null if the space module
+     * could not be reached or did not respond successfully, or if the circuit breaker is
+     * open. The future never completes exceptionally.
+     */
+    public CompletableFuture<String> fetch(String path) {
+        return fetches.execute(path, () -> fetchOnce(path));
+    }
+
+    private CompletableFuture<String> fetchOnce(String path) {
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMillis(FETCH_TIMEOUT))
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", COMPRESSION ? Compression.GZIP : "identity")
+            .GET()
+            .build();
+
+        return submit(() -> client.sendAsync(request, Compression.stringBodyHandler()))
+            .thenApply(response -> isSuccessful(response.statusCode()) ? response.body() : null)
+            .exceptionally(e -> {
+                logger.debug("Entities could not be fetched from space: " + e.getMessage());
+                return null;
+            });
+    }
+
+    /**
+     * Fetches data objects from the space module as a stream, so that the response does not
+     * have to be held in memory as a whole. The future completes as soon as the space module
+     * has started to respond.
+     * @param path URL subpage and parameters. For example, "/ships?page=1".
+     * @return Future that completes with the response body stream, which the caller must
+     * close, or with null if the space module could not be reached or did not respond
+     * successfully, or if the circuit breaker is open. The future never completes
+     * exceptionally.
+     */
+    public CompletableFuture<InputStream> fetchStream(String path) {
+        return fetchStream(path, null).thenApply(response -> response != null ? response.body() : null);
+    }
+
+    /**
+     * Fetches data objects from the space module as a stream, unless they have not changed.
+     * @param path URL subpage and parameters. For example, "/ships?page=1".
+     * @param etag ETag of the previously fetched response, or null.
+     * @return Future that completes with the response, whose body stream the caller must
+     * close. The status code is 304 if the data objects match the ETag. The future completes
+     * with null if the space module could not be reached or did not respond successfully, or
+     * if the circuit breaker is open. The future never completes exceptionally.
+     */
+    public CompletableFuture<HttpResponse<InputStream>> fetchStream(String path, String etag) {
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMillis(FETCH_TIMEOUT))
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", COMPRESSION ? Compression.GZIP : "identity")
+            .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        HttpRequest request = builder.build();
+
+        // The connection stays in use until the body has been read, so the slot of the
+        // request is only released once the body is closed.
+
+        return submit(release -> client.sendAsync(request, releasingBodyHandler(release)), true)
+            .thenApply(response -> {
+                if (isSuccessful(response.statusCode()) || response.statusCode() == 304) {
+                    return response;
+                }
+                try {
+                    response.body().close();
+                } catch (IOException e) {
+                    logger.debug("Response stream could not be closed: " + e.getMessage());
+                }
+                return (HttpResponse<InputStream>) null;
+            })
+            .exceptionally(e -> {
+                logger.debug("Entities could not be fetched from space: " + e.getMessage());
+                return null;
+            });
+    }
+
+    /**
+     * @return Circuit breaker that guards requests to the space module.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Posts a JSON payload to the space module, compressed if it is large enough. If the
+     * space module does not accept the compressed payload, it is sent again uncompressed.
+     * @param <T> Type of the response body.
+     * @param path URL subpage.
+     * @param json Payload.
+     * @param handler Handler of the response body.
+     * @return Future of the response.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> post(String path, byte[] body, HttpResponse.BodyHandler<T> handler) {
+        if (!compressRequests || body.length < COMPRESSION_THRESHOLD) {
+            HttpRequest request = postRequest(path, body, false);
+            return submit(() -> client.sendAsync(request, handler));
+        }
+
+        HttpRequest request = postRequest(path, Compression.gzip(body), true);
+        return submit(() -> client.sendAsync(request, handler)).thenCompose(response -> {
+            if (response.statusCode() != 415) {
+                return CompletableFuture.completedFuture(response);
+            }
+            if (compressRequests) {
+                compressRequests = false;
+                logger.warn("Space module does not accept compressed requests. Requests are sent uncompressed.");
+            }
+            HttpRequest uncompressedRequest = postRequest(path, body, false);
+            return submit(() -> client.sendAsync(uncompressedRequest, handler));
+        });
+    }
+
+    private HttpRequest postRequest(String path, byte[] body, boolean compressed) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofMillis(SEND_TIMEOUT))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (compressed) {
+            builder.header("Content-Encoding", Compression.GZIP);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Base URL of the space module.
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Sends a request right away if there is room for it, and otherwise once a request in
+     * flight has finished. The outcome is recorded in the circuit breaker.
+     * @param <T> Type of the response body.
+     * @param sender Function that sends the request.
+     * @return Future of the response. It completes exceptionally with
+     * RejectedExecutionException if too many requests are waiting already.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> submit(Supplier<CompletableFuture<HttpResponse<T>>> sender) {
+        return submit(release -> sender.get(), false);
+    }
+
+    /**
+     * Sends a request right away if there is room for it, and otherwise once a request in
+     * flight has finished. The outcome is recorded in the circuit breaker.
+     * @param <T> Type of the response body.
+     * @param sender Function that sends the request. It is given the function that releases
+     * the slot of the request. The function may be called more than once.
+     * @param releasedByBody true, if the body of a response releases the slot itself. If the
+     * request fails, the slot is released regardless.
+     * @return Future of the response. It completes exceptionally with
+     * RejectedExecutionException if too many requests are waiting already.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> submit(Function<Runnable, CompletableFuture<HttpResponse<T>>> sender,
+            boolean releasedByBody) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<HttpResponse<T>>();
+        Runnable send = () -> {
+            AtomicBoolean released = new AtomicBoolean(false);
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    startNextRequest();
+                }
+            };
+            CompletableFuture<HttpResponse<T>> response;
+            try {
+                response = sender.apply(release);
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((value, e) -> {
+                if (e != null || !releasedByBody) {
+                    release.run();
+                }
+                if (e != null || value.statusCode() >= 500) {
+                    circuitBreaker.recordFailure();
+                } else {
+                    circuitBreaker.recordSuccess();
+                }
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        synchronized (pendingRequests) {
+            if (requestsInFlight >= MAX_CONNECTIONS) {
+                if (pendingRequests.size() >= MAX_PENDING_REQUESTS) {
+                    result.completeExceptionally(new RejectedExecutionException("Too many requests are waiting for the space module."));
+                    return result;
+                }
+                pendingRequests.add(send);
+                return result;
+            }
+            requestsInFlight++;
+        }
+        send.run();
+        return result;
+    }
+
+    /**
+     * Releases the slot of a finished request, and starts waiting requests while there is
+     * room for them. Requests that finish while they are started, even on the same thread,
+     * only release their slots: the thread that is already starting requests hands them over
+     * in its loop, so that the stack does not grow with the number of waiting requests.
+     */
+    private void startNextRequest() {
+        synchronized (pendingRequests) {
+            requestsInFlight--;
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+        }
+        while (true) {
+            Runnable next;
+            synchronized (pendingRequests) {
+                if (requestsInFlight >= MAX_CONNECTIONS || pendingRequests.isEmpty()) {
+                    dispatching = false;
+                    return;
+                }
+                next = pendingRequests.poll();
+                requestsInFlight++;
+            }
+            next.run();
+        }
+    }
+
+    /**
+     * @param release Releases the slot of the request.
+     * @return Body handler that provides the response body as a stream, like
+     * Compression.streamBodyHandler, and releases the slot of the request once the stream is
+     * closed.
+     */
+    private static HttpResponse.BodyHandler<InputStream> releasingBodyHandler(Runnable release) {
+        HttpResponse.BodyHandler<InputStream> handler = Compression.streamBodyHandler();
+        return info -> HttpResponse.BodySubscribers.<InputStream, InputStream>mapping(handler.apply(info),
+            stream -> new ReleasingInputStream(stream, release));
+    }
+
+    /**
+     * @return Number of requests that are waiting for a request in flight to finish.
+     */
+    int getPendingRequestCount() {
+        synchronized (pendingRequests) {
+            return pendingRequests.size();
+        }
+    }
+
+    /**
+     * Response body stream that releases the slot of its request once it is closed.
+     */
+    private static class ReleasingInputStream extends FilterInputStream {
+
+        private final Runnable release;
+
+        private ReleasingInputStream(InputStream stream, Runnable release) {
+            super(stream);
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    private static boolean isSuccessful(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
@@ -0,0 +1,272 @@
+package org.tt.field.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+/**
+ * Streaming reader for entities received from the space module. Entities are built directly
+ * from the tokens of the response, one at a time, so that neither the response nor a tree of
+ * it is ever held in memory as a whole. Entities are built as with their JSONObject
+ * constructors. Fields that those constructors do not use are skipped.
+ *
+ * @author terratenff
+ */
+public class SpaceJsonReader {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Reads ships from a JSON object whose keys are ship IDs and values are ships.
+     * @param stream Stream of the JSON object. It is closed once it has been read.
+     * @param consumer Receives each ship as soon as it has been read.
+     * @throws IOException The stream could not be read, or it is not valid.
+     */
+    public static void readShips(InputStream stream, Consumer<Ship> consumer) throws IOException {
+        try (JsonParser parser = factory.createParser(stream)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                consumer.accept(readShip(parser, parser.nextToken()));
+            }
+        }
+    }
+
+    /**
+     * Reads a single ship.
+     * @param stream Stream of the JSON object. It is closed once it has been read.
+     * @return Ship.
+     * @throws IOException The stream could not be read, or it is not valid.
+     */
+    public static Ship readShip(InputStream stream) throws IOException {
+        try (JsonParser parser = factory.createParser(stream)) {
+            return readShip(parser, parser.nextToken());
+        }
+    }
+
+    /**
+     * Reads logs from a JSON array.
+     * @param stream Stream of the JSON array. It is closed once it has been read.
+     * @param consumer Receives each log as soon as it has been read.
+     * @throws IOException The stream could not be read, or it is not valid.
+     */
+    public static void readLogs(InputStream stream, Consumer<Log> consumer) throws IOException {
+        try (JsonParser parser = factory.createParser(stream)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                consumer.accept(readLog(parser, token));
+            }
+        }
+    }
+
+    /**
+     * Reads missions from a JSON array.
+     * @param stream Stream of the JSON array. It is closed once it has been read.
+     * @param consumer Receives each mission as soon as it has been read.
+     * @throws IOException The stream could not be read, or it is not valid.
+     */
+    public static void readMissions(InputStream stream, Consumer<Mission> consumer) throws IOException {
+        try (JsonParser parser = factory.createParser(stream)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                consumer.accept(readMission(parser, token));
+            }
+        }
+    }
+
+    /**
+     * Reads mission events from a JSON array.
+     * @param stream Stream of the JSON array. It is closed once it has been read.
+     * @param consumer Receives each event as soon as it has been read.
+     * @throws IOException The stream could not be read, or it is not valid.
+     */
+    public static void readEvents(InputStream stream, Consumer<Event> consumer) throws IOException {
+        try (JsonParser parser = factory.createParser(stream)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                consumer.accept(readEvent(parser, token));
+            }
+        }
+    }
+
+    private static Ship readShip(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        Ship ship = new Ship();
+        List<Log> logs = new ArrayList<Log>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+            switch (field) {
+                case "id":
+                    ship.setId(parser.getLongValue());
+                    break;
+                case "name":
+                    ship.setName(parser.getValueAsString());
+                    break;
+                case "status":
+                    ship.setStatus(parser.getValueAsString());
+                    break;
+                case "condition":
+                    ship.setCondition(parser.getIntValue());
+                    break;
+                case "description":
+                    ship.setDescription(parser.getValueAsString());
+                    break;
+                case "mission":
+                    ship.setMission(token == JsonToken.VALUE_NULL ? null : readMission(parser, token));
+                    break;
+                case "logs":
+                    expect(parser, token, JsonToken.START_ARRAY);
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        logs.add(readLog(parser, token));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        ship.setLogs(logs);
+        return ship;
+    }
+
+    private static Mission readMission(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        Mission mission = new Mission();
+        List<Event> events = new ArrayList<Event>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+            switch (field) {
+                case "id":
+                    mission.setId(parser.getLongValue());
+                    break;
+                case "title":
+                    mission.setTitle(parser.getValueAsString());
+                    break;
+                case "objective":
+                    mission.setObjective(parser.getValueAsString());
+                    break;
+                case "description":
+                    mission.setDescription(parser.getValueAsString());
+                    break;
+                case "radius":
+                    mission.setRadius(parser.getDoubleValue());
+                    break;
+                case "center":
+                    expect(parser, token, JsonToken.START_OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String axis = parser.getCurrentName();
+                        parser.nextToken();
+                        if (axis.equals("x")) {
+                            mission.setCenterX(parser.getDoubleValue());
+                        } else if (axis.equals("y")) {
+                            mission.setCenterY(parser.getDoubleValue());
+                        } else if (axis.equals("z")) {
+                            mission.setCenterZ(parser.getDoubleValue());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    break;
+                case "events":
+                    expect(parser, token, JsonToken.START_ARRAY);
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        events.add(readEvent(parser, token));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        mission.setEvents(events);
+        return mission;
+    }
+
+    private static Log readLog(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        Log log = new Log();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    log.setId(parser.getLongValue());
+                    break;
+                case "timestamp":
+                    log.setTimestamp(readTimestamp(parser));
+                    break;
+                case "description":
+                    log.setDescription(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return log;
+    }
+
+    private static Event readEvent(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        Event event = new Event();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    event.setId(parser.getLongValue());
+                    break;
+                case "timestamp":
+                    event.setTimestamp(readTimestamp(parser));
+                    break;
+                case "description":
+                    event.setDescription(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Reads a timestamp straight from the characters of the current token, without building
+     * a string of it.
+     * @return Timestamp, or null if the value is null.
+     */
+    private static Timestamp readTimestamp(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.VALUE_STRING);
+        try {
+            return TimeUtils.toTimestamp(CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(parser, e.getMessage());
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + ", but found " + actual + ".");
+        }
+    }
+}
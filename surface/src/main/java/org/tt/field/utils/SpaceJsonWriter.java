@@ -0,0 +1,234 @@
+package org.tt.field.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+/**
+ * Streaming writer for entities that are sent to the space module. Entities are written
+ * directly as tokens, nested entities included, so that no intermediate JSON trees or strings
+ * are built. The output has the same fields as the JSONObject-based format: fields whose
+ * value is null are left out, except for the departure and arrival times of a mission, which
+ * are written as "null".
+ *
+ * @author terratenff
+ */
+public class SpaceJsonWriter {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Initial buffer size for a single serialized ship (bytes).
+     */
+    private static final int SHIP_BUFFER_SIZE = 2048;
+
+    /**
+     * Writes a ship to a stream as UTF-8. The stream is left open.
+     * @param ship Ship entity.
+     * @param stream Stream to write to.
+     * @throws IOException The stream could not be written to.
+     */
+    public static void writeShip(Ship ship, OutputStream stream) throws IOException {
+        try (JsonGenerator generator = createGenerator(stream)) {
+            writeShip(ship, generator);
+        }
+    }
+
+    /**
+     * Writes a ship to a character stream. The stream is left open.
+     * @param ship Ship entity.
+     * @param writer Character stream to write to.
+     * @throws IOException The stream could not be written to.
+     */
+    public static void writeShip(Ship ship, Writer writer) throws IOException {
+        try (JsonGenerator generator = createGenerator(writer)) {
+            writeShip(ship, generator);
+        }
+    }
+
+    /**
+     * Writes ships to a stream as a JSON array in UTF-8. The stream is left open.
+     * @param ships Ship entities.
+     * @param stream Stream to write to.
+     * @throws IOException The stream could not be written to.
+     */
+    public static void writeShips(Collection<Ship> ships, OutputStream stream) throws IOException {
+        try (JsonGenerator generator = createGenerator(stream)) {
+            generator.writeStartArray();
+            for (Ship ship : ships) {
+                writeShip(ship, generator);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * @param ship Ship entity.
+     * @return Ship in JSON format, encoded in UTF-8.
+     */
+    public static byte[] toBytes(Ship ship) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(SHIP_BUFFER_SIZE);
+        try {
+            writeShip(ship, stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * @param ship Ship entity.
+     * @return Ship in JSON format.
+     */
+    public static String toJson(Ship ship) {
+        return write(generator -> writeShip(ship, generator));
+    }
+
+    /**
+     * @param mission Mission entity.
+     * @return Mission in JSON format.
+     */
+    public static String toJson(Mission mission) {
+        return write(generator -> writeMission(mission, generator));
+    }
+
+    /**
+     * @param log Log entity.
+     * @return Log in JSON format.
+     */
+    public static String toJson(Log log) {
+        return write(generator -> writeLog(log, generator));
+    }
+
+    /**
+     * @param event Event entity.
+     * @return Event in JSON format.
+     */
+    public static String toJson(Event event) {
+        return write(generator -> writeEvent(event, generator));
+    }
+
+    private static void writeShip(Ship ship, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, "id", ship.getId());
+        writeString(generator, "name", ship.getName());
+        writeString(generator, "status", ship.getStatus());
+        generator.writeNumberField("condition", ship.getCondition());
+        generator.writeNumberField("peakCondition", ship.getPeakCondition());
+        writeString(generator, "description", ship.getDescription());
+        if (ship.getMission() != null) {
+            generator.writeFieldName("mission");
+            writeMission(ship.getMission(), generator);
+        }
+
+        generator.writeArrayFieldStart("logs");
+        List<Log> logs = ship.getLogs();
+        if (logs != null) {
+            for (Log log : logs) {
+                writeLog(log, generator);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeMission(Mission mission, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, "id", mission.getId());
+        writeString(generator, "title", mission.getTitle());
+        writeString(generator, "objective", mission.getObjective());
+        writeString(generator, "description", mission.getDescription());
+        generator.writeNumberField("centerX", mission.getCenterX());
+        generator.writeNumberField("centerY", mission.getCenterY());
+        generator.writeNumberField("centerZ", mission.getCenterZ());
+        generator.writeNumberField("radius", mission.getRadius());
+        generator.writeStringField("departureTime", toString(mission.getDepartureTime()));
+        generator.writeStringField("arrivalTime", toString(mission.getArrivalTime()));
+        writeString(generator, "currentDestination", mission.getCurrentDestination());
+
+        generator.writeArrayFieldStart("events");
+        List<Event> events = mission.getEvents();
+        if (events != null) {
+            for (Event event : events) {
+                writeEvent(event, generator);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeLog(Log log, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, "id", log.getId());
+        writeString(generator, "description", log.getDescription());
+        writeString(generator, "timestamp", log.getTimestamp() != null ? log.getTimestamp().toString() : null);
+        generator.writeEndObject();
+    }
+
+    private static void writeEvent(Event event, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeNumber(generator, "id", event.getId());
+        writeString(generator, "description", event.getDescription());
+        writeString(generator, "timestamp", event.getTimestamp() != null ? event.getTimestamp().toString() : null);
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value.longValue());
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static String toString(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toString() : "null";
+    }
+
+    private static JsonGenerator createGenerator(OutputStream stream) throws IOException {
+        JsonGenerator generator = factory.createGenerator(stream, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static JsonGenerator createGenerator(Writer writer) throws IOException {
+        JsonGenerator generator = factory.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    /**
+     * Function that writes an entity with a generator.
+     */
+    private interface Content {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static String write(Content content) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = createGenerator(writer)) {
+            content.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -1,23 +1,165 @@
 package org.tt.field.utils;
 
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 
 /**
  * Utility functions for timestamps.
- * 
+ *
  * @author terratenff
  */
 public class TimeUtils {
 
+    /**
+     * Rules of the time zone that timestamps are interpreted in, like Timestamp.valueOf does.
+     * The time zone of the application is not expected to change while it runs.
+     */
+    private static final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+
+    private static final int[] FRACTION_SCALE = {
+        0, 100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1
+    };
+
     /**
      * Convert string-formatted timestamp into a Timestamp object.
      * @param str String timestamp. Example: "2023-10-28T11:43:41.657Z"
      * @return Timestamp object from specified string timestamp.
+     * @throws IllegalArgumentException Timestamp is not in the expected format.
      */
     public static Timestamp toTimestamp(String str) {
-        String formattedDate = str
-            .replace("T", " ")
-            .replace("Z", "");
-        return Timestamp.valueOf(formattedDate);
+        return toTimestamp((CharSequence) str);
+    }
+
+    /**
+     * Convert a timestamp in ISO-8601 format into a Timestamp object. The timestamp is parsed
+     * directly from the characters, without intermediate strings or date-time objects.
+     *
+     * Both "T" and " " are accepted between date and time, so timestamps in the format of
+     * Timestamp.toString are accepted as well. Seconds and fractions of seconds (up to
+     * nanoseconds) are optional. A trailing "Z" is allowed but ignored: date and time are
+     * interpreted in the time zone of the application, like they have always been. Other zone
+     * designators (such as "+01:00") are rejected rather than ignored.
+     * @param chars String timestamp. Example: "2023-10-28T11:43:41.657Z"
+     * @return Timestamp object from specified string timestamp.
+     * @throws IllegalArgumentException Timestamp is not in the expected format.
+     */
+    public static Timestamp toTimestamp(CharSequence chars) {
+        return toTimestamp(chars, zoneRules);
+    }
+
+    /**
+     * Convert a timestamp in ISO-8601 format into a Timestamp object, interpreting date and
+     * time with specified time zone rules.
+     */
+    static Timestamp toTimestamp(CharSequence chars, ZoneRules rules) {
+        int length = chars.length();
+        if (length < 16 || chars.charAt(4) != '-' || chars.charAt(7) != '-' || chars.charAt(13) != ':'
+                || (chars.charAt(10) != 'T' && chars.charAt(10) != ' ')) {
+            throw invalid(chars);
+        }
+        int year = digits(chars, 0, 4);
+        int month = digits(chars, 5, 2);
+        int day = digits(chars, 8, 2);
+        int hour = digits(chars, 11, 2);
+        int minute = digits(chars, 14, 2);
+
+        int second = 0;
+        int nanos = 0;
+        int i = 16;
+        if (i < length && chars.charAt(i) == ':') {
+            second = digits(chars, i + 1, 2);
+            i += 3;
+            if (i < length && chars.charAt(i) == '.') {
+                int start = ++i;
+                while (i < length && i - start < 9 && isDigit(chars.charAt(i))) {
+                    nanos = nanos * 10 + (chars.charAt(i) - '0');
+                    i++;
+                }
+                if (i == start) {
+                    throw invalid(chars);
+                }
+                nanos *= FRACTION_SCALE[i - start];
+            }
+        }
+        if (i < length && (chars.charAt(i) != 'Z' || i + 1 != length)) {
+            throw invalid(chars);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw invalid(chars);
+        }
+
+        long localSecond = epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+        ZoneOffset zoneOffset = rules.isFixedOffset()
+            ? rules.getOffset(Instant.EPOCH)
+            : offsetOf(rules, LocalDateTime.of(year, month, day, hour, minute, second));
+        Timestamp timestamp = new Timestamp((localSecond - zoneOffset.getTotalSeconds()) * 1000);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    /**
+     * Offset of the time zone at a local date and time. Times that occur twice, when clocks
+     * are turned back, are taken as the later one, like Timestamp.valueOf does.
+     */
+    private static ZoneOffset offsetOf(ZoneRules rules, LocalDateTime time) {
+        ZoneOffsetTransition transition = rules.getTransition(time);
+        return transition != null && transition.isOverlap() ? transition.getOffsetAfter() : rules.getOffset(time);
+    }
+
+    private static int digits(CharSequence chars, int start, int count) {
+        if (start + count > chars.length()) {
+            throw invalid(chars);
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = chars.charAt(i);
+            if (!isDigit(c)) {
+                throw invalid(chars);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Number of days from 1970-01-01 to a date of the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence chars) {
+        return new IllegalArgumentException("Timestamp format must be yyyy-mm-ddThh:mm[:ss[.fffffffff]][Z]: " + chars);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package org.tt.field;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.tt.field.utils.Compression;
+
+public class CompressedRequestFilterTest {
+
+    private static final int MAX_BODY_SIZE = 16777216;
+
+    private static MockHttpServletRequest createRequest(String encoding, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/ships/receive-ship");
+        request.setContentType("application/json");
+        request.addHeader("Content-Encoding", encoding);
+        request.setContent(body);
+        return request;
+    }
+
+    @Test
+    public void compressedBodyIsDecompressed() throws Exception {
+        byte[] body = "{\"id\":1,\"name\":\"Ship 1\"}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("gzip", Compression.gzip(body)), response, chain);
+
+        HttpServletRequest passed = (HttpServletRequest) chain.getRequest();
+        assertNotNull(passed);
+        assertNull(passed.getHeader("Content-Encoding"));
+        assertEquals(body.length, passed.getContentLength());
+        assertArrayEquals(body, passed.getInputStream().readAllBytes());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void bodyAtLimitIsAccepted() throws Exception {
+        byte[] body = new byte[MAX_BODY_SIZE];
+        MockFilterChain chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("gzip", Compression.gzip(body)), new MockHttpServletResponse(), chain);
+
+        assertEquals(MAX_BODY_SIZE, ((HttpServletRequest) chain.getRequest()).getContentLength());
+    }
+
+    @Test
+    public void bodyOverLimitIsRefused() throws Exception {
+        byte[] body = new byte[MAX_BODY_SIZE + 1];
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("gzip", Compression.gzip(body)), response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    public void invalidBodiesAndEncodingsAreRefused() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("gzip", "not gzip".getBytes(StandardCharsets.UTF_8)), response, chain);
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest());
+
+        byte[] truncated = Compression.gzip(new byte[4096]);
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("gzip", Arrays.copyOf(truncated, truncated.length / 2)), response, chain);
+        assertEquals(400, response.getStatus());
+
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(createRequest("br", new byte[1]), response, chain);
+        assertEquals(415, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    public void readListenerIsCalledThroughOriginalStream() throws Exception {
+        byte[] body = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+        ListeningRequest request = new ListeningRequest(createRequest("gzip", Compression.gzip(body)));
+        MockFilterChain chain = new MockFilterChain();
+        new CompressedRequestFilter().doFilter(request, new MockHttpServletResponse(), chain);
+
+        ServletInputStream input = ((HttpServletRequest) chain.getRequest()).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<String>();
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[2];
+                while (input.isReady() && !input.isFinished()) {
+                    int count = input.read(buffer);
+                    read.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("all");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        // Nothing is delivered until the container calls the listener of the original stream.
+
+        assertEquals(List.of(), events);
+        assertNotNull(request.listener);
+        request.listener.onAllDataRead();
+        request.listener.onAllDataRead();
+        assertEquals(List.of("data", "all"), events);
+        assertArrayEquals(body, read.toByteArray());
+    }
+
+    /**
+     * Request whose body stream accepts a read listener, like that of a servlet container.
+     */
+    private static class ListeningRequest extends HttpServletRequestWrapper {
+
+        private final ByteArrayInputStream content;
+        private ReadListener listener;
+
+        private ListeningRequest(MockHttpServletRequest request) {
+            super(request);
+            this.content = new ByteArrayInputStream(request.getContentAsByteArray());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return content.read();
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return content.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    listener = readListener;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.tt.field.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+public class DrydockPolicyTest {
+
+    private static Mission createMission(long id, int priority) {
+        Mission mission = new Mission();
+        mission.setId(id);
+        mission.setPriority(priority);
+        return mission;
+    }
+
+    /**
+     * Creates a ship that has landed: it needs repairs, but has no mission.
+     */
+    private static Ship createShip(long id, int repairs, Mission... pastMissions) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setPeakCondition(100);
+        ship.setCondition(100 - repairs);
+        ship.setPastMissions(new ArrayList<Mission>(List.of(pastMissions)));
+        return ship;
+    }
+
+    private static List<Long> order(Drydock.Policy policy, Ship... ships) {
+        ShipQueue queue = new ShipQueue(policy.getRankFunction());
+        for (Ship ship : ships) {
+            queue.add(ship);
+        }
+        return queue.toList().stream().map(Ship::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void weightedPolicyUsesPriorityOfLastFlownMission() {
+        // Ship 1 needs the least repairs, but ship 3 last flew an urgent mission. An older
+        // urgent mission of ship 2 does not count.
+
+        Ship ship1 = createShip(1, 10, createMission(10, 0));
+        Ship ship2 = createShip(2, 20, createMission(11, 9), createMission(20, 0));
+        Ship ship3 = createShip(3, 40, createMission(12, 0), createMission(21, 9));
+
+        assertEquals(List.of(1L, 2L, 3L), order(Drydock.Policy.SHORTEST, ship1, ship2, ship3));
+        assertEquals(List.of(3L, 1L, 2L), order(Drydock.Policy.WEIGHTED, ship1, ship2, ship3));
+    }
+
+    @Test
+    public void weightedPolicyTreatsShipsWithoutHistoryAsLeastUrgent() {
+        Ship newShip = createShip(1, 10);
+        Ship flownShip = createShip(2, 15, createMission(10, 1));
+        Ship negativeShip = createShip(3, 12, createMission(11, -5));
+
+        assertEquals(List.of(1L, 3L, 2L), order(Drydock.Policy.SHORTEST, newShip, flownShip, negativeShip));
+        assertEquals(List.of(2L, 1L, 3L), order(Drydock.Policy.WEIGHTED, newShip, flownShip, negativeShip));
+    }
+}
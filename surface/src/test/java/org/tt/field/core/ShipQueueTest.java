@@ -0,0 +1,201 @@
+package org.tt.field.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+public class ShipQueueTest {
+
+    private static Ship createShip(long id, int priority) {
+        Mission mission = new Mission();
+        mission.setPriority(priority);
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setMission(mission);
+        return ship;
+    }
+
+    private static List<Long> ids(ShipQueue queue) {
+        return queue.toList().stream().map(Ship::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void positionsFollowInsertsAndRemovals() {
+        ShipQueue queue = new ShipQueue(ShipQueue.FIFO);
+        for (long id = 1; id <= 5; id++) {
+            assertEquals((int) id, queue.add(createShip(id, 0)));
+        }
+
+        assertEquals(3, queue.positionOf(3));
+        assertEquals(3, queue.remove(3).getId());
+        assertEquals(-1, queue.positionOf(3));
+        assertEquals(List.of(1L, 2L, 4L, 5L), ids(queue));
+        assertEquals(1, queue.positionOf(1));
+        assertEquals(2, queue.positionOf(2));
+        assertEquals(3, queue.positionOf(4));
+        assertEquals(4, queue.positionOf(5));
+
+        assertEquals(1, queue.poll().getId());
+        assertEquals(1, queue.positionOf(2));
+        assertEquals(3, queue.positionOf(5));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void equalRanksKeepInsertionOrder() {
+        ShipQueue queue = new ShipQueue(ShipQueue.MISSION_PRIORITY);
+        queue.add(createShip(1, 0));
+        queue.add(createShip(2, 5));
+        queue.add(createShip(3, 0));
+        assertEquals(2, queue.add(createShip(4, 5)));
+        queue.add(createShip(5, 0));
+        assertEquals(1, queue.add(createShip(6, 9)));
+
+        assertEquals(List.of(6L, 2L, 4L, 1L, 3L, 5L), ids(queue));
+        for (long id : List.of(6L, 2L, 4L, 1L, 3L, 5L)) {
+            assertEquals(id, queue.poll().getId());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void addingQueuedShipAgainMovesItToTheBackOfItsRank() {
+        ShipQueue queue = new ShipQueue(ShipQueue.FIFO);
+        queue.add(createShip(1, 0));
+        queue.add(createShip(2, 0));
+        queue.add(createShip(3, 0));
+
+        assertEquals(3, queue.add(createShip(1, 0)));
+        assertEquals(List.of(2L, 3L, 1L), ids(queue));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void removingMissingShipChangesNothing() {
+        ShipQueue queue = new ShipQueue(ShipQueue.FIFO);
+        assertNull(queue.remove(1));
+
+        queue.add(createShip(1, 0));
+        queue.add(createShip(2, 0));
+        assertNull(queue.remove(3));
+        assertEquals(2, queue.size());
+        assertFalse(queue.contains(3));
+        assertEquals(-1, queue.positionOf(3));
+
+        assertEquals(1, queue.remove(1).getId());
+        assertNull(queue.remove(1));
+        assertEquals(List.of(2L), ids(queue));
+        assertEquals(1, queue.positionOf(2));
+    }
+
+    @Test
+    public void takeWaitsForShip() throws Exception {
+        ShipQueue queue = new ShipQueue(ShipQueue.FIFO);
+        CompletableFuture<Ship> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(50);
+        assertFalse(taken.isDone());
+        Ship ship = createShip(1, 0);
+        queue.add(ship);
+        assertSame(ship, taken.get(5, TimeUnit.SECONDS));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void awaitShipLeavesShipInQueue() throws Exception {
+        ShipQueue queue = new ShipQueue(ShipQueue.FIFO);
+        CompletableFuture<Void> awaited = CompletableFuture.runAsync(() -> {
+            try {
+                queue.awaitShip();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(50);
+        assertFalse(awaited.isDone());
+        queue.add(createShip(1, 0));
+        awaited.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.poll().getId());
+
+        // A queue that already has a ship does not wait at all.
+
+        queue.add(createShip(2, 0));
+        queue.awaitShip();
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void randomOperationsMatchStableSort() {
+        // The expected queue is a list of (ship ID, rank, sequence), kept sorted by rank and
+        // then sequence.
+
+        Random random = new Random(7);
+        ShipQueue queue = new ShipQueue(ShipQueue.MISSION_PRIORITY);
+        List<long[]> expected = new ArrayList<long[]>();
+        Comparator<long[]> order = Comparator.<long[]>comparingLong(entry -> entry[1]).thenComparingLong(entry -> entry[2]);
+        long sequence = 0;
+
+        for (int i = 0; i < 20000; i++) {
+            long id = random.nextInt(300);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    int priority = random.nextInt(4);
+                    expected.removeIf(entry -> entry[0] == id);
+                    expected.add(new long[] { id, -priority, sequence++ });
+                    expected.sort(order);
+                    int position = queue.add(createShip(id, priority));
+                    assertEquals(indexOf(expected, id) + 1, position);
+                    break;
+                case 2:
+                    boolean queued = expected.removeIf(entry -> entry[0] == id);
+                    Ship removed = queue.remove(id);
+                    assertEquals(queued, removed != null);
+                    break;
+                default:
+                    Ship first = queue.poll();
+                    if (expected.isEmpty()) {
+                        assertNull(first);
+                    } else {
+                        assertEquals(expected.remove(0)[0], first.getId());
+                    }
+                    break;
+            }
+
+            assertEquals(expected.size(), queue.size());
+            long probe = random.nextInt(300);
+            assertEquals(indexOf(expected, probe) >= 0 ? indexOf(expected, probe) + 1 : -1, queue.positionOf(probe));
+        }
+        assertEquals(expected.stream().map(entry -> entry[0]).collect(Collectors.toList()), ids(queue));
+    }
+
+    private static int indexOf(List<long[]> entries, long id) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i)[0] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,57 @@
+package org.tt.field.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TransitShipTest {
+
+    private static final long BASE_DELAY = 10000;
+    private static final long MAX_DELAY = 60000;
+
+    private static void assertDelayBetween(long min, long max, int failedAttempts) {
+        long smallest = Long.MAX_VALUE;
+        long largest = Long.MIN_VALUE;
+        for (int i = 0; i < 5000; i++) {
+            long delay = TransitShip.getRetryDelay(failedAttempts, BASE_DELAY, MAX_DELAY);
+            assertTrue(delay >= min && delay <= max, "Delay " + delay + " after " + failedAttempts + " attempts");
+            smallest = Math.min(smallest, delay);
+            largest = Math.max(largest, delay);
+        }
+
+        // The jitter spreads the delays across the range.
+
+        assertTrue(smallest < min + (max - min) / 4, "Smallest delay " + smallest);
+        assertTrue(largest > max - (max - min) / 4, "Largest delay " + largest);
+    }
+
+    @Test
+    public void retryDelayBacksOffExponentially() {
+        assertDelayBetween(5000, 10000, 1);
+        assertDelayBetween(10000, 20000, 2);
+        assertDelayBetween(20000, 40000, 3);
+    }
+
+    @Test
+    public void retryDelayIsCapped() {
+        assertDelayBetween(30000, 60000, 4);
+        assertDelayBetween(30000, 60000, 30);
+        assertDelayBetween(30000, 60000, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void retryDelayBeforeFirstFailureIsBaseDelay() {
+        assertDelayBetween(5000, 10000, 0);
+        assertDelayBetween(5000, 10000, -1);
+    }
+
+    @Test
+    public void retryDelayOfTinyBaseDelay() {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, TransitShip.getRetryDelay(1, 0, MAX_DELAY));
+            long delay = TransitShip.getRetryDelay(1, 1, MAX_DELAY);
+            assertTrue(delay >= 0 && delay <= 1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.tt.field.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Ship;
+
+public class WriteBehindBufferTest {
+
+    private static Ship createShip(long id) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName("Ship " + id);
+        ship.setStatus("S0");
+        ship.setCondition(0);
+        ship.setPeakCondition(100);
+        ship.setLogs(new ArrayList<Log>());
+        return ship;
+    }
+
+    @Test
+    public void laterChangesAreNotWrittenUntilSavedAgain() {
+        List<Ship> written = new CopyOnWriteArrayList<Ship>();
+        WriteBehindBuffer buffer = WriteBehindBuffer.getInstance();
+        buffer.initialize(ships -> {
+            written.addAll(ships);
+            return ships;
+        });
+
+        Ship ship = createShip(1);
+        ship.setStatus("OUTBOUND");
+        ship.setCondition(80);
+        buffer.save(ship);
+
+        ship.setStatus("INBOUND");
+        ship.setCondition(70);
+        ship.getLogs().add(new Log(new Timestamp(0), "Not saved."));
+        buffer.flush();
+
+        assertEquals(1, written.size());
+        assertNotSame(ship, written.get(0));
+        assertEquals("OUTBOUND", written.get(0).getStatus());
+        assertEquals(80, written.get(0).getCondition());
+        assertEquals(0, written.get(0).getLogs().size());
+    }
+
+    @Test
+    public void shipsCanBeModifiedWhileFlushRuns() throws Exception {
+        // Simulator threads keep modifying their ships while the buffer flushes. Every change
+        // sets the condition, the status and the number of logs to the same step, so every
+        // written state must agree on the step.
+
+        int shipCount = 4;
+        int steps = 20000;
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<String>();
+        WriteBehindBuffer buffer = WriteBehindBuffer.getInstance();
+        buffer.initialize(ships -> {
+            for (Ship ship : ships) {
+                int logCount = 0;
+                for (Log log : ship.getLogs()) {
+                    if (log != null) {
+                        logCount++;
+                    }
+                }
+                if (logCount != ship.getCondition() || !ship.getStatus().equals("S" + ship.getCondition())) {
+                    errors.add("Ship " + ship.getId() + ": " + ship.getStatus() + ", condition " + ship.getCondition()
+                        + ", " + logCount + " logs");
+                }
+            }
+            return ships;
+        });
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    buffer.flush();
+                } catch (RuntimeException e) {
+                    errors.add(e.toString());
+                }
+            }
+        });
+        flusher.start();
+
+        List<Thread> simulators = new ArrayList<Thread>();
+        for (int i = 0; i < shipCount; i++) {
+            Ship ship = createShip(100 + i);
+            simulators.add(new Thread(() -> {
+                for (int step = 1; step <= steps; step++) {
+                    ship.getLogs().add(new Log(new Timestamp(step), "Step " + step + "."));
+                    ship.setCondition(step);
+                    ship.setStatus("S" + step);
+                    buffer.save(ship);
+                }
+            }));
+        }
+        for (Thread simulator : simulators) {
+            simulator.start();
+        }
+        for (Thread simulator : simulators) {
+            simulator.join();
+        }
+        running.set(false);
+        flusher.join();
+        buffer.flush();
+
+        assertTrue(errors.isEmpty(), () -> errors.size() + " inconsistent writes, first: " + errors.peek());
+        assertEquals(0, buffer.getDirtyCount());
+    }
+}
@@ -0,0 +1,152 @@
+package org.tt.field.core.clock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class VirtualClockTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Starts a thread that sleeps on the clock for specified simulated time.
+     * @return Latch that is released once the sleep is over.
+     */
+    private static CountDownLatch sleepOn(VirtualClock clock, long millis) {
+        CountDownLatch done = new CountDownLatch(1);
+        Thread sleeper = new Thread(() -> {
+            try {
+                clock.sleep(millis);
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sleeper.setDaemon(true);
+        sleeper.start();
+        return done;
+    }
+
+    @Test
+    public void jumpsToNextEventWithoutWorkers() throws Exception {
+        VirtualClock clock = new VirtualClock(1, true);
+        long start = clock.currentTimeMillis();
+
+        assertTrue(sleepOn(clock, HOUR).await(5, TimeUnit.SECONDS));
+        assertTrue(clock.currentTimeMillis() - start >= HOUR);
+    }
+
+    @Test
+    public void busyWorkerHoldsJumpsBack() throws Exception {
+        VirtualClock clock = new VirtualClock(1, true);
+        long start = clock.currentTimeMillis();
+
+        CountDownLatch registered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            clock.registerWorker();
+            registered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clock.deregisterWorker();
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+        registered.await();
+        assertEquals(1, clock.getBusyWorkerCount());
+
+        CountDownLatch sleeperDone = sleepOn(clock, HOUR);
+        assertFalse(sleeperDone.await(300, TimeUnit.MILLISECONDS));
+        assertFalse(clock.jumpIfIdle());
+        assertTrue(clock.currentTimeMillis() - start < HOUR);
+
+        release.countDown();
+        worker.join();
+        assertEquals(0, clock.getBusyWorkerCount());
+        assertTrue(sleeperDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sleepingAndParkedWorkersAllowJumps() throws Exception {
+        VirtualClock clock = new VirtualClock(1, true);
+        long start = clock.currentTimeMillis();
+
+        // One worker sleeps on the clock, and the other waits for work.
+
+        CountDownLatch workerDone = new CountDownLatch(1);
+        Thread sleepingWorker = new Thread(() -> {
+            clock.registerWorker();
+            try {
+                clock.sleep(2 * HOUR);
+                workerDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clock.deregisterWorker();
+            }
+        });
+        sleepingWorker.setDaemon(true);
+
+        CountDownLatch work = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread idleWorker = new Thread(() -> {
+            clock.registerWorker();
+            boolean parked = clock.park();
+            waiting.countDown();
+            try {
+                work.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (parked) {
+                    clock.unpark();
+                }
+                clock.deregisterWorker();
+            }
+        });
+        idleWorker.setDaemon(true);
+
+        idleWorker.start();
+        waiting.await();
+        sleepingWorker.start();
+
+        assertTrue(sleepOn(clock, HOUR).await(5, TimeUnit.SECONDS));
+        assertTrue(workerDone.await(5, TimeUnit.SECONDS));
+        assertTrue(clock.currentTimeMillis() - start >= 2 * HOUR);
+
+        work.countDown();
+        idleWorker.join();
+        sleepingWorker.join();
+        assertEquals(0, clock.getBusyWorkerCount());
+    }
+
+    @Test
+    public void unregisteredThreadsAreNotWorkers() {
+        VirtualClock clock = new VirtualClock(1, false);
+
+        assertFalse(clock.park());
+        clock.unpark();
+        clock.deregisterWorker();
+        assertEquals(0, clock.getBusyWorkerCount());
+
+        clock.registerWorker();
+        clock.registerWorker();
+        assertEquals(1, clock.getBusyWorkerCount());
+        assertTrue(clock.park());
+        assertFalse(clock.park());
+        assertEquals(0, clock.getBusyWorkerCount());
+        clock.unpark();
+        assertEquals(1, clock.getBusyWorkerCount());
+        clock.deregisterWorker();
+        assertEquals(0, clock.getBusyWorkerCount());
+    }
+}
@@ -0,0 +1,60 @@
+package org.tt.field.core.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+public class DirectExecutorTest {
+
+    @Test
+    public void tasksRunOnTheDrivingThread() {
+        DirectExecutor executor = new DirectExecutor();
+        List<Thread> threads = new ArrayList<Thread>();
+        executor.execute(() -> threads.add(Thread.currentThread()));
+        executor.execute(() -> executor.execute(() -> threads.add(Thread.currentThread())));
+
+        assertEquals(0, threads.size());
+        assertEquals(2, executor.getPendingCount());
+        assertEquals(3, executor.runPending());
+        assertEquals(2, threads.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+        assertSame(Thread.currentThread(), threads.get(1));
+        assertEquals(0, executor.runPending());
+    }
+
+    @Test
+    public void loopsAreRefused() {
+        DirectExecutor executor = new DirectExecutor();
+        assertEquals(0, executor.getAvailableThreads());
+        assertFalse(executor.tryExecute(() -> {
+            while (true) {
+                Thread.onSpinWait();
+            }
+        }));
+        assertEquals(0, executor.getPendingCount());
+    }
+
+    @Test
+    public void shutdownRejectsNewTasksButKeepsQueuedOnes() {
+        DirectExecutor executor = new DirectExecutor();
+        List<String> ran = new ArrayList<String>();
+        executor.execute(() -> ran.add("queued"));
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> ran.add("rejected")));
+        assertEquals(1, executor.runPending());
+        assertEquals(List.of("queued"), ran);
+    }
+
+    @Test
+    public void backendIsSelectableByName() {
+        assertEquals(DirectExecutor.NAME, SimulatorExecutors.create("direct").getName());
+    }
+}
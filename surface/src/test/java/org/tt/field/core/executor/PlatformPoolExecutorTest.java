@@ -0,0 +1,72 @@
+package org.tt.field.core.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class PlatformPoolExecutorTest {
+
+    @Test
+    public void loopsAreOnlyStartedWhileThreadsAreFree() throws Exception {
+        PlatformPoolExecutor executor = new PlatformPoolExecutor(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable loop = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try {
+            assertEquals(2, executor.getAvailableThreads());
+            assertTrue(executor.tryExecute(loop));
+            assertTrue(executor.tryExecute(loop));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(0, executor.getAvailableThreads());
+            assertFalse(executor.tryExecute(loop));
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getAvailableThreads() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, executor.getAvailableThreads());
+
+            CountDownLatch ran = new CountDownLatch(1);
+            assertTrue(executor.tryExecute(ran::countDown));
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void queuedTasksCountAsTaken() throws Exception {
+        PlatformPoolExecutor executor = new PlatformPoolExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> {});
+            assertEquals(0, executor.getAvailableThreads());
+            assertFalse(executor.tryExecute(() -> {}));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
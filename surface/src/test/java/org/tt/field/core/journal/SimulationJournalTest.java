@@ -0,0 +1,249 @@
+package org.tt.field.core.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SimulationJournalTest {
+
+    private static final int CAPACITY = 65536;
+    private static final long SNAPSHOT_INTERVAL = 3600000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Opens the journal in the test directory, as if the application had been restarted.
+     * Journals that are left open are abandoned as if the application had crashed.
+     */
+    private SimulationJournal open() {
+        return open(CAPACITY);
+    }
+
+    private SimulationJournal open(int capacity) {
+        return new SimulationJournal(directory, capacity, SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @return Connection attempts of every recovered ship, by ship ID.
+     */
+    private static Map<Long, Integer> recover(SimulationJournal journal) {
+        Map<Long, Integer> recovered = new HashMap<Long, Integer>();
+        for (JournalRecord record : journal.takeRecoveredRecords()) {
+            recovered.put(record.getShipId(), record.getConnectionAttempts());
+        }
+        return recovered;
+    }
+
+    private static JournalRecord transit(long shipId, int connectionAttempts) {
+        return JournalRecord.transit(shipId, 1, true, false, connectionAttempts, 1000, 7, 2000, 90);
+    }
+
+    @Test
+    public void recordsAreRecoveredAfterCrash() {
+        SimulationJournal journal = open();
+        journal.append(transit(1, 0));
+        journal.append(transit(2, 0));
+        journal.append(transit(1, 3));
+        journal.append(JournalRecord.launch(3));
+        journal.append(JournalRecord.removed(3));
+
+        SimulationJournal restarted = open();
+        assertEquals(Map.of(1L, 3, 2L, 0), recover(restarted));
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    public void recordsOnBothSidesOfSnapshotAreRecovered() {
+        SimulationJournal journal = open();
+        journal.append(transit(1, 1));
+        journal.append(transit(2, 1));
+        journal.snapshot();
+        journal.append(transit(2, 2));
+        journal.append(JournalRecord.removed(1));
+        journal.append(transit(3, 1));
+        journal.snapshot();
+        journal.append(transit(4, 1));
+
+        SimulationJournal restarted = open();
+        List<JournalRecord> records = restarted.takeRecoveredRecords();
+        assertEquals(3, records.size());
+        assertEquals(2, records.get(0).getShipId());
+        assertEquals(3, records.get(1).getShipId());
+        assertEquals(4, records.get(2).getShipId());
+        assertEquals(2, records.get(0).getConnectionAttempts());
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    public void recordsAreRecoveredWhenSnapshotFails() throws Exception {
+        // A directory in place of the temporary snapshot file makes the snapshot fail after
+        // appends have moved on to the next generation.
+
+        SimulationJournal journal = open();
+        journal.append(transit(1, 1));
+        journal.snapshot();
+        journal.append(transit(2, 1));
+
+        Path blocker = Files.createDirectories(directory.resolve("simulation.snapshot.tmp").resolve("blocker"));
+        int generation = journal.getGeneration();
+        journal.snapshot();
+        assertEquals(generation + 1, journal.getGeneration());
+        journal.append(transit(3, 1));
+        journal.append(transit(1, 2));
+
+        // Another failed snapshot must not move on again, since the previous region is still needed.
+
+        journal.snapshot();
+        assertEquals(generation + 1, journal.getGeneration());
+        journal.append(transit(4, 1));
+        Files.delete(blocker);
+        Files.delete(blocker.getParent());
+
+        SimulationJournal restarted = open();
+        assertEquals(Map.of(1L, 2, 2L, 1, 3L, 1, 4L, 1), recover(restarted));
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    public void recordsPastFullRegionsAreRecovered() {
+        // Each region holds four records, so appends fill several regions in a row, whether or
+        // not the snapshots in the background keep up.
+
+        int capacity = 2 * (5 * JournalRecord.SIZE);
+        SimulationJournal journal = open(capacity);
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        for (int step = 1; step <= 50; step++) {
+            long shipId = step % 7;
+            journal.append(transit(shipId, step));
+            expected.put(shipId, step);
+            if (step % 10 == 0) {
+                journal.append(JournalRecord.removed(shipId));
+                expected.remove(shipId);
+            }
+        }
+
+        SimulationJournal restarted = open(capacity);
+        assertEquals(expected, recover(restarted));
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    public void recordsPastFullRegionAreRecoveredOnceSnapshotSucceeds() throws Exception {
+        int capacity = 2 * (5 * JournalRecord.SIZE);
+        SimulationJournal journal = open(capacity);
+        journal.append(transit(1, 1));
+        journal.snapshot();
+
+        // With snapshots failing, the region fills up and the previous one cannot be reused.
+        // Records are then kept in memory until a snapshot succeeds.
+
+        Path blocker = Files.createDirectories(directory.resolve("simulation.snapshot.tmp").resolve("blocker"));
+        journal.snapshot();
+        for (int step = 2; step <= 8; step++) {
+            journal.append(transit(step % 3, step));
+        }
+        Files.delete(blocker);
+        Files.delete(blocker.getParent());
+
+        journal.snapshot();
+        journal.append(transit(5, 1));
+
+        SimulationJournal restarted = open(capacity);
+        assertEquals(Map.of(0L, 6, 1L, 7, 2L, 8, 5L, 1), recover(restarted));
+        restarted.close();
+        journal.close();
+    }
+
+    @Test
+    public void unreadableSnapshotDoesNotBringBackStaleRecords() throws Exception {
+        // Ships 1 to 10 are left in the journal by an old generation. If the journal started
+        // over from an early generation after losing its snapshot, they would be read back
+        // together with newer records.
+
+        SimulationJournal journal = open();
+        for (long shipId = 1; shipId <= 10; shipId++) {
+            journal.append(transit(shipId, 1));
+        }
+        journal.snapshot();
+        journal.append(transit(11, 1));
+        journal.snapshot();
+        journal.append(transit(12, 1));
+        int lastGeneration = journal.getGeneration();
+        journal.close();
+
+        Path snapshot = directory.resolve("simulation.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(snapshot, bytes);
+
+        SimulationJournal restarted = open();
+        assertTrue(recover(restarted).isEmpty());
+        assertTrue(restarted.getGeneration() > lastGeneration);
+        restarted.append(transit(200, 1));
+        restarted.append(transit(201, 1));
+        restarted.append(transit(202, 1));
+
+        SimulationJournal again = open();
+        assertEquals(Map.of(200L, 1, 201L, 1, 202L, 1), recover(again));
+        again.close();
+        restarted.close();
+    }
+
+    @Test
+    public void appendsDuringSnapshotsAreRecovered() throws Exception {
+        SimulationJournal journal = open(8 * 1024 * 1024);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread snapshotter = new Thread(() -> {
+            while (running.get()) {
+                journal.snapshot();
+            }
+        });
+        snapshotter.start();
+
+        int threadCount = 4;
+        int steps = 2000;
+        List<Thread> appenders = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            long shipId = t;
+            appenders.add(new Thread(() -> {
+                for (int step = 1; step <= steps; step++) {
+                    journal.append(transit(shipId, step));
+                    journal.append(transit(100000 * (shipId + 1) + step, step));
+                    journal.append(JournalRecord.removed(100000 * (shipId + 1) + step));
+                }
+            }));
+        }
+        for (Thread appender : appenders) {
+            appender.start();
+        }
+        for (Thread appender : appenders) {
+            appender.join();
+        }
+        running.set(false);
+        snapshotter.join();
+
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        for (long t = 0; t < threadCount; t++) {
+            expected.put(t, steps);
+        }
+        SimulationJournal restarted = open(8 * 1024 * 1024);
+        assertEquals(expected, recover(restarted));
+        restarted.close();
+        journal.close();
+    }
+}
@@ -0,0 +1,281 @@
+package org.tt.field.standin;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.core.LaunchSite;
+import org.tt.field.core.TransitShip;
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+import org.tt.field.utils.CircuitBreaker;
+import org.tt.field.utils.SpaceClient;
+
+/**
+ * Load generator for the handoff of ships from the surface module to the space module. It
+ * launches synthetic ships through the launch site, and measures how long it takes for the
+ * space stand-in to accept them.
+ *
+ * The generator runs the simulators without a database: entities are only kept in memory.
+ * It is therefore meant to be run in a JVM of its own, with space.url pointing at the
+ * stand-in. Use the development delays for ship movement, or measurements take a while.
+ * Like the stand-in, it is run from the test classpath.
+ *
+ * Usage: HandoffLoadGenerator [ship count] [launch interval (ms)] [logs per ship]
+ *
+ * @author terratenff
+ */
+public class HandoffLoadGenerator implements SpaceStandIn.HandoffListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandoffLoadGenerator.class);
+
+    /**
+     * IDs of generated ships start from here, so that they are easy to tell apart.
+     */
+    private static final long FIRST_SHIP_ID = 1000000;
+
+    private final int shipCount;
+    private final int launchInterval;
+    private final int logCount;
+
+    private final Map<Long, Long> queuedAt = new ConcurrentHashMap<Long, Long>();
+    private final Map<Long, Long> firstAttemptAt = new ConcurrentHashMap<Long, Long>();
+    private final Map<Long, Long> acceptedAt = new ConcurrentHashMap<Long, Long>();
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong logId = new AtomicLong(1);
+
+    private CountDownLatch remaining;
+
+    /**
+     * Load generator constructor.
+     * @param shipCount Number of ships to launch.
+     * @param launchInterval Time between two ships being queued for launch (milliseconds).
+     * 0 queues every ship at once.
+     * @param logCount Number of logs that each ship carries, which determines payload size.
+     */
+    public HandoffLoadGenerator(int shipCount, int launchInterval, int logCount) {
+        this.shipCount = shipCount;
+        this.launchInterval = Math.max(0, launchInterval);
+        this.logCount = Math.max(0, logCount);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int shipCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int launchInterval = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int logCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        SpaceStandIn standIn = SpaceStandIn.fromProperties();
+        standIn.start();
+        logger.info("Space client is using " + SpaceClient.getInstance().getBaseUrl() + ".");
+
+        HandoffLoadGenerator generator = new HandoffLoadGenerator(shipCount, launchInterval, logCount);
+        Report report = generator.run(standIn, TimeUnit.MINUTES.toMillis(30));
+        System.out.println(report);
+
+        standIn.stop();
+        System.exit(0);
+    }
+
+    /**
+     * Launches the ships, and waits until the stand-in has accepted all of them, or until
+     * the time runs out.
+     * @param standIn Space stand-in that receives the ships.
+     * @param timeout Maximum duration of the run (milliseconds).
+     * @return Measurements.
+     * @throws InterruptedException
+     */
+    public Report run(SpaceStandIn standIn, long timeout) throws InterruptedException {
+        LaunchSite launchSite = LaunchSite.getInstance();
+        if (!launchSite.isInitialized()) {
+            launchSite.initialize(ship -> ship, mission -> mission, log -> {
+                log.setId(logId.getAndIncrement());
+                return log;
+            });
+        }
+
+        remaining = new CountDownLatch(shipCount);
+        standIn.setHandoffListener(this);
+        CircuitBreaker breaker = SpaceClient.getInstance().getCircuitBreaker();
+        long retriesBefore = TransitShip.getRetryCount();
+        long parksBefore = TransitShip.getParkCount();
+        long returnsBefore = TransitShip.getReturnCount();
+        long opensBefore = breaker.getOpenCount();
+        long requestsBefore = standIn.getRequestCount();
+        long errorsBefore = standIn.getErrorCount();
+
+        logger.info("Launching " + shipCount + " ships with " + logCount + " logs each...");
+        long start = System.nanoTime();
+        for (int i = 0; i < shipCount; i++) {
+            Ship ship = createShip(FIRST_SHIP_ID + i);
+            queuedAt.put(ship.getId(), System.nanoTime());
+            launchSite.addToQueue(ship);
+            if (launchInterval > 0) {
+                Thread.sleep(launchInterval);
+            }
+        }
+
+        // Ships that give up on entering space never arrive, so they are counted off as well.
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (remaining.getCount() > TransitShip.getReturnCount() - returnsBefore && System.nanoTime() < deadline) {
+            remaining.await(100, TimeUnit.MILLISECONDS);
+        }
+        long end = System.nanoTime();
+        standIn.setHandoffListener(null);
+
+        Report report = new Report();
+        report.ships = shipCount;
+        report.accepted = acceptedAt.size();
+        report.duration = TimeUnit.NANOSECONDS.toMillis(end - start);
+        report.attempts = attemptCount.get();
+        report.retries = TransitShip.getRetryCount() - retriesBefore;
+        report.parks = TransitShip.getParkCount() - parksBefore;
+        report.returns = TransitShip.getReturnCount() - returnsBefore;
+        report.breakerOpenings = breaker.getOpenCount() - opensBefore;
+        report.requests = standIn.getRequestCount() - requestsBefore;
+        report.injectedErrors = standIn.getErrorCount() - errorsBefore;
+        report.handoffLatency = latencies(firstAttemptAt);
+        report.totalLatency = latencies(queuedAt);
+        return report;
+    }
+
+    @Override
+    public void attempted(long shipId) {
+        attemptCount.incrementAndGet();
+        firstAttemptAt.putIfAbsent(shipId, System.nanoTime());
+    }
+
+    @Override
+    public void accepted(long shipId) {
+        if (queuedAt.containsKey(shipId) && acceptedAt.putIfAbsent(shipId, System.nanoTime()) == null) {
+            remaining.countDown();
+        }
+    }
+
+    /**
+     * Computes the time from a starting point to acceptance for every accepted ship.
+     * @param startedAt Starting points, by ship ID.
+     * @return Sorted latencies (milliseconds).
+     */
+    private long[] latencies(Map<Long, Long> startedAt) {
+        List<Long> latencies = new ArrayList<Long>();
+        for (Map.Entry<Long, Long> entry : acceptedAt.entrySet()) {
+            Long started = startedAt.get(entry.getKey());
+            if (started != null) {
+                latencies.add(TimeUnit.NANOSECONDS.toMillis(entry.getValue() - started));
+            }
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private Ship createShip(long id) {
+        Mission mission = new Mission();
+        mission.setId(id);
+        mission.setTitle("Load test mission " + id);
+        mission.setObjective("Measure handoff throughput.");
+        mission.setDescription("Generated by the handoff load generator.");
+        mission.setCenterX(id % 100);
+        mission.setCenterY(-(id % 50));
+        mission.setCenterZ(id % 10);
+        mission.setRadius(10);
+        mission.setEvents(new ArrayList<Event>());
+
+        List<Log> logs = new ArrayList<Log>();
+        for (int i = 0; i < logCount; i++) {
+            Log log = new Log(new Timestamp(System.currentTimeMillis()), "Routine maintenance check " + i + " passed.");
+            log.setId(logId.getAndIncrement());
+            logs.add(log);
+        }
+
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName("Load-" + id);
+        ship.setDescription("Synthetic ship for load generation.");
+        ship.setStatus("READY");
+        ship.setCondition(100);
+        ship.setPeakCondition(100);
+        ship.setMission(mission);
+        ship.setPastMissions(new ArrayList<Mission>());
+        ship.setLogs(logs);
+        return ship;
+    }
+
+    /**
+     * Measurements of a load generator run.
+     */
+    public static class Report {
+
+        private int ships;
+        private int accepted;
+        private long duration;
+        private long attempts;
+        private long retries;
+        private long parks;
+        private long returns;
+        private long breakerOpenings;
+        private long requests;
+        private long injectedErrors;
+
+        /**
+         * Time from the first handoff attempt to acceptance (milliseconds, sorted).
+         */
+        private long[] handoffLatency;
+
+        /**
+         * Time from queueing for launch to acceptance (milliseconds, sorted).
+         */
+        private long[] totalLatency;
+
+        public int getAccepted() {
+            return accepted;
+        }
+
+        /**
+         * @return Accepted ships per second.
+         */
+        public double getThroughput() {
+            return duration > 0 ? accepted * 1000.0 / duration : 0;
+        }
+
+        public long getHandoffLatency(double percentile) {
+            return percentile(handoffLatency, percentile);
+        }
+
+        public long getTotalLatency(double percentile) {
+            return percentile(totalLatency, percentile);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Handoff load: %d/%d ships accepted in %d ms (%.1f ships/s)%n"
+                    + "  handoff latency (ms): p50 %d, p95 %d, p99 %d, max %d%n"
+                    + "  queue-to-space latency (ms): p50 %d, p95 %d, p99 %d, max %d%n"
+                    + "  attempts %d, retries %d, parks %d, returns %d, breaker openings %d%n"
+                    + "  stand-in requests %d, injected errors %d",
+                accepted, ships, duration, getThroughput(),
+                getHandoffLatency(50), getHandoffLatency(95), getHandoffLatency(99), getHandoffLatency(100),
+                getTotalLatency(50), getTotalLatency(95), getTotalLatency(99), getTotalLatency(100),
+                attempts, retries, parks, returns, breakerOpenings, requests, injectedErrors);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.tt.field.standin;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+import org.tt.field.utils.LegacySpaceJson;
+import org.tt.field.utils.SpaceJsonWriter;
+
+/**
+ * Micro-benchmark that compares the streaming ship serializer (SpaceJsonWriter) with the
+ * former JSONObject-based one (LegacySpaceJson), which serialized every nested entity, parsed
+ * it back and serialized it again. For each ship size, it reports the time and the memory allocated per
+ * serialized ship.
+ *
+ * Both serializers are run in the same JVM, after a warmup, which is enough to tell them
+ * apart by a wide margin but is not as rigorous as a dedicated benchmark harness. It is run
+ * from the test classpath. SpaceJsonWriterTest checks that both produce the same JSON.
+ *
+ * Usage: SerializationBenchmark [iterations] [log counts...]
+ *
+ * @author terratenff
+ */
+public class SerializationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int[] logCounts = {0, 20, 200};
+        if (args.length > 1) {
+            logCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                logCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int logCount : logCounts) {
+            Ship ship = createShip(logCount);
+            int scaledIterations = Math.max(100, iterations / Math.max(1, logCount / 10));
+            Result legacy = measure(LegacySpaceJson::toJson, ship, scaledIterations);
+            Result streaming = measure(target -> SpaceJsonWriter.toBytes(target), ship, scaledIterations);
+            System.out.println(String.format("%d logs (%d bytes):", logCount, SpaceJsonWriter.toBytes(ship).length));
+            System.out.println("  JSONObject: " + legacy);
+            System.out.println("  streaming:  " + streaming + String.format(" (%.1fx faster)", legacy.nanos / streaming.nanos));
+        }
+    }
+
+    private static Result measure(Function<Ship, Object> serializer, Ship ship, int iterations) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = serializer.apply(ship);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = serializer.apply(ship);
+        }
+        long end = System.nanoTime();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        if (sink == null) {
+            throw new IllegalStateException("Serializer returned nothing.");
+        }
+        Result result = new Result();
+        result.nanos = (double) (end - start) / iterations;
+        result.bytes = allocated / iterations;
+        return result;
+    }
+
+    /**
+     * Measurements of a serializer.
+     */
+    private static class Result {
+
+        private double nanos;
+        private long bytes;
+
+        @Override
+        public String toString() {
+            return String.format("%.1f us/ship, %d bytes allocated/ship", nanos / TimeUnit.MICROSECONDS.toNanos(1), bytes);
+        }
+    }
+
+    private static Ship createShip(int logCount) {
+        Mission mission = new Mission();
+        mission.setId(1L);
+        mission.setTitle("Benchmark mission");
+        mission.setObjective("Measure serialization.");
+        mission.setDescription("Survey the asteroid belt and report \"anomalies\".");
+        mission.setCenterX(120.5);
+        mission.setCenterY(-42.25);
+        mission.setCenterZ(7);
+        mission.setRadius(10);
+        mission.setCurrentDestination("Ceres");
+
+        List<Event> events = new ArrayList<Event>();
+        for (int i = 0; i < 5; i++) {
+            Event event = new Event();
+            event.setId((long) i);
+            event.setDescription("Course correction " + i + ".");
+            event.setTimestamp(new Timestamp(System.currentTimeMillis()));
+            events.add(event);
+        }
+        mission.setEvents(events);
+
+        List<Log> logs = new ArrayList<Log>();
+        for (int i = 0; i < logCount; i++) {
+            Log log = new Log(new Timestamp(System.currentTimeMillis()), "Routine maintenance check " + i + " passed.");
+            log.setId((long) i);
+            logs.add(log);
+        }
+
+        Ship ship = new Ship();
+        ship.setId(1L);
+        ship.setName("Benchmark");
+        ship.setDescription("Ship for serialization benchmarks.");
+        ship.setStatus("READY");
+        ship.setCondition(100);
+        ship.setPeakCondition(100);
+        ship.setMission(mission);
+        ship.setLogs(logs);
+        return ship;
+    }
+}
@@ -0,0 +1,546 @@
+package org.tt.field.standin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tt.field.utils.Compression;
+import org.tt.field.utils.PropertyUtils;
+
+/**
+ * In-process stand-in for the space module. It serves the endpoints that the surface module
+ * uses (ship handoff, single and in batches, and the entity listings of /space/*) in the
+ * same format as the space module, and sends ships back to the surface module once their
+ * missions are over. Ships do not move: the stand-in only keeps them for MISSION_TIME.
+ *
+ * The behaviour of a loaded space module can be imitated. Every request is answered after
+ * LATENCY milliseconds (plus up to LATENCY_JITTER), only CAPACITY requests are handled at a
+ * time while the rest wait in line, and ERROR_RATE percent of the requests fail with 503.
+ *
+ * The stand-in is configured with system properties named org.tt.field.standin.SpaceStandIn.*:
+ * PORT (3333), LATENCY and LATENCY_JITTER (20 and 10 milliseconds), CAPACITY (64), ERROR_RATE
+ * (0 percent), MISSION_TIME (60000 milliseconds, 0 = ships never return) and SURFACE_URL
+ * (localhost:8080), whose defaults are in parentheses.
+ *
+ * @author terratenff
+ */
+public class SpaceStandIn {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceStandIn.class);
+
+    private static final int PORT = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.PORT", 3333);
+    private static final int LATENCY = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.LATENCY", 20);
+    private static final int LATENCY_JITTER = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.LATENCY_JITTER", 10);
+    private static final int ERROR_RATE = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.ERROR_RATE", 0);
+    private static final int CAPACITY = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.CAPACITY", 64);
+    private static final int MISSION_TIME = PropertyUtils.getInteger("org.tt.field.standin.SpaceStandIn.MISSION_TIME", 60000);
+    private static final String SURFACE_URL = PropertyUtils.getString("org.tt.field.standin.SpaceStandIn.SURFACE_URL", "localhost:8080");
+
+    /**
+     * Number of entities on a page of the entity listings, as in the space module.
+     */
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Size from which responses are compressed, if the caller accepts it (bytes).
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * Receives notifications of ship handoffs, for measurements.
+     */
+    public interface HandoffListener {
+
+        /**
+         * A request to hand the ship over has arrived. Called for every attempt.
+         * @param shipId Ship ID.
+         */
+        void attempted(long shipId);
+
+        /**
+         * The ship has been accepted into space.
+         * @param shipId Ship ID.
+         */
+        void accepted(long shipId);
+    }
+
+    /**
+     * Creates a stand-in that is configured with system properties.
+     * @return Stand-in. It must be started separately.
+     */
+    public static SpaceStandIn fromProperties() {
+        return new SpaceStandIn(PORT, LATENCY, LATENCY_JITTER, ERROR_RATE, CAPACITY, MISSION_TIME, SURFACE_URL);
+    }
+
+    private final int port;
+    private final int latency;
+    private final int latencyJitter;
+    private final int errorRate;
+    private final int capacity;
+    private final int missionTime;
+    private final String surfaceUrl;
+
+    /**
+     * Ships in space, by ID. Ships are kept in the format of the space module.
+     */
+    private final Map<Long, JSONObject> ships = new ConcurrentSkipListMap<Long, JSONObject>();
+
+    /**
+     * Requests that wait for their turn, since CAPACITY requests are already being handled.
+     */
+    private final Queue<Runnable> waitingRequests = new ArrayDeque<Runnable>();
+    private int requestsInProgress = 0;
+
+    private final AtomicLong pseudoId = new AtomicLong(-1);
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong returnedCount = new AtomicLong();
+    private final AtomicLong failedReturnCount = new AtomicLong();
+
+    private volatile HandoffListener listener;
+
+    private HttpServer server;
+    private ExecutorService receiver;
+    private ScheduledExecutorService responder;
+    private HttpClient surfaceClient;
+
+    /**
+     * Space stand-in constructor.
+     * @param port Port that the stand-in listens to. space.url must point to it.
+     * @param latency How long every request takes (milliseconds).
+     * @param latencyJitter Maximum random addition to the latency (milliseconds).
+     * @param errorRate Percentage of requests that fail with 503.
+     * @param capacity Number of requests that are handled at a time.
+     * @param missionTime How long ships stay in space before they are sent back to the
+     * surface module (milliseconds). 0 keeps them in space.
+     * @param surfaceUrl Host and port of the surface module. For example, "localhost:8080".
+     */
+    public SpaceStandIn(int port, int latency, int latencyJitter, int errorRate, int capacity, int missionTime, String surfaceUrl) {
+        this.port = port;
+        this.latency = Math.max(0, latency);
+        this.latencyJitter = Math.max(0, latencyJitter);
+        this.errorRate = Math.max(0, Math.min(100, errorRate));
+        this.capacity = Math.max(1, capacity);
+        this.missionTime = Math.max(0, missionTime);
+        this.surfaceUrl = surfaceUrl;
+    }
+
+    /**
+     * Starts listening to requests.
+     * @throws IOException The port could not be bound.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        receiver = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "space-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        responder = Executors.newScheduledThreadPool(Math.min(capacity, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "space-stand-in-responder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        surfaceClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(receiver);
+        server.createContext("/", this::receive);
+        server.start();
+        logger.info("Space stand-in is listening to port " + port + " (latency " + latency + " ms, error rate "
+            + errorRate + " %, capacity " + capacity + ").");
+    }
+
+    /**
+     * Stops listening to requests. Ships that are in space are kept.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        responder.shutdownNow();
+        receiver.shutdownNow();
+        server = null;
+        logger.info("Space stand-in has stopped.");
+    }
+
+    public void setHandoffListener(HandoffListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Reads a request and lets it wait for its turn.
+     * @param exchange Request.
+     */
+    private void receive(HttpExchange exchange) {
+        requestCount.incrementAndGet();
+        byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = input.readAllBytes();
+            if (Compression.isGzip(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                body = Compression.gunzip(body);
+            }
+        } catch (IOException e) {
+            respond(exchange, 400, null);
+            return;
+        }
+
+        byte[] requestBody = body;
+        Runnable request = () -> {
+            long delay = latency + (latencyJitter > 0 ? ThreadLocalRandom.current().nextInt(latencyJitter + 1) : 0);
+            responder.schedule(() -> {
+                try {
+                    handle(exchange, requestBody);
+                } catch (RuntimeException e) {
+                    logger.error("Space stand-in could not handle " + exchange.getRequestURI() + ": " + e.getMessage());
+                    respond(exchange, 500, null);
+                } finally {
+                    finishRequest();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        };
+
+        synchronized (waitingRequests) {
+            if (requestsInProgress >= capacity) {
+                waitingRequests.add(request);
+                return;
+            }
+            requestsInProgress++;
+        }
+        request.run();
+    }
+
+    /**
+     * Lets the next waiting request in, if there is one.
+     */
+    private void finishRequest() {
+        Runnable next;
+        synchronized (waitingRequests) {
+            next = waitingRequests.poll();
+            if (next == null) {
+                requestsInProgress--;
+                return;
+            }
+        }
+        next.run();
+    }
+
+    /**
+     * Handles a request that has waited out its turn and latency.
+     * @param exchange Request.
+     * @param body Request body, decompressed.
+     */
+    private void handle(HttpExchange exchange, byte[] body) {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().replaceAll("/+$", "");
+        String page = queryParameter(exchange.getRequestURI(), "page");
+
+        if (method.equals("POST") && (path.equals("/ships") || path.equals("/ships/batch"))) {
+            notifyAttempts(body, path.equals("/ships/batch"));
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextInt(100) < errorRate) {
+            errorCount.incrementAndGet();
+            respond(exchange, 503, null);
+            return;
+        }
+
+        if (method.equals("POST") && path.equals("/ships")) {
+            JSONObject ship = new JSONObject(new String(body, StandardCharsets.UTF_8));
+            addShip(ship);
+            respond(exchange, 200, ship.toString());
+        } else if (method.equals("POST") && path.equals("/ships/batch")) {
+            JSONArray batch = new JSONArray(new String(body, StandardCharsets.UTF_8));
+            JSONArray results = new JSONArray();
+            for (int i = 0; i < batch.length(); i++) {
+                JSONObject ship = batch.getJSONObject(i);
+                addShip(ship);
+                results.put(new JSONObject().put("id", ship.getLong("id")).put("accepted", true));
+            }
+            respond(exchange, 200, results.toString());
+        } else if (method.equals("GET") && path.equals("/ships")) {
+            JSONObject result = new JSONObject();
+            for (Map.Entry<Long, JSONObject> entry : ships.entrySet()) {
+                result.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+            respond(exchange, 200, result.toString());
+        } else if (method.equals("GET") && path.equals("/ships/logs")) {
+            respond(exchange, 200, listing("logs", false, page).toString());
+        } else if (method.equals("GET") && path.equals("/ships/mission-events")) {
+            respond(exchange, 200, listing("events", true, page).toString());
+        } else if (method.equals("GET") && path.equals("/ships/missions")) {
+            List<JSONObject> missions = new ArrayList<JSONObject>();
+            for (JSONObject ship : ships.values()) {
+                missions.add(ship.getJSONObject("mission"));
+            }
+            missions.sort(Comparator.comparingLong((JSONObject mission) -> mission.optLong("id")).reversed());
+            respond(exchange, 200, new JSONArray(page(missions, page)).toString());
+        } else if (method.equals("GET") && path.startsWith("/ships/")) {
+            JSONObject ship = parseId(path.substring("/ships/".length()));
+            respond(exchange, 200, ship != null ? ship.toString() : "");
+        } else {
+            respond(exchange, 404, null);
+        }
+    }
+
+    /**
+     * Puts a ship into space, in the format of the space module.
+     * @param shipData Ship, as sent by the surface module.
+     */
+    private void addShip(JSONObject shipData) {
+        long id = shipData.getLong("id");
+        JSONObject missionData = shipData.optJSONObject("mission");
+        JSONObject mission = new JSONObject();
+        if (missionData != null) {
+            mission.put("id", missionData.opt("id"));
+            mission.put("title", missionData.opt("title"));
+            mission.put("objective", missionData.opt("objective"));
+            mission.put("description", missionData.opt("description"));
+            mission.put("center", new JSONObject()
+                .put("x", missionData.optDouble("centerX", 0))
+                .put("y", missionData.optDouble("centerY", 0))
+                .put("z", missionData.optDouble("centerZ", 0)));
+            mission.put("radius", missionData.optDouble("radius", 0));
+        }
+        mission.put("events", new JSONArray());
+
+        JSONObject ship = new JSONObject();
+        ship.put("id", id);
+        ship.put("name", shipData.opt("name"));
+        ship.put("description", shipData.opt("description"));
+        ship.put("status", "ACTIVE");
+        ship.put("condition", shipData.optInt("condition", 100));
+        ship.put("mission", mission);
+        ship.put("logs", new JSONArray());
+
+        // A ship that is already in space counts as accepted, as in the space module.
+
+        if (ships.putIfAbsent(id, ship) == null) {
+            acceptedCount.incrementAndGet();
+            if (missionTime > 0) {
+                responder.schedule(() -> returnShip(id), missionTime, TimeUnit.MILLISECONDS);
+            }
+        }
+        HandoffListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.accepted(id);
+        }
+    }
+
+    /**
+     * Sends a ship whose mission is over back to the surface module.
+     * @param id Ship ID.
+     */
+    private void returnShip(long id) {
+        JSONObject ship = ships.remove(id);
+        if (ship == null) {
+            return;
+        }
+        String timestamp = Instant.now().truncatedTo(ChronoUnit.MILLIS).toString();
+        ship.getJSONArray("logs").put(new JSONObject()
+            .put("id", pseudoId.getAndDecrement())
+            .put("timestamp", timestamp)
+            .put("description", ship.optString("name") + " has completed its mission and is returning to the surface."));
+        ship.getJSONObject("mission").getJSONArray("events").put(new JSONObject()
+            .put("id", pseudoId.getAndDecrement())
+            .put("timestamp", timestamp)
+            .put("description", "The mission was completed."));
+        ship.put("status", "INBOUND");
+
+        byte[] body = ship.toString().getBytes(StandardCharsets.UTF_8);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://" + surfaceUrl + "/ships/receive-ship"))
+            .timeout(Duration.ofSeconds(10))
+            .header("Content-Type", "application/json");
+        if (body.length >= COMPRESSION_THRESHOLD) {
+            request.header("Content-Encoding", Compression.GZIP);
+            body = Compression.gzip(body);
+        }
+        surfaceClient.sendAsync(request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, e) -> {
+                if (e == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+                    returnedCount.incrementAndGet();
+                } else {
+                    failedReturnCount.incrementAndGet();
+                    logger.debug("Ship with ID " + id + " could not be returned to surface: "
+                        + (e != null ? e.getMessage() : "status " + response.statusCode()));
+                }
+            });
+    }
+
+    /**
+     * Lists the logs or mission events of every ship, newest first.
+     * @param key "logs" or "events".
+     * @param ofMission true, if the entities belong to the missions of the ships.
+     * @param page Page number, or "all".
+     * @return Entities on the page.
+     */
+    private JSONArray listing(String key, boolean ofMission, String page) {
+        List<JSONObject> entities = new ArrayList<JSONObject>();
+        for (JSONObject ship : ships.values()) {
+            JSONArray array = (ofMission ? ship.getJSONObject("mission") : ship).getJSONArray(key);
+            for (int i = 0; i < array.length(); i++) {
+                entities.add(array.getJSONObject(i));
+            }
+        }
+        entities.sort(Comparator.comparing((JSONObject entity) -> entity.optString("timestamp")).reversed());
+        return new JSONArray(page(entities, page));
+    }
+
+    private static List<JSONObject> page(List<JSONObject> entities, String page) {
+        if (page == null || page.equals("all")) {
+            return entities;
+        }
+        try {
+            int number = Integer.parseInt(page);
+            int from = Math.min(entities.size(), Math.max(0, number * PAGE_SIZE));
+            return entities.subList(from, Math.min(entities.size(), from + PAGE_SIZE));
+        } catch (NumberFormatException e) {
+            return entities;
+        }
+    }
+
+    private JSONObject parseId(String idStr) {
+        try {
+            return ships.get(Long.parseLong(idStr));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void notifyAttempts(byte[] body, boolean batch) {
+        HandoffListener currentListener = listener;
+        if (currentListener == null) {
+            return;
+        }
+        try {
+            String json = new String(body, StandardCharsets.UTF_8);
+            if (batch) {
+                JSONArray array = new JSONArray(json);
+                for (int i = 0; i < array.length(); i++) {
+                    currentListener.attempted(array.getJSONObject(i).getLong("id"));
+                }
+            } else {
+                currentListener.attempted(new JSONObject(json).getLong("id"));
+            }
+        } catch (JSONException e) {
+            logger.debug("Space stand-in received a malformed ship: " + e.getMessage());
+        }
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return parameter.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a response. JSON responses carry an ETag, and they are compressed if the caller
+     * accepts it, as in the space module.
+     * @param exchange Request.
+     * @param status Status code.
+     * @param json Response body, or null for none.
+     */
+    private static void respond(HttpExchange exchange, int status, String json) {
+        try {
+            if (json == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            String etag = "W/\"" + Integer.toHexString(body.length) + "-" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (body.length >= COMPRESSION_THRESHOLD && acceptEncoding != null && acceptEncoding.contains(Compression.GZIP)) {
+                body = Compression.gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", Compression.GZIP);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (IOException e) {
+            logger.debug("Space stand-in could not respond: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public int getShipCount() {
+        return ships.size();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return How many requests failed on purpose, see ERROR_RATE.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getReturnedCount() {
+        return returnedCount.get();
+    }
+
+    public long getFailedReturnCount() {
+        return failedReturnCount.get();
+    }
+
+    public int getWaitingRequestCount() {
+        synchronized (waitingRequests) {
+            return waitingRequests.size();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.tt.field.standin;
+
+import java.io.IOException;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.tt.field.App;
+
+/**
+ * Runs the surface module together with the space stand-in. This allows the surface module
+ * to be run and measured without the space module and its database. The stand-in is not
+ * part of the surface module itself: run this class from the test classpath in place of
+ * App, with space.url pointing at the stand-in. For example:
+ *
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.tt.field.standin.SpaceStandInRunner
+ *     -Dspace.url=localhost:3333
+ *
+ * The stand-in is configured with system properties, see SpaceStandIn.
+ *
+ * @author terratenff
+ */
+public class SpaceStandInRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaceStandInRunner.class);
+
+    public static void main(String[] args) {
+        SpringApplication.run(new Class<?>[] { App.class, SpaceStandInRunner.class }, args);
+    }
+
+    private SpaceStandIn standIn;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        logger.warn("Space stand-in is enabled. Ships are handed over to it instead of the space module.");
+        standIn = SpaceStandIn.fromProperties();
+        try {
+            standIn.start();
+        } catch (IOException e) {
+            logger.error("Space stand-in could not be started: " + e.getMessage());
+            standIn = null;
+        }
+    }
+
+    /**
+     * @return Space stand-in, or null if it is not running.
+     */
+    public SpaceStandIn getStandIn() {
+        return standIn;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (standIn != null) {
+            standIn.stop();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_TIME = 100;
+
+    /**
+     * Waits until a condition holds. The condition is not checked again once it has held.
+     */
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean holds = condition.getAsBoolean();
+        while (!holds && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            holds = condition.getAsBoolean();
+        }
+        assertTrue(holds);
+    }
+
+    private static void openBreaker(CircuitBreaker breaker, int failureThreshold) {
+        for (int i = 0; i < failureThreshold; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+    }
+
+    @Test
+    public void opensAfterThresholdAndClosesAfterSuccessfulProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 3, OPEN_TIME, 1000);
+
+        openBreaker(breaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordSuccess();
+        assertEquals(0, breaker.getConsecutiveFailures());
+
+        openBreaker(breaker, 3);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getOpenCount());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getRefusalCount());
+
+        Thread.sleep(OPEN_TIME + 20);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedProbeReopensForLonger() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, OPEN_TIME, 1000);
+        openBreaker(breaker, 1);
+
+        Thread.sleep(OPEN_TIME + 20);
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpenCount());
+
+        // The breaker is now open for twice as long.
+
+        Thread.sleep(OPEN_TIME + 20);
+        assertFalse(breaker.allowRequest());
+        awaitCondition(breaker::allowRequest);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // A successful probe resets the open time.
+
+        breaker.recordSuccess();
+        openBreaker(breaker, 1);
+        Thread.sleep(OPEN_TIME + 20);
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void parkedCallbacksAreRunExactlyOnce() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, OPEN_TIME, 1000);
+        openBreaker(breaker, 1);
+
+        int callbackCount = 100;
+        AtomicInteger[] runs = new AtomicInteger[callbackCount];
+        List<Runnable> callbacks = new ArrayList<Runnable>();
+        for (int i = 0; i < callbackCount; i++) {
+            AtomicInteger counter = new AtomicInteger();
+            runs[i] = counter;
+            Runnable callback = counter::incrementAndGet;
+            callbacks.add(callback);
+            breaker.park(callback);
+        }
+        assertEquals(callbackCount, breaker.getParkedCount());
+
+        // A callback that gives up is never run.
+
+        assertTrue(breaker.unpark(callbacks.get(callbackCount - 1)));
+        assertFalse(breaker.unpark(callbacks.get(callbackCount - 1)));
+
+        // Once the breaker has been open long enough, one callback is run to make the probe.
+
+        awaitCondition(() -> breaker.getParkedCount() == callbackCount - 2);
+        assertEquals(1, runs[0].get());
+        assertTrue(breaker.allowRequest());
+
+        // Successes that are recorded at the same time release the other callbacks once.
+
+        int threadCount = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                breaker.recordSuccess();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getParkedCount());
+        for (int i = 0; i < callbackCount - 1; i++) {
+            assertEquals(1, runs[i].get(), "Callback " + i);
+        }
+        assertEquals(0, runs[callbackCount - 1].get());
+
+        // Callbacks that are parked while the breaker is closed are run right away.
+
+        AtomicInteger immediate = new AtomicInteger();
+        breaker.park(immediate::incrementAndGet);
+        assertEquals(1, immediate.get());
+        assertEquals(0, breaker.getParkedCount());
+    }
+}
@@ -0,0 +1,229 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentLongMapTest {
+
+    /**
+     * Slots in a segment before it first resizes.
+     */
+    private static final int SEGMENT_CAPACITY = 16;
+
+    /**
+     * Finds keys that land in the same segment and whose home slots are the given ones.
+     */
+    private static long[] keysWithHomes(int... homes) {
+        long[] keys = new long[homes.length];
+        int found = 0;
+        for (long key = 1; found < homes.length; key++) {
+            long hash = ConcurrentLongMap.mix(key);
+            if ((hash >>> 59) == 0 && ((int) hash & (SEGMENT_CAPACITY - 1)) == homes[found]) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    private static void assertContents(ConcurrentLongMap<String> map, Map<Long, String> expected) {
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "Key " + entry.getKey());
+        }
+    }
+
+    @Test
+    public void removalFromClusterKeepsFollowingEntriesReachable() {
+        // Three keys share home slot 3, and one key has home slot 4, so all four form one
+        // cluster (slots 3 to 6). Removing any of them must keep the rest reachable.
+
+        long[] keys = keysWithHomes(3, 3, 3, 4);
+        for (int removed = 0; removed < keys.length; removed++) {
+            ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+            Map<Long, String> expected = new HashMap<Long, String>();
+            for (long key : keys) {
+                map.put(key, "v" + key);
+                expected.put(key, "v" + key);
+            }
+
+            assertEquals("v" + keys[removed], map.remove(keys[removed]));
+            expected.remove(keys[removed]);
+            assertNull(map.get(keys[removed]));
+            assertContents(map, expected);
+        }
+    }
+
+    @Test
+    public void removalFromClusterThatWrapsAround() {
+        // Keys with home slots 14, 15 and 15 occupy slots 14, 15 and 0, and a key with home
+        // slot 0 is pushed to slot 1. Entries that wrapped around must be shifted back across
+        // the end of the table, and the key with home slot 0 must not move before its home.
+
+        long[] keys = keysWithHomes(14, 15, 15, 0);
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+        Map<Long, String> expected = new HashMap<Long, String>();
+        for (long key : keys) {
+            map.put(key, "v" + key);
+            expected.put(key, "v" + key);
+        }
+
+        map.remove(keys[1]);
+        expected.remove(keys[1]);
+        assertContents(map, expected);
+
+        map.remove(keys[0]);
+        expected.remove(keys[0]);
+        assertContents(map, expected);
+
+        map.put(keys[1], "again");
+        expected.put(keys[1], "again");
+        assertContents(map, expected);
+    }
+
+    @Test
+    public void conditionalRemovalOnlyRemovesExpectedValue() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+        String value = new String("value");
+        map.put(1L, value);
+
+        assertFalse(map.remove(1L, new String("value")));
+        assertEquals(1, map.size());
+        assertTrue(map.remove(1L, value));
+        assertEquals(0, map.size());
+        assertNull(map.remove(1L));
+    }
+
+    @Test
+    public void resizeKeepsEveryEntry() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+        Map<Long, String> expected = new HashMap<Long, String>();
+        for (long key = -5000; key < 5000; key++) {
+            assertNull(map.put(key, "v" + key));
+            expected.put(key, "v" + key);
+        }
+        assertContents(map, expected);
+        assertEquals(expected.size(), map.values().size());
+
+        for (long key = -5000; key < 5000; key += 2) {
+            assertEquals("v" + key, map.remove(key));
+            expected.remove(key);
+        }
+        assertContents(map, expected);
+        assertNull(map.get(-5000));
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+        Map<Long, String> expected = new HashMap<Long, String>();
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(2000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+            }
+        }
+        assertContents(map, expected);
+    }
+
+    @Test
+    public void concurrentPutsAndRemovesKeepOwnKeys() throws Exception {
+        // Every thread owns the keys that are congruent to its number, so the keys of all
+        // threads are spread across the same segments.
+
+        int threadCount = 8;
+        int keysPerThread = 5000;
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < threadCount; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < 3; round++) {
+                        for (int i = 0; i < keysPerThread; i++) {
+                            map.put((long) i * threadCount + thread, "v" + round);
+                        }
+                        for (int i = 0; i < keysPerThread; i += 2) {
+                            map.remove((long) i * threadCount + thread);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threadCount * keysPerThread / 2, map.size());
+        for (long i = 0; i < keysPerThread; i++) {
+            for (int t = 0; t < threadCount; t++) {
+                long key = i * threadCount + t;
+                assertEquals(i % 2 == 0 ? null : "v2", map.get(key), "Key " + key);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentPutIfAbsentAddsEachKeyOnce() throws Exception {
+        int threadCount = 8;
+        int keyCount = 10000;
+        ConcurrentLongMap<Integer> map = new ConcurrentLongMap<Integer>();
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < threadCount; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long key = 0; key < keyCount; key++) {
+                        if (map.putIfAbsent(key, thread) == null) {
+                            added.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(keyCount, added.get());
+        assertEquals(keyCount, map.size());
+    }
+}
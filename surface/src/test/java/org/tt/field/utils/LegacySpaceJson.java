@@ -0,0 +1,75 @@
+package org.tt.field.utils;
+
+import java.sql.Timestamp;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+/**
+ * Former JSONObject-based serializer of the entities that are sent to the space module, as
+ * it was in Ship.toJson, Mission.toJson, Log.toJson and Event.toJson. Every nested entity is
+ * serialized, parsed back and serialized again. SpaceJsonWriter is measured and checked
+ * against it.
+ */
+public class LegacySpaceJson {
+
+    public static String toJson(Ship ship) {
+        JSONObject json = new JSONObject();
+        json.put("id", ship.getId());
+        json.put("name", ship.getName());
+        json.put("status", ship.getStatus());
+        json.put("condition", ship.getCondition());
+        json.put("peakCondition", ship.getPeakCondition());
+        json.put("description", ship.getDescription());
+        json.put("mission", new JSONObject(toJson(ship.getMission())));
+
+        JSONArray array = new JSONArray();
+        for (Log log : ship.getLogs()) {
+            array.put(new JSONObject(toJson(log)));
+        }
+        json.put("logs", array);
+        return json.toString();
+    }
+
+    public static String toJson(Mission mission) {
+        JSONObject json = new JSONObject();
+        json.put("id", mission.getId());
+        json.put("title", mission.getTitle());
+        json.put("objective", mission.getObjective());
+        json.put("description", mission.getDescription());
+        json.put("centerX", mission.getCenterX());
+        json.put("centerY", mission.getCenterY());
+        json.put("centerZ", mission.getCenterZ());
+        json.put("radius", mission.getRadius());
+        json.put("departureTime", mission.getDepartureTime() != null ? mission.getDepartureTime().toString() : "null");
+        json.put("arrivalTime", mission.getArrivalTime() != null ? mission.getArrivalTime().toString() : "null");
+        json.put("currentDestination", mission.getCurrentDestination());
+
+        JSONArray array = new JSONArray();
+        for (Event event : mission.getEvents()) {
+            array.put(new JSONObject(toJson(event)));
+        }
+        json.put("events", array);
+        return json.toString();
+    }
+
+    public static String toJson(Log log) {
+        return entryJson(log.getId(), log.getDescription(), log.getTimestamp());
+    }
+
+    public static String toJson(Event event) {
+        return entryJson(event.getId(), event.getDescription(), event.getTimestamp());
+    }
+
+    private static String entryJson(Long id, String description, Timestamp timestamp) {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("description", description);
+        json.put("timestamp", timestamp.toString());
+        return json.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.tt.field.domain.Log;
+
+public class PaginationTest {
+
+    /**
+     * Order of LogRepository: most recent first, and the highest ID first among equal timestamps.
+     */
+    private static final Comparator<Log> RECENT_FIRST = Comparator.comparing(Log::getTimestamp)
+        .thenComparing(Log::getId).reversed();
+
+    private static Timestamp timestamp(long millis, int nanos) {
+        Timestamp timestamp = new Timestamp(millis);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    private static Log createLog(long id, Timestamp timestamp) {
+        Log log = new Log(timestamp, "Log " + id + ".");
+        log.setId(id);
+        return log;
+    }
+
+    private static String token(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Fetches a page like LogController does, with the queries of LogRepository evaluated on
+     * a list instead of a database.
+     */
+    private static ResponseEntity<List<Log>> fetch(List<Log> table, String cursorStr, int limit) {
+        Log cursor = null;
+        if (cursorStr != null) {
+            Pagination.Cursor decoded = Pagination.decode(cursorStr, true);
+            cursor = createLog(decoded.getId(), decoded.getTimestamp());
+        }
+        Log after = cursor;
+        List<Log> logs = table.stream()
+            .filter(log -> after == null || RECENT_FIRST.compare(log, after) > 0)
+            .sorted(RECENT_FIRST)
+            .limit(limit)
+            .collect(Collectors.toList());
+        return Pagination.page(logs, limit, log -> Pagination.after(log.getTimestamp(), log.getId()));
+    }
+
+    private static String nextCursor(ResponseEntity<?> response) {
+        return response.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER);
+    }
+
+    @Test
+    public void timestampedCursorsRoundTrip() {
+        List<Timestamp> timestamps = List.of(
+            timestamp(1698493421657L, 657123456),
+            timestamp(1698493421000L, 1),
+            timestamp(1698493421999L, 999999999),
+            timestamp(0, 0),
+            timestamp(-1, 999999999),
+            timestamp(-1000, 1),
+            timestamp(-86400000L * 365 * 70 - 123, 877000001),
+            Timestamp.valueOf("1900-01-01 00:00:00.000000001"));
+        for (Timestamp timestamp : timestamps) {
+            for (long id : new long[] { 0, 1, Long.MAX_VALUE, Long.MIN_VALUE }) {
+                Pagination.Cursor cursor = Pagination.decode(Pagination.encode(Pagination.after(timestamp, id)), true);
+                assertEquals(timestamp, cursor.getTimestamp(), timestamp.toString());
+                assertEquals(timestamp.getTime(), cursor.getTimestamp().getTime(), timestamp.toString());
+                assertEquals(timestamp.getNanos(), cursor.getTimestamp().getNanos(), timestamp.toString());
+                assertEquals(id, cursor.getId());
+            }
+        }
+    }
+
+    @Test
+    public void idCursorsRoundTrip() {
+        for (long id : new long[] { 0, 1, -1, 42, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            Pagination.Cursor cursor = Pagination.decode(Pagination.encode(Pagination.after(id)), false);
+            assertNull(cursor.getTimestamp());
+            assertEquals(id, cursor.getId());
+        }
+    }
+
+    @Test
+    public void cursorsOfTheWrongKindAreRejected() {
+        String idCursor = Pagination.encode(Pagination.after(42));
+        String timestampedCursor = Pagination.encode(Pagination.after(timestamp(1698493421657L, 657123456), 42));
+
+        assertThrows(IllegalArgumentException.class, () -> Pagination.decode(idCursor, true));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.decode(timestampedCursor, false));
+    }
+
+    @Test
+    public void malformedCursorsAreRejected() {
+        List<String> malformed = List.of(
+            "",
+            "not base64!",
+            token("abc"),
+            token("1.5"),
+            token("1698493421657:42"),
+            token("1698493421657.x:42"),
+            token("1698493421657.1:"),
+            token("1698493421657.1000000000:42"),
+            token("1698493421657.-1:42"),
+            token(":42"),
+            token("42:1698493421657.1"),
+            token("99999999999999999999"));
+        for (String cursor : malformed) {
+            assertThrows(IllegalArgumentException.class, () -> Pagination.decode(cursor, true), cursor);
+            assertThrows(IllegalArgumentException.class, () -> Pagination.decode(cursor, false), cursor);
+        }
+    }
+
+    @Test
+    public void onlyFullPagesHaveNextCursor() {
+        List<Log> table = new ArrayList<Log>();
+        for (long id = 1; id <= 5; id++) {
+            table.add(createLog(id, timestamp(id * 1000, 0)));
+        }
+
+        ResponseEntity<List<Log>> first = fetch(table, null, 3);
+        assertEquals(List.of(5L, 4L, 3L), first.getBody().stream().map(Log::getId).collect(Collectors.toList()));
+        assertTrue(nextCursor(first) != null);
+
+        ResponseEntity<List<Log>> second = fetch(table, nextCursor(first), 3);
+        assertEquals(List.of(2L, 1L), second.getBody().stream().map(Log::getId).collect(Collectors.toList()));
+        assertNull(nextCursor(second));
+    }
+
+    @Test
+    public void pagesStayStableWhenLogsAreInsertedAtTheBoundary() {
+        // Logs share timestamps that differ only in nanoseconds, so a cursor that lost them
+        // would skip or repeat logs. Between pages, logs are inserted before the first page,
+        // right next to the last log of the previous page on both sides, and further back.
+        // Logs ahead of the cursor must not show up, and every other log must show up once.
+
+        List<Log> table = new ArrayList<Log>();
+        long nextId = 1;
+        for (int i = 0; i < 30; i++) {
+            table.add(createLog(nextId++, timestamp(1698493421000L + i / 6, (i % 3) * 1000)));
+        }
+        List<Long> expectedIds = table.stream().map(Log::getId).collect(Collectors.toList());
+        List<Long> aheadIds = new ArrayList<Long>();
+
+        List<Log> seen = new ArrayList<Log>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ResponseEntity<List<Log>> response = fetch(table, cursor, 4);
+            List<Log> page = response.getBody();
+            seen.addAll(page);
+            cursor = nextCursor(response);
+            pages++;
+
+            if (cursor != null) {
+                Timestamp boundary = page.get(page.size() - 1).getTimestamp();
+                Log newest = createLog(nextId++, timestamp(1698493422000L + pages, 0));
+                Log aheadAtBoundary = createLog(nextId++, boundary);
+                Log aheadByNanosecond = createLog(nextId++, timestamp(boundary.getTime(), boundary.getNanos() + 1));
+                Log behindAtBoundary = createLog(-nextId++, boundary);
+                Log behindBySecond = createLog(nextId++, timestamp(boundary.getTime() - 1000, boundary.getNanos()));
+                for (Log ahead : List.of(newest, aheadAtBoundary, aheadByNanosecond)) {
+                    table.add(ahead);
+                    aheadIds.add(ahead.getId());
+                }
+                for (Log behind : List.of(behindAtBoundary, behindBySecond)) {
+                    table.add(behind);
+                    expectedIds.add(behind.getId());
+                }
+            }
+        } while (cursor != null && pages < 100);
+
+        List<Long> seenIds = seen.stream().map(Log::getId).collect(Collectors.toList());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(RECENT_FIRST.compare(seen.get(i - 1), seen.get(i)) < 0, "Out of order or repeated: " + seenIds);
+        }
+        for (long id : aheadIds) {
+            assertFalse(seenIds.contains(id), "Log " + id + " was inserted ahead of the cursor: " + seenIds);
+        }
+        for (long id : expectedIds) {
+            assertTrue(seenIds.contains(id), "Log " + id + " was skipped: " + seenIds);
+        }
+        assertEquals(expectedIds.size(), seenIds.size());
+    }
+}
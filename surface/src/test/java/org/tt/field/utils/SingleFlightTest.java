@@ -0,0 +1,79 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsShareOneFlight() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<String, String>();
+        CompletableFuture<String> call = new CompletableFuture<String>();
+
+        CompletableFuture<String> first = flights.execute("a", () -> call);
+        CompletableFuture<String> second = flights.execute("a", () -> {
+            throw new AssertionError("A second call was made.");
+        });
+        CompletableFuture<String> other = flights.execute("b", () -> CompletableFuture.completedFuture("b"));
+
+        assertSame(first, second);
+        assertEquals("b", other.get());
+        assertFalse(first.isDone());
+        call.complete("a");
+        assertEquals("a", second.get());
+        assertEquals(2, flights.getCallCount());
+        assertEquals(1, flights.getSharedCount());
+
+        // Completed flights are not reused.
+
+        CompletableFuture<String> third = flights.execute("a", () -> CompletableFuture.completedFuture("again"));
+        assertNotSame(first, third);
+        assertEquals("again", third.get());
+    }
+
+    @Test
+    public void failedFlightIsDropped() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<String, String>();
+        CompletableFuture<String> failed = flights.execute("a", () -> {
+            throw new IllegalStateException("Call failed.");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        assertEquals("a", flights.execute("a", () -> CompletableFuture.completedFuture("a")).get());
+    }
+
+    @Test
+    public void flightThatNeverCompletesTimesOut() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<String, String>();
+        CompletableFuture<String> neverCompleted = new CompletableFuture<String>();
+
+        CompletableFuture<String> first = flights.execute("a", () -> neverCompleted, 100);
+        CompletableFuture<String> follower = flights.execute("a", () -> CompletableFuture.completedFuture("follower"), 100);
+        assertSame(first, follower);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertFalse(neverCompleted.isDone());
+
+        // The next call starts a new flight.
+
+        assertEquals("next", flights.execute("a", () -> CompletableFuture.completedFuture("next"), 100).get());
+
+        // A late result of the call that timed out changes nothing.
+
+        neverCompleted.complete("late");
+        assertEquals("fresh", flights.execute("a", () -> CompletableFuture.completedFuture("fresh"), 100).get());
+    }
+}
@@ -0,0 +1,126 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class SpaceClientTest {
+
+    private static final int MAX_CONNECTIONS = 16;
+    private static final int MAX_PENDING_REQUESTS = 1024;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    public void startSpaceModule() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        System.setProperty("space.url", "localhost:" + server.getAddress().getPort());
+        PropertyUtils.reload();
+    }
+
+    @AfterEach
+    public void stopSpaceModule() {
+        System.clearProperty("space.url");
+        PropertyUtils.reload();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void streamedResponsesHoldTheirSlotUntilClosed() throws Exception {
+        SpaceClient client = SpaceClient.getInstance();
+        List<InputStream> streams = new ArrayList<InputStream>();
+        for (int i = 0; i < MAX_CONNECTIONS; i++) {
+            InputStream stream = client.fetchStream("/ships?page=" + i).get(5, TimeUnit.SECONDS);
+            assertNotNull(stream);
+            streams.add(stream);
+        }
+
+        CompletableFuture<InputStream> waiting = client.fetchStream("/ships?page=waiting");
+        assertNull(waitFor(waiting, 300));
+        assertEquals(1, client.getPendingRequestCount());
+
+        streams.remove(0).close();
+        InputStream stream = waiting.get(5, TimeUnit.SECONDS);
+        assertNotNull(stream);
+        streams.add(stream);
+
+        for (InputStream open : streams) {
+            open.close();
+        }
+        assertEquals(0, client.getPendingRequestCount());
+        assertNotNull(client.fetch("/ships?page=after").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void requestsBeyondWaitingLimitAreRejected() throws Exception {
+        SpaceClient client = SpaceClient.getInstance();
+        List<InputStream> streams = new ArrayList<InputStream>();
+        for (int i = 0; i < MAX_CONNECTIONS; i++) {
+            streams.add(client.fetchStream("/ships?page=" + i).get(5, TimeUnit.SECONDS));
+        }
+
+        List<CompletableFuture<InputStream>> waiting = new ArrayList<CompletableFuture<InputStream>>();
+        for (int i = 0; i < MAX_PENDING_REQUESTS; i++) {
+            waiting.add(client.fetchStream("/ships?page=" + i));
+        }
+        assertEquals(MAX_PENDING_REQUESTS, client.getPendingRequestCount());
+
+        CompletableFuture<InputStream> rejected = client.fetchStream("/ships?page=rejected");
+        assertTrue(rejected.isDone());
+        assertNull(rejected.get());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+
+        // Every waiting request is started in turn as the streams are closed.
+
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+        for (CompletableFuture<InputStream> future : waiting) {
+            InputStream stream = future.get(10, TimeUnit.SECONDS);
+            assertNotNull(stream);
+            stream.close();
+        }
+        assertEquals(0, client.getPendingRequestCount());
+    }
+
+    private static <T> T waitFor(CompletableFuture<T> future, long millis) throws Exception {
+        try {
+            return future.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.tt.field.domain.Event;
+import org.tt.field.domain.Log;
+import org.tt.field.domain.Mission;
+import org.tt.field.domain.Ship;
+
+public class SpaceJsonWriterTest {
+
+    private static Timestamp timestamp(String value, int nanos) {
+        Timestamp timestamp = Timestamp.valueOf(value);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    private static Event createEvent(long id, String description, Timestamp timestamp) {
+        Event event = new Event(timestamp, description);
+        event.setId(id);
+        return event;
+    }
+
+    private static Log createLog(long id, String description, Timestamp timestamp) {
+        Log log = new Log(timestamp, description);
+        log.setId(id);
+        return log;
+    }
+
+    private static Mission createMission() {
+        Mission mission = new Mission();
+        mission.setId(7L);
+        mission.setTitle("Survey");
+        mission.setObjective("Map the \"belt\".");
+        mission.setDescription("Line one.\nLine two\twith a tab, a slash </ and a backslash \\.");
+        mission.setCenterX(120.5);
+        mission.setCenterY(-42.25);
+        mission.setCenterZ(7);
+        mission.setRadius(0.1);
+        mission.setDepartureTime(timestamp("2023-07-25 11:53:54", 785000000));
+        mission.setArrivalTime(timestamp("1969-07-20 20:17:40", 123456789));
+        mission.setCurrentDestination("Ceres");
+        List<Event> events = new ArrayList<Event>();
+        events.add(createEvent(1, "Departed.", timestamp("2023-07-25 11:53:54", 0)));
+        events.add(createEvent(2, "Coursé correction – åäö 🚀.", timestamp("2024-02-29 23:59:59", 1)));
+        mission.setEvents(events);
+        return mission;
+    }
+
+    private static Ship createShip() {
+        Ship ship = new Ship();
+        ship.setId(42L);
+        ship.setName("Ship 42");
+        ship.setStatus("OUTBOUND");
+        ship.setCondition(-3);
+        ship.setPeakCondition(100);
+        ship.setDescription("Control characters: \u0001\u001f.");
+        ship.setMission(createMission());
+        List<Log> logs = new ArrayList<Log>();
+        for (int i = 0; i < 3; i++) {
+            logs.add(createLog(100 + i, "Check " + i + " passed.", timestamp("2023-07-25 12:00:0" + i, i * 1000)));
+        }
+        ship.setLogs(logs);
+        return ship;
+    }
+
+    /**
+     * Checks that the streaming output describes the same JSON value as the legacy output.
+     */
+    private static void assertSameJson(String legacy, String streaming) {
+        JSONObject expected = new JSONObject(legacy);
+        JSONObject actual = new JSONObject(streaming);
+        assertTrue(expected.similar(actual), () -> "Expected " + legacy + " but was " + streaming);
+    }
+
+    @Test
+    public void shipMatchesLegacyFormat() throws Exception {
+        Ship ship = createShip();
+        String legacy = LegacySpaceJson.toJson(ship);
+
+        assertSameJson(legacy, SpaceJsonWriter.toJson(ship));
+        assertSameJson(legacy, new String(SpaceJsonWriter.toBytes(ship), StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        SpaceJsonWriter.writeShip(ship, stream);
+        assertSameJson(legacy, stream.toString(StandardCharsets.UTF_8));
+
+        StringWriter writer = new StringWriter();
+        SpaceJsonWriter.writeShip(ship, writer);
+        assertSameJson(legacy, writer.toString());
+    }
+
+    @Test
+    public void nestedEntitiesMatchLegacyFormat() {
+        Mission mission = createMission();
+        assertSameJson(LegacySpaceJson.toJson(mission), SpaceJsonWriter.toJson(mission));
+        for (Event event : mission.getEvents()) {
+            assertSameJson(LegacySpaceJson.toJson(event), SpaceJsonWriter.toJson(event));
+        }
+        for (Log log : createShip().getLogs()) {
+            assertSameJson(LegacySpaceJson.toJson(log), SpaceJsonWriter.toJson(log));
+        }
+    }
+
+    @Test
+    public void nullFieldsMatchLegacyFormat() {
+        Ship ship = createShip();
+        ship.setId(null);
+        ship.setName(null);
+        ship.setStatus(null);
+        ship.setDescription(null);
+        Mission mission = ship.getMission();
+        mission.setId(null);
+        mission.setTitle(null);
+        mission.setObjective(null);
+        mission.setDescription(null);
+        mission.setCurrentDestination(null);
+        mission.setDepartureTime((Timestamp) null);
+        mission.setArrivalTime(null);
+        Log log = ship.getLogs().get(0);
+        log.setId(null);
+        log.setDescription(null);
+        Event event = mission.getEvents().get(0);
+        event.setId(null);
+        event.setDescription(null);
+
+        String streaming = SpaceJsonWriter.toJson(ship);
+        assertSameJson(LegacySpaceJson.toJson(ship), streaming);
+
+        // Null fields are left out, except for mission times, which are written as "null".
+
+        JSONObject json = new JSONObject(streaming);
+        assertFalse(json.has("id"));
+        assertFalse(json.has("name"));
+        assertFalse(json.getJSONObject("mission").has("title"));
+        assertEquals("null", json.getJSONObject("mission").getString("departureTime"));
+        assertEquals("null", json.getJSONObject("mission").getString("arrivalTime"));
+        assertFalse(json.getJSONArray("logs").getJSONObject(0).has("description"));
+    }
+
+    @Test
+    public void emptyListsMatchLegacyFormat() {
+        Ship ship = createShip();
+        ship.setLogs(new ArrayList<Log>());
+        ship.getMission().setEvents(new ArrayList<Event>());
+
+        String streaming = SpaceJsonWriter.toJson(ship);
+        assertSameJson(LegacySpaceJson.toJson(ship), streaming);
+        assertEquals(0, new JSONObject(streaming).getJSONArray("logs").length());
+        assertEquals(0, new JSONObject(streaming).getJSONObject("mission").getJSONArray("events").length());
+    }
+
+    @Test
+    public void fieldsThatLegacyFormatCouldNotWriteAreLeftOut() {
+        // The legacy format failed on a missing mission, missing lists and missing timestamps.
+
+        Ship ship = createShip();
+        ship.setMission(null);
+        ship.setLogs(null);
+        JSONObject json = new JSONObject(SpaceJsonWriter.toJson(ship));
+        assertFalse(json.has("mission"));
+        assertEquals(0, json.getJSONArray("logs").length());
+
+        Mission mission = createMission();
+        mission.setEvents(null);
+        assertEquals(0, new JSONObject(SpaceJsonWriter.toJson(mission)).getJSONArray("events").length());
+
+        Log log = createLog(1, "No time.", null);
+        JSONObject logJson = new JSONObject(SpaceJsonWriter.toJson(log));
+        assertFalse(logJson.has("timestamp"));
+        assertEquals("No time.", logJson.getString("description"));
+    }
+
+    @Test
+    public void shipArrayMatchesLegacyFormat() throws Exception {
+        List<Ship> ships = new ArrayList<Ship>();
+        for (long id = 1; id <= 3; id++) {
+            Ship ship = createShip();
+            ship.setId(id);
+            ships.add(ship);
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        SpaceJsonWriter.writeShips(ships, stream);
+
+        JSONArray array = new JSONArray(stream.toString(StandardCharsets.UTF_8));
+        assertEquals(ships.size(), array.length());
+        for (int i = 0; i < ships.size(); i++) {
+            assertSameJson(LegacySpaceJson.toJson(ships.get(i)), array.getJSONObject(i).toString());
+        }
+    }
+
+    @Test
+    public void timestampsKeepTheirFractions() {
+        JSONObject mission = new JSONObject(SpaceJsonWriter.toJson(createShip())).getJSONObject("mission");
+        assertEquals("2023-07-25 11:53:54.785", mission.getString("departureTime"));
+        assertEquals("1969-07-20 20:17:40.123456789", mission.getString("arrivalTime"));
+        assertEquals("2024-02-29 23:59:59.000000001", mission.getJSONArray("events").getJSONObject(1).getString("timestamp"));
+    }
+}
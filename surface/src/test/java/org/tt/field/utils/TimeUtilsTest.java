@@ -0,0 +1,125 @@
+package org.tt.field.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+public class TimeUtilsTest {
+
+    private static final List<String> ZONES = List.of("UTC", "Europe/Helsinki", "America/New_York", "Australia/Lord_Howe");
+
+    /**
+     * Checks that a timestamp parses to the same instant as Timestamp.valueOf gives for it in
+     * each of the zones, which is how timestamps were parsed before.
+     */
+    private static void assertSameAsValueOf(String timestamp) {
+        String legacy = timestamp.replace("T", " ").replace("Z", "");
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            for (String zone : ZONES) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                Timestamp expected = Timestamp.valueOf(legacy);
+                Timestamp actual = TimeUtils.toTimestamp(timestamp, ZoneId.of(zone).getRules());
+                assertEquals(expected.getTime(), actual.getTime(), timestamp + " in " + zone);
+                assertEquals(expected.getNanos(), actual.getNanos(), timestamp + " in " + zone);
+            }
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void ordinaryTimestampsMatchValueOf() {
+        assertSameAsValueOf("2023-10-28T11:43:41.657Z");
+        assertSameAsValueOf("2023-10-28 11:43:41.657");
+        assertSameAsValueOf("1970-01-01T00:00:00Z");
+        assertSameAsValueOf("1969-12-31T23:59:59.999Z");
+        assertSameAsValueOf("1900-01-01T12:00:00Z");
+        assertSameAsValueOf("2099-12-31T23:59:59Z");
+    }
+
+    @Test
+    public void leapDaysMatchValueOf() {
+        assertSameAsValueOf("2024-02-29T10:00:00Z");
+        assertSameAsValueOf("2000-02-29T10:00:00Z");
+        assertSameAsValueOf("1904-02-29T10:00:00Z");
+        assertSameAsValueOf("2024-03-01T00:00:00Z");
+
+        assertThrows(IllegalArgumentException.class, () -> TimeUtils.toTimestamp("2023-02-29T10:00:00Z"));
+        assertThrows(IllegalArgumentException.class, () -> TimeUtils.toTimestamp("1900-02-29T10:00:00Z"));
+    }
+
+    @Test
+    public void daylightSavingTransitionsMatchValueOf() {
+        // Times in a gap do not exist, and times in an overlap occur twice. Both must resolve
+        // to the same instant as before.
+
+        assertSameAsValueOf("2023-03-26T03:30:00Z");
+        assertSameAsValueOf("2023-03-12T02:30:00Z");
+        assertSameAsValueOf("2023-10-01T02:15:00Z");
+
+        assertSameAsValueOf("2023-10-29T03:30:00Z");
+        assertSameAsValueOf("2023-11-05T01:30:00Z");
+        assertSameAsValueOf("2023-04-02T01:45:00Z");
+
+        assertSameAsValueOf("2023-10-29T02:59:59.999999999Z");
+        assertSameAsValueOf("2023-10-29T04:00:00Z");
+    }
+
+    @Test
+    public void fractionsOfEveryLengthMatchValueOf() {
+        String digits = "123456789";
+        for (int length = 1; length <= 9; length++) {
+            assertSameAsValueOf("2023-10-28T11:43:41." + digits.substring(0, length) + "Z");
+            assertSameAsValueOf("2023-10-28T11:43:41." + "000000001".substring(9 - length) + "Z");
+        }
+        assertEquals(1, TimeUtils.toTimestamp("2023-10-28T11:43:41.000000001Z").getNanos());
+        assertEquals(100000000, TimeUtils.toTimestamp("2023-10-28T11:43:41.1Z").getNanos());
+    }
+
+    @Test
+    public void secondsAreOptional() {
+        assertEquals(TimeUtils.toTimestamp("2023-10-28T11:43:00Z"), TimeUtils.toTimestamp("2023-10-28T11:43Z"));
+        assertEquals(TimeUtils.toTimestamp("2023-10-28T11:43:00"), TimeUtils.toTimestamp("2023-10-28T11:43"));
+    }
+
+    @Test
+    public void malformedTimestampsAreRejected() {
+        List<String> malformed = List.of(
+            "",
+            "2023-10-28",
+            "2023-10-28T11",
+            "2023/10/28T11:43:41Z",
+            "2023-10-28X11:43:41Z",
+            "2023-1-28T11:43:41Z",
+            "2023-10-28T1:43:41Z",
+            "2023-10-28T11:4a:41Z",
+            "2023-10-28T11:43:4Z",
+            "2023-00-28T11:43:41Z",
+            "2023-13-28T11:43:41Z",
+            "2023-10-00T11:43:41Z",
+            "2023-10-32T11:43:41Z",
+            "2023-04-31T11:43:41Z",
+            "2023-10-28T24:00:00Z",
+            "2023-10-28T11:60:00Z",
+            "2023-10-28T11:43:60Z",
+            "2023-10-28T11:43:41.Z",
+            "2023-10-28T11:43:41.1234567891Z",
+            "2023-10-28T11:43:41.657ZZ",
+            "2023-10-28T11:43:41.657z",
+            "2023-10-28T11:43:41.657 ",
+            "2023-10-28T11:43:41.657+05:00",
+            "2023-10-28T11:43:41.657-0800",
+            "2023-10-28T11:43:41+00:00",
+            "2023-10-28T11:43:41+02");
+        for (String timestamp : malformed) {
+            assertThrows(IllegalArgumentException.class, () -> TimeUtils.toTimestamp(timestamp), timestamp);
+        }
+    }
+}